@@ -0,0 +1,97 @@
+package jutil.data.dtos;
+
+/**
+ * Classe com o andamento de uma cópia de pasta feita pela classe {@link jutil.utils.FileUtils}
+ * <p>
+ * Os totais crescem enquanto a pasta de origem ainda está sendo percorrida.
+ *
+ * @author Diego Steyner
+ */
+public class CopyProgressDTO
+{
+	private long totalFiles;
+	private long copiedFiles;
+	private long skippedFiles;
+	private long totalBytes;
+	private long copiedBytes;
+	private long elapsedMillis;
+
+	public CopyProgressDTO()
+	{
+	}
+
+	/**
+	 * Construtor
+	 *
+	 * @param totalFiles A quantidade de arquivos encontrados na origem
+	 * @param copiedFiles A quantidade de arquivos copiados
+	 * @param skippedFiles A quantidade de arquivos ignorados por não terem sido alterados
+	 * @param totalBytes A soma do tamanho dos arquivos encontrados na origem
+	 * @param copiedBytes A quantidade de bytes copiados
+	 * @param elapsedMillis O tempo decorrido desde o início da cópia, em milissegundos
+	 */
+	public CopyProgressDTO(long totalFiles, long copiedFiles, long skippedFiles, long totalBytes, long copiedBytes, long elapsedMillis)
+	{
+		this.totalFiles = totalFiles;
+		this.copiedFiles = copiedFiles;
+		this.skippedFiles = skippedFiles;
+		this.totalBytes = totalBytes;
+		this.copiedBytes = copiedBytes;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public long getTotalFiles() {
+		return totalFiles;
+	}
+
+	public void setTotalFiles(long totalFiles) {
+		this.totalFiles = totalFiles;
+	}
+
+	public long getCopiedFiles() {
+		return copiedFiles;
+	}
+
+	public void setCopiedFiles(long copiedFiles) {
+		this.copiedFiles = copiedFiles;
+	}
+
+	public long getSkippedFiles() {
+		return skippedFiles;
+	}
+
+	public void setSkippedFiles(long skippedFiles) {
+		this.skippedFiles = skippedFiles;
+	}
+
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public void setTotalBytes(long totalBytes) {
+		this.totalBytes = totalBytes;
+	}
+
+	public long getCopiedBytes() {
+		return copiedBytes;
+	}
+
+	public void setCopiedBytes(long copiedBytes) {
+		this.copiedBytes = copiedBytes;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public void setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * @return A vazão da cópia, em bytes por segundo
+	 */
+	public long getBytesPerSecond() {
+		return elapsedMillis > 0 ? copiedBytes * 1000 / elapsedMillis : copiedBytes;
+	}
+}
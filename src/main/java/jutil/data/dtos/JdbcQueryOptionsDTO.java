@@ -0,0 +1,71 @@
+package jutil.data.dtos;
+
+import jutil.data.enums.JdbcEnum;
+
+/**
+ * Classe com as opções de execução de consultas usadas pela classe {@link jutil.utils.jdbc.JdbcUtils}
+ * <p>
+ * Os valores 0 mantêm o padrão do driver. No modo streaming, caso o fetch size não seja informado, é usado o
+ * fetch size de streaming do {@link JdbcEnum} da conexão.
+ *
+ * @author Diego Steyner
+ */
+public class JdbcQueryOptionsDTO
+{
+	private int fetchSize;
+	private int maxRows;
+	private int queryTimeout;
+	private boolean streaming;
+
+	public JdbcQueryOptionsDTO()
+	{
+	}
+
+	/**
+	 * Construtor
+	 *
+	 * @param fetchSize A quantidade de linhas lidas do banco em cada ida ao banco
+	 * @param maxRows A quantidade máxima de linhas retornadas pela consulta
+	 * @param queryTimeout O tempo máximo de execução da consulta, em segundos
+	 * @param streaming Se True, a consulta será lida em partes, mantendo o consumo de memória limitado
+	 */
+	public JdbcQueryOptionsDTO(int fetchSize, int maxRows, int queryTimeout, boolean streaming)
+	{
+		this.fetchSize = fetchSize;
+		this.maxRows = maxRows;
+		this.queryTimeout = queryTimeout;
+		this.streaming = streaming;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+	}
+
+	public int getQueryTimeout() {
+		return queryTimeout;
+	}
+
+	public void setQueryTimeout(int queryTimeout) {
+		this.queryTimeout = queryTimeout;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+}
@@ -0,0 +1,49 @@
+package jutil.data.dtos;
+
+/**
+ * Classe com uma linha encontrada na busca paralela da classe {@link jutil.utils.FileReaderUtils}
+ *
+ * @author Diego Steyner
+ */
+public class LineMatchDTO
+{
+	private long lineNumber;
+	private String line;
+
+	public LineMatchDTO()
+	{
+	}
+
+	/**
+	 * Construtor
+	 *
+	 * @param lineNumber O número da linha no arquivo, começando em 1
+	 * @param line O conteúdo da linha, sem o terminador
+	 */
+	public LineMatchDTO(long lineNumber, String line)
+	{
+		this.lineNumber = lineNumber;
+		this.line = line;
+	}
+
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	public void setLineNumber(long lineNumber) {
+		this.lineNumber = lineNumber;
+	}
+
+	public String getLine() {
+		return line;
+	}
+
+	public void setLine(String line) {
+		this.line = line;
+	}
+
+	@Override
+	public String toString() {
+		return lineNumber + ":" + line;
+	}
+}
@@ -0,0 +1,42 @@
+package jutil.data.enums;
+
+import jutil.utils.jdbc.ColumnarTable;
+
+/**
+ * Classe de constantes com os tipos de armazenamento das colunas da classe {@link ColumnarTable}
+ *
+ * @author Diego Steyner
+ */
+public enum ColumnTypeEnum
+{
+	/**
+	 * Coluna armazenada em um int[], usada para INTEGER, SMALLINT, TINYINT, BIT e BOOLEAN
+	 */
+	INT,
+
+	/**
+	 * Coluna armazenada em um long[], usada para BIGINT e NUMERIC/DECIMAL sem casas decimais
+	 */
+	LONG,
+
+	/**
+	 * Coluna armazenada em um double[], usada para DOUBLE, FLOAT e REAL
+	 */
+	DOUBLE,
+
+	/**
+	 * Coluna armazenada em um long[] com os milissegundos desde 1970, usada para DATE, TIME e TIMESTAMP
+	 */
+	TIMESTAMP,
+
+	/**
+	 * Coluna de texto armazenada como códigos de um dicionário de valores distintos
+	 */
+	STRING,
+
+	/**
+	 * Coluna armazenada como Object[] para os demais tipos
+	 */
+	OBJECT
+	;
+}
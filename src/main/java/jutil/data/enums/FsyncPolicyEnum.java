@@ -0,0 +1,27 @@
+package jutil.data.enums;
+
+import jutil.utils.FileAppender;
+
+/**
+ * Classe de constantes com as políticas de sincronização com o disco usadas pela classe {@link FileAppender}
+ *
+ * @author Diego Steyner
+ */
+public enum FsyncPolicyEnum
+{
+	/**
+	 * O sistema operacional decide quando os dados vão para o disco
+	 */
+	NONE,
+
+	/**
+	 * Os dados são forçados para o disco somente ao fechar o arquivo
+	 */
+	ON_CLOSE,
+
+	/**
+	 * Os dados são forçados para o disco a cada gravação de um lote
+	 */
+	ON_FLUSH
+	;
+}
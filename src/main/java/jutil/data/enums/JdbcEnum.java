@@ -4,10 +4,48 @@ import jutil.data.dtos.JdbcConnectionDTO;
 
 public enum JdbcEnum 
 {
-	MYSQL("com.mysql.jdbc.Driver", ""),
+	MYSQL("com.mysql.jdbc.Driver", "")
+	{
+		@Override
+		public int getStreamingFetchSize() 
+		{
+			// O driver do MySQL só faz streaming das linhas com este valor, caso contrário todo o resultado é carregado em memória
+			return Integer.MIN_VALUE;
+		}
+	},
 	SYBASE("net.sourceforge.jtds.jdbc.Driver", ""),
-	HSQLDB("org.hsqldb.jdbcDriver", ""),
-	H2("org.h2.Driver", ""),
+	HSQLDB("org.hsqldb.jdbcDriver", "jdbc:hsqldb:")
+	{
+		@Override
+		public String getConnectionUrl(JdbcConnectionDTO info) 
+		{
+			// Sem host o banco é aberto no próprio processo, e o dbName informa o tipo e o nome (ex.: mem:teste ou file:/dados/teste)
+			String url = getConectionString();
+			
+			if(info.getHost() != null && !info.getHost().isEmpty())
+			{
+				url = url.concat("hsql://").concat(getHostAndPort(info)).concat("/");
+			}
+			
+			return (appendProperties(url.concat(info.getDbName()), info));
+		}
+	},
+	H2("org.h2.Driver", "jdbc:h2:")
+	{
+		@Override
+		public String getConnectionUrl(JdbcConnectionDTO info) 
+		{
+			// Sem host o banco é aberto no próprio processo, e o dbName informa o tipo e o nome (ex.: mem:teste ou ./dados/teste)
+			String url = getConectionString();
+			
+			if(info.getHost() != null && !info.getHost().isEmpty())
+			{
+				url = url.concat("tcp://").concat(getHostAndPort(info)).concat("/");
+			}
+			
+			return (appendProperties(url.concat(info.getDbName()), info));
+		}
+	},
 
 	ORACLE("oracle.jdbc.driver.OracleDriver", "jdbc:oracle:thin:")
 	{
@@ -52,8 +90,20 @@ public enum JdbcEnum
 			
 			return url;
 		}
+		
+		@Override
+		public boolean isStreamingRequiresTransaction() 
+		{
+			// O driver do PostgreSQL ignora o fetch size e carrega todo o resultado quando a conexão está em commit automático
+			return true;
+		}
 	};
 	
+	/**
+	 * Fetch size padrão usado no modo streaming
+	 */
+	public static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+	
 	private String driver;
 	private String conectionString;
 	
@@ -96,4 +146,62 @@ public enum JdbcEnum
 		return conectionString;
 		
 	}
+	
+	/**
+	 * Método que retorna o host da conexão, seguido da porta quando ela for informada
+	 * 
+	 * @param info As informações de conexão
+	 * 
+	 * @return O host e a porta no formato host:porta
+	 */
+	private static String getHostAndPort(JdbcConnectionDTO info)
+	{
+		if(info.getPorta() == null || info.getPorta().isEmpty())
+		{
+			return info.getHost();
+		}
+		
+		return info.getHost().concat(":").concat(info.getPorta());
+	}
+	
+	/**
+	 * Método que adiciona as informações extras da conexão na URL no formato ;chave=valor, usado pelo H2 e pelo HSQLDB
+	 * 
+	 * @param url A URL de conexão
+	 * @param info As informações de conexão
+	 * 
+	 * @return A URL com as informações extras
+	 */
+	private static String appendProperties(String url, JdbcConnectionDTO info)
+	{
+		if(info.getExtraInfoUrl() != null)
+		{
+			for(String key : info.getExtraInfoUrl().keySet())
+			{
+				url = url.concat(";").concat(key).concat("=").concat(info.getExtraInfoUrl().get(key));
+			}
+		}
+		
+		return url;
+	}
+	
+	/**
+	 * Método que retorna o fetch size que faz o driver ler o resultado em partes ao invés de carregá-lo todo em memória
+	 * 
+	 * @return O fetch size usado no modo streaming
+	 */
+	public int getStreamingFetchSize()
+	{
+		return DEFAULT_STREAMING_FETCH_SIZE;
+	}
+	
+	/**
+	 * Método que informa se o driver precisa que o commit automático esteja desligado para fazer streaming do resultado
+	 * 
+	 * @return Se True, o commit automático deve ser desligado no modo streaming
+	 */
+	public boolean isStreamingRequiresTransaction()
+	{
+		return false;
+	}
 }
@@ -0,0 +1,22 @@
+package jutil.data.enums;
+
+import jutil.utils.jdbc.ResultSetRowMapper;
+
+/**
+ * Classe de constantes com os motores de mapeamento usados pela classe {@link ResultSetRowMapper}
+ *
+ * @author Diego Steyner
+ */
+public enum RowMapperEnum
+{
+	/**
+	 * Os valores são configurados via {@link java.lang.reflect.Method#invoke(Object, Object...)}, com boxing dos tipos primitivos
+	 */
+	REFLECTION,
+
+	/**
+	 * Os valores são configurados via {@link java.lang.invoke.MethodHandle} com assinatura exata, sem boxing dos tipos primitivos
+	 */
+	METHOD_HANDLE
+	;
+}
@@ -0,0 +1,307 @@
+package jutil.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Classe que guarda em disco os CheckSums já calculados, identificados pelo caminho canônico, tamanho e data de modificação de cada arquivo
+ * <p>
+ * Antes de calcular um CheckSum o índice é consultado e, se o arquivo não foi alterado, o CheckSum guardado é retornado, custando somente a
+ * leitura dos atributos do arquivo. O índice é gravado compactado em um arquivo binário ao chamar {@link #save()} ou {@link #close()}.
+ * A classe pode ser usada por várias threads ao mesmo tempo.
+ *
+ * @author Diego Steyner
+ */
+public class ChecksumCache implements AutoCloseable
+{
+    private static final int MAGIC = 0x4A434B53;
+    private static final int VERSION = 1;
+    private static final int MAX_PATH_LENGTH = 64 * 1024;
+
+    private final File indexFile;
+    private final String algorithm;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile boolean dirty;
+
+    /**
+     * Construtor que carrega o índice caso ele já exista
+     * <p>
+     * Um índice corrompido ou incompleto, por exemplo por uma queda durante a gravação, é descartado e o índice começa vazio, sendo
+     * reconstruído conforme os CheckSums forem calculados.
+     *
+     * @param indexFile O arquivo onde o índice é gravado
+     * @param algorithm O algoritmo aceito pela classe {@link ChecksumUtils}
+     *
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public ChecksumCache(File indexFile, String algorithm) throws Exception
+    {
+        this.indexFile = indexFile;
+        this.algorithm = algorithm;
+
+        if (indexFile.isFile())
+        {
+            try
+            {
+                load();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                entries.clear();
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Método que retorna o CheckSum de um arquivo, calculando-o somente se o arquivo não estiver no índice ou tiver sido alterado
+     *
+     * @param file O arquivo
+     *
+     * @return O array de bytes do CheckSum do arquivo
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public byte[] getChecksum(File file) throws Exception
+    {
+        String path = file.getCanonicalPath();
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        Entry entry = entries.get(path);
+
+        if (entry != null && entry.size == size && entry.modified == modified)
+        {
+            hits.incrementAndGet();
+            return (entry.checksum.clone());
+        }
+
+        misses.incrementAndGet();
+
+        byte[] checksum = ChecksumUtils.checksum(file, algorithm);
+        entries.put(path, new Entry(size, modified, checksum));
+        dirty = true;
+
+        return (checksum.clone());
+    }
+
+    /**
+     * Método que remove do índice os arquivos que não existem mais
+     *
+     * @return A quantidade de arquivos removidos
+     */
+    public int evictDeleted()
+    {
+        int retorno = 0;
+
+        for (Iterator<String> iterator = entries.keySet().iterator(); iterator.hasNext();)
+        {
+            if (!new File(iterator.next()).isFile())
+            {
+                iterator.remove();
+                retorno++;
+            }
+        }
+
+        if (retorno > 0)
+        {
+            dirty = true;
+        }
+
+        return (retorno);
+    }
+
+    /**
+     * Método que grava o índice em disco caso ele tenha sido alterado
+     * <p>
+     * O índice é gravado em um arquivo temporário na mesma pasta, forçado para o disco e depois renomeado, de forma que nem uma gravação
+     * interrompida nem uma queda do sistema logo após a troca deixam o índice incompleto. As entradas são copiadas antes da gravação, de forma que alterações feitas por outras threads durante a
+     * gravação não corrompem o arquivo, e ficam para a próxima gravação.
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public synchronized void save() throws IOException
+    {
+        if (!dirty)
+        {
+            return;
+        }
+
+        dirty = false;
+
+        ArrayList<Map.Entry<String, Entry>> snapshot = new ArrayList<Map.Entry<String, Entry>>(entries.entrySet());
+        File folder = indexFile.getAbsoluteFile().getParentFile();
+        folder.mkdirs();
+
+        Path temp = Files.createTempFile(folder.toPath(), indexFile.getName(), ".tmp");
+
+        try
+        {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE))
+            {
+                DeflaterOutputStream deflated = new DeflaterOutputStream(Channels.newOutputStream(channel), deflater);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflated, 64 * 1024));
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(algorithm);
+                out.writeInt(snapshot.size());
+
+                for (Map.Entry<String, Entry> entry : snapshot)
+                {
+                    byte[] path = entry.getKey().getBytes(StandardCharsets.UTF_8);
+
+                    out.writeInt(path.length);
+                    out.write(path);
+                    out.writeLong(entry.getValue().size);
+                    out.writeLong(entry.getValue().modified);
+                    out.writeByte(entry.getValue().checksum.length);
+                    out.write(entry.getValue().checksum);
+                }
+
+                out.flush();
+                deflated.finish();
+
+                // Sem o force, o rename pode chegar ao disco antes dos dados e uma queda deixaria o índice truncado
+                channel.force(true);
+            }
+            finally
+            {
+                deflater.end();
+            }
+
+            Files.move(temp, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            dirty = true;
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Método que grava o índice em disco caso ele tenha sido alterado
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     * @see #save()
+     */
+    @Override
+    public void close() throws IOException
+    {
+        save();
+    }
+
+    /**
+     * @return A quantidade de arquivos no índice
+     */
+    public int size()
+    {
+        return (entries.size());
+    }
+
+    /**
+     * @return A quantidade de CheckSums retornados do índice sem ler o arquivo
+     */
+    public long getHits()
+    {
+        return (hits.get());
+    }
+
+    /**
+     * @return A quantidade de CheckSums que precisaram ser calculados
+     */
+    public long getMisses()
+    {
+        return (misses.get());
+    }
+
+    public String getAlgorithm()
+    {
+        return (algorithm);
+    }
+
+    /**
+     * Método que carrega o índice do disco. Um índice de outro algoritmo é descartado
+     *
+     * @throws IOException Caso o arquivo não seja um índice válido ou esteja incompleto
+     */
+    private void load() throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(Files.newInputStream(indexFile.toPath())), 64 * 1024)))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+            {
+                throw new IOException("O arquivo " + indexFile + " não é um índice de CheckSums válido.");
+            }
+
+            if (!algorithm.equals(in.readUTF()))
+            {
+                dirty = true;
+                return;
+            }
+
+            int count = in.readInt();
+
+            for (int i = 0; i < count; i++)
+            {
+                int length = in.readInt();
+
+                if (length < 0 || length > MAX_PATH_LENGTH)
+                {
+                    throw new IOException("O arquivo " + indexFile + " não é um índice de CheckSums válido.");
+                }
+
+                byte[] path = new byte[length];
+                in.readFully(path);
+
+                long size = in.readLong();
+                long modified = in.readLong();
+                byte[] checksum = new byte[in.readUnsignedByte()];
+                in.readFully(checksum);
+
+                entries.put(new String(path, StandardCharsets.UTF_8), new Entry(size, modified, checksum));
+            }
+        }
+    }
+
+    /**
+     * Registro de um arquivo no índice
+     */
+    private static final class Entry
+    {
+        private final long size;
+        private final long modified;
+        private final byte[] checksum;
+
+        private Entry(long size, long modified, byte[] checksum)
+        {
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+    }
+}
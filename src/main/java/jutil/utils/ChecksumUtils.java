@@ -0,0 +1,649 @@
+package jutil.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import jutil.abstracts.AbstractUtils;
+
+/**
+ * Classe utilitária para se gerar e verificar CheckSums de arquivos
+ * <p>
+ * Vários algoritmos podem ser calculados em uma única leitura do arquivo. Além dos algoritmos aceitos pela classe {@link MessageDigest},
+ * são aceitos o {@link #CRC32} e o {@link #CRC32C}.
+ *
+ * @author Diego Steyner
+ */
+public final class ChecksumUtils extends AbstractUtils
+{
+    /**
+     * Nome do algoritmo CRC32
+     */
+    public static final String CRC32 = "CRC32";
+
+    /**
+     * Nome do algoritmo CRC32C (Castagnoli)
+     */
+    public static final String CRC32C = "CRC32C";
+
+    /**
+     * Tamanho do buffer direto usado na leitura dos arquivos
+     */
+    public static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Buffers de leitura reaproveitados por thread
+     */
+    private static final ThreadLocal<ByteBuffer> BUFFERS = new ThreadLocal<ByteBuffer>()
+    {
+        @Override
+        protected ByteBuffer initialValue()
+        {
+            return (ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+    };
+
+    /**
+     * Classe java.util.zip.CRC32C, presente a partir do Java 9, ou null
+     */
+    private static final Class<?> JDK_CRC32C;
+
+    /**
+     * Método update(ByteBuffer) da interface {@link Checksum}, presente a partir do Java 9, ou null
+     */
+    private static final Method JDK_CRC32C_UPDATE;
+
+    static
+    {
+        Class<?> klass = null;
+        Method update = null;
+
+        try
+        {
+            klass = Class.forName("java.util.zip.CRC32C");
+            update = klass.getMethod("update", ByteBuffer.class);
+        }
+        catch (Exception e)
+        {
+            // Java 8, é usada a implementação por tabela
+            klass = null;
+        }
+
+        JDK_CRC32C = klass;
+        JDK_CRC32C_UPDATE = update;
+    }
+
+    /**
+     * Construtor Privado
+     */
+    private ChecksumUtils()
+    {
+        throw EXCEPTION_CONSTRUTOR;
+    }
+
+    /**
+     * Método que calcula um CheckSum de um arquivo
+     *
+     * @param file O arquivo
+     * @param algorithm O algoritmo aceito pela classe {@link MessageDigest}, {@link #CRC32} ou {@link #CRC32C}
+     *
+     * @return O array de bytes do CheckSum do arquivo
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static byte[] checksum(File file, String algorithm) throws Exception
+    {
+        return (checksum(file, new String[] { algorithm }).get(algorithm));
+    }
+
+    /**
+     * Método que calcula vários CheckSums de um arquivo em uma única leitura
+     *
+     * @param file O arquivo
+     * @param algorithms Os algoritmos aceitos pela classe {@link MessageDigest}, {@link #CRC32} ou {@link #CRC32C}
+     *
+     * @return Um {@link Map} com o CheckSum de cada algoritmo, na ordem em que foram informados
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static Map<String, byte[]> checksum(File file, String... algorithms) throws Exception
+    {
+        if (algorithms.length == 0)
+        {
+            throw new IllegalArgumentException("Ao menos um algoritmo deve ser informado.");
+        }
+
+        Engine[] engines = new Engine[algorithms.length];
+
+        for (int i = 0; i < algorithms.length; i++)
+        {
+            engines[i] = newEngine(algorithms[i]);
+        }
+
+        ByteBuffer buffer = BUFFERS.get();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            buffer.clear();
+
+            while (channel.read(buffer) > -1)
+            {
+                buffer.flip();
+
+                for (Engine engine : engines)
+                {
+                    buffer.rewind();
+                    engine.update(buffer);
+                }
+
+                buffer.clear();
+            }
+        }
+
+        Map<String, byte[]> retorno = new LinkedHashMap<String, byte[]>();
+
+        for (int i = 0; i < algorithms.length; i++)
+        {
+            retorno.put(algorithms[i], engines[i].digest());
+        }
+
+        return (retorno);
+    }
+
+    /**
+     * Método que calcula em paralelo os CheckSums de todos os arquivos de uma pasta e de suas subpastas
+     *
+     * @param folder A pasta
+     * @param threads A quantidade de arquivos lidos ao mesmo tempo
+     * @param algorithms Os algoritmos aceitos pela classe {@link MessageDigest}, {@link #CRC32} ou {@link #CRC32C}
+     *
+     * @return Um {@link Map} ordenado pelo caminho de cada arquivo, com os CheckSums do arquivo
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static Map<File, Map<String, byte[]>> checksumFolder(File folder, int threads, final String... algorithms) throws Exception
+    {
+        final Map<File, Future<Map<String, byte[]>>> futures = new TreeMap<File, Future<Map<String, byte[]>>>();
+
+        forEachFile(folder, threads, null, new FileTask()
+        {
+            @Override
+            public Future<?> submit(ExecutorService executor, final File file)
+            {
+                Future<Map<String, byte[]>> future = executor.submit(new Callable<Map<String, byte[]>>()
+                {
+                    @Override
+                    public Map<String, byte[]> call() throws Exception
+                    {
+                        return (checksum(file, algorithms));
+                    }
+                });
+
+                futures.put(file, future);
+
+                return (future);
+            }
+        });
+
+        Map<File, Map<String, byte[]>> retorno = new TreeMap<File, Map<String, byte[]>>();
+
+        for (Map.Entry<File, Future<Map<String, byte[]>>> entry : futures.entrySet())
+        {
+            retorno.put(entry.getKey(), entry.getValue().get());
+        }
+
+        return (retorno);
+    }
+
+    /**
+     * Método que calcula em paralelo os CheckSums de todos os arquivos de uma pasta e de suas subpastas, consultando antes o
+     * {@link ChecksumCache}, de forma que somente os arquivos novos ou alterados são lidos
+     *
+     * @param folder A pasta
+     * @param threads A quantidade de arquivos lidos ao mesmo tempo
+     * @param cache O {@link ChecksumCache} com o algoritmo desejado
+     *
+     * @return Um {@link Map} ordenado pelo caminho de cada arquivo, com o CheckSum do arquivo
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static Map<File, byte[]> checksumFolder(File folder, int threads, final ChecksumCache cache) throws Exception
+    {
+        final Map<File, Future<byte[]>> futures = new TreeMap<File, Future<byte[]>>();
+
+        forEachFile(folder, threads, null, new FileTask()
+        {
+            @Override
+            public Future<?> submit(ExecutorService executor, final File file)
+            {
+                Future<byte[]> future = executor.submit(new Callable<byte[]>()
+                {
+                    @Override
+                    public byte[] call() throws Exception
+                    {
+                        return (cache.getChecksum(file));
+                    }
+                });
+
+                futures.put(file, future);
+
+                return (future);
+            }
+        });
+
+        Map<File, byte[]> retorno = new TreeMap<File, byte[]>();
+
+        for (Map.Entry<File, Future<byte[]>> entry : futures.entrySet())
+        {
+            retorno.put(entry.getKey(), entry.getValue().get());
+        }
+
+        return (retorno);
+    }
+
+    /**
+     * Método que retorna o arquivo de CheckSum de um arquivo, com o nome do arquivo seguido da extensão do algoritmo, por exemplo
+     * arquivo.zip.sha256
+     *
+     * @param file O arquivo
+     * @param algorithm O algoritmo
+     *
+     * @return O arquivo de CheckSum
+     */
+    public static File getSidecarFile(File file, String algorithm)
+    {
+        return (new File(file.getPath() + getSidecarExtension(algorithm)));
+    }
+
+    /**
+     * Método que calcula o CheckSum de um arquivo e o grava no arquivo de CheckSum, no formato "checksum  nome" usado pelo sha256sum
+     *
+     * @param file O arquivo
+     * @param algorithm O algoritmo aceito pela classe {@link MessageDigest}, {@link #CRC32} ou {@link #CRC32C}
+     *
+     * @return O arquivo de CheckSum gravado
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static File writeSidecar(File file, String algorithm) throws Exception
+    {
+        File sidecar = getSidecarFile(file, algorithm);
+        String line = FileUtils.checkSumToString(checksum(file, algorithm)) + "  " + file.getName() + "\n";
+
+        Files.write(sidecar.toPath(), line.getBytes(StandardCharsets.UTF_8));
+
+        return (sidecar);
+    }
+
+    /**
+     * Método que testa se o CheckSum atual de um arquivo corresponde ao gravado no seu arquivo de CheckSum
+     *
+     * @param file O arquivo
+     * @param algorithm O algoritmo usado na geração do arquivo de CheckSum
+     *
+     * @return Se True, O CheckSum atual corresponde ao gravado. Se o arquivo de CheckSum não existir, False
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static boolean verifySidecar(File file, String algorithm) throws Exception
+    {
+        File sidecar = getSidecarFile(file, algorithm);
+
+        if (!sidecar.isFile())
+        {
+            return (Boolean.FALSE);
+        }
+
+        String expected = new String(Files.readAllBytes(sidecar.toPath()), StandardCharsets.UTF_8).trim().split("\\s+", 2)[0];
+
+        return (expected.equalsIgnoreCase(FileUtils.checkSumToString(checksum(file, algorithm))));
+    }
+
+    /**
+     * Método que grava em paralelo os arquivos de CheckSum de todos os arquivos de uma pasta e de suas subpastas
+     *
+     * @param folder A pasta
+     * @param threads A quantidade de arquivos lidos ao mesmo tempo
+     * @param algorithm O algoritmo aceito pela classe {@link MessageDigest}, {@link #CRC32} ou {@link #CRC32C}
+     *
+     * @return A quantidade de arquivos de CheckSum gravados
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static int writeSidecars(File folder, int threads, final String algorithm) throws Exception
+    {
+        return (forEachFile(folder, threads, getSidecarExtension(algorithm), new FileTask()
+        {
+            @Override
+            public Future<?> submit(ExecutorService executor, final File file)
+            {
+                return (executor.submit(new Callable<File>()
+                {
+                    @Override
+                    public File call() throws Exception
+                    {
+                        return (writeSidecar(file, algorithm));
+                    }
+                }));
+            }
+        }));
+    }
+
+    /**
+     * Método que verifica em paralelo os arquivos de CheckSum de todos os arquivos de uma pasta e de suas subpastas
+     *
+     * @param folder A pasta
+     * @param threads A quantidade de arquivos lidos ao mesmo tempo
+     * @param algorithm O algoritmo usado na geração dos arquivos de CheckSum
+     *
+     * @return Os arquivos cujo CheckSum não corresponde ao gravado ou que não possuem arquivo de CheckSum, ordenados pelo caminho
+     * @throws Exception Caso ocorra algum erro, inclusive quando uma subpasta não puder ser lida, uma exceção será lançada
+     */
+    public static List<File> verifySidecars(File folder, int threads, final String algorithm) throws Exception
+    {
+        final Map<File, Future<Boolean>> futures = new TreeMap<File, Future<Boolean>>();
+
+        forEachFile(folder, threads, getSidecarExtension(algorithm), new FileTask()
+        {
+            @Override
+            public Future<?> submit(ExecutorService executor, final File file)
+            {
+                Future<Boolean> future = executor.submit(new Callable<Boolean>()
+                {
+                    @Override
+                    public Boolean call() throws Exception
+                    {
+                        return (verifySidecar(file, algorithm));
+                    }
+                });
+
+                futures.put(file, future);
+
+                return (future);
+            }
+        });
+
+        List<File> retorno = new ArrayList<File>();
+
+        for (Map.Entry<File, Future<Boolean>> entry : futures.entrySet())
+        {
+            if (!entry.getValue().get().booleanValue())
+            {
+                retorno.add(entry.getKey());
+            }
+        }
+
+        return (retorno);
+    }
+
+    /**
+     * Método que retorna a extensão dos arquivos de CheckSum de um algoritmo, por exemplo .sha256 para SHA-256
+     *
+     * @param algorithm O algoritmo
+     *
+     * @return A extensão com o ponto
+     */
+    private static String getSidecarExtension(String algorithm)
+    {
+        return ("." + algorithm.replace("-", "").toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Método que percorre uma pasta e submete cada arquivo a um {@link ExecutorService} com a quantidade de threads informada, esperando
+     * todos terminarem
+     *
+     * @param folder A pasta
+     * @param threads A quantidade de threads
+     * @param ignoreExtension A extensão dos arquivos que devem ser ignorados, pode ser null
+     * @param task A tarefa que submete cada arquivo
+     *
+     * @return A quantidade de arquivos submetidos
+     * @throws Exception A primeira exceção lançada por um arquivo, ou o erro de leitura de uma pasta, já que um arquivo que não foi
+     *         encontrado não pode ser deixado de fora sem aviso
+     */
+    private static int forEachFile(File folder, int threads, final String ignoreExtension, final FileTask task) throws Exception
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("A quantidade de threads deve ser maior que zero.");
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "ChecksumUtils-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return (thread);
+            }
+        });
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        try
+        {
+            FileUtils.walkFiles(folder.getAbsolutePath(), true, true, new FileUtils.FileWalkHandler()
+            {
+                @Override
+                public FileVisitResult handle(Path path, BasicFileAttributes attributes) throws IOException
+                {
+                    if (attributes.isRegularFile() && (ignoreExtension == null || !path.getFileName().toString().endsWith(ignoreExtension)))
+                    {
+                        futures.add(task.submit(executor, path.toFile()));
+                    }
+
+                    return (FileVisitResult.CONTINUE);
+                }
+            });
+
+            for (Future<?> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException e)
+                {
+                    throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        return (futures.size());
+    }
+
+    /**
+     * Método que calcula o CRC32C pela implementação por tabela, usada quando a classe java.util.zip.CRC32C não existe
+     *
+     * @param data Os bytes a serem calculados
+     *
+     * @return Os 4 bytes do CRC32C
+     */
+    static byte[] crc32cByTable(ByteBuffer data)
+    {
+        Crc32cEngine engine = new Crc32cEngine();
+        engine.update(data);
+
+        return (engine.digest());
+    }
+
+    /**
+     * Método que cria o {@link Engine} de um algoritmo
+     *
+     * @param algorithm O algoritmo
+     *
+     * @return O {@link Engine}
+     * @throws Exception Caso o algoritmo não seja suportado
+     */
+    private static Engine newEngine(String algorithm) throws Exception
+    {
+        if (CRC32.equalsIgnoreCase(algorithm))
+        {
+            return (new Crc32Engine());
+        }
+
+        if (CRC32C.equalsIgnoreCase(algorithm))
+        {
+            return (JDK_CRC32C != null ? new JdkCrc32cEngine((Checksum) JDK_CRC32C.newInstance()) : new Crc32cEngine());
+        }
+
+        return (new DigestEngine(MessageDigest.getInstance(algorithm)));
+    }
+
+    /**
+     * Interface usada para submeter cada arquivo de uma pasta
+     */
+    private interface FileTask
+    {
+        Future<?> submit(ExecutorService executor, File file);
+    }
+
+    /**
+     * Cálculo de um algoritmo sobre os bytes de um arquivo
+     */
+    private abstract static class Engine
+    {
+        abstract void update(ByteBuffer buffer) throws Exception;
+
+        abstract byte[] digest();
+
+        /**
+         * Método que transforma o valor de um CRC nos 4 bytes do CheckSum, do mais significativo para o menos significativo
+         */
+        static byte[] toBytes(long value)
+        {
+            return (new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value });
+        }
+    }
+
+    private static final class DigestEngine extends Engine
+    {
+        private final MessageDigest digest;
+
+        private DigestEngine(MessageDigest digest)
+        {
+            this.digest = digest;
+        }
+
+        @Override
+        void update(ByteBuffer buffer)
+        {
+            digest.update(buffer);
+        }
+
+        @Override
+        byte[] digest()
+        {
+            return (digest.digest());
+        }
+    }
+
+    private static final class Crc32Engine extends Engine
+    {
+        private final CRC32 crc = new CRC32();
+
+        @Override
+        void update(ByteBuffer buffer)
+        {
+            crc.update(buffer);
+        }
+
+        @Override
+        byte[] digest()
+        {
+            return (toBytes(crc.getValue()));
+        }
+    }
+
+    /**
+     * CRC32C do JDK, que usa as instruções do processador quando disponíveis
+     */
+    private static final class JdkCrc32cEngine extends Engine
+    {
+        private final Checksum crc;
+
+        private JdkCrc32cEngine(Checksum crc)
+        {
+            this.crc = crc;
+        }
+
+        @Override
+        void update(ByteBuffer buffer) throws Exception
+        {
+            JDK_CRC32C_UPDATE.invoke(crc, buffer);
+        }
+
+        @Override
+        byte[] digest()
+        {
+            return (toBytes(crc.getValue()));
+        }
+    }
+
+    /**
+     * CRC32C calculado por tabela, usado quando o JDK não possui a classe java.util.zip.CRC32C
+     */
+    private static final class Crc32cEngine extends Engine
+    {
+        private static final int[] TABLE = new int[256];
+
+        static
+        {
+            for (int i = 0; i < 256; i++)
+            {
+                int crc = i;
+
+                for (int j = 0; j < 8; j++)
+                {
+                    crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0x82F63B78 : crc >>> 1;
+                }
+
+                TABLE[i] = crc;
+            }
+        }
+
+        private int crc = 0xFFFFFFFF;
+
+        @Override
+        void update(ByteBuffer buffer)
+        {
+            int value = crc;
+
+            while (buffer.hasRemaining())
+            {
+                value = (value >>> 8) ^ TABLE[(value ^ buffer.get()) & 0xFF];
+            }
+
+            crc = value;
+        }
+
+        @Override
+        byte[] digest()
+        {
+            return (toBytes(~crc & 0xFFFFFFFFL));
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package jutil.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import jutil.data.enums.FsyncPolicyEnum;
+
+/**
+ * Classe que acrescenta registros no final de um arquivo, recebendo-os de várias threads ao mesmo tempo
+ * <p>
+ * Os registros são colocados em uma fila limitada e uma única thread os junta em um buffer direto, gravando o buffer com {@link FileChannel}
+ * quando ele enche ou quando o intervalo máximo desde o primeiro registro não gravado termina. Quando a fila está cheia, quem escreve
+ * espera, limitando o consumo de memória. O arquivo deve ser fechado com {@link #close()} para gravar os últimos registros.
+ *
+ * @author Diego Steyner
+ */
+public class FileAppender implements AutoCloseable
+{
+    /**
+     * Tamanho padrão do buffer de gravação
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Intervalo padrão máximo, em milissegundos, que um registro espera para ser gravado
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL = 200;
+
+    /**
+     * Capacidade padrão da fila de registros
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+
+    private static final Object CLOSE = new Object();
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final ByteBuffer buffer;
+    private final long flushIntervalNanos;
+    private final FsyncPolicyEnum fsyncPolicy;
+    private final BlockingQueue<Object> queue;
+    private final Thread writer;
+    private final byte[] lineSeparator;
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * Construtor com os valores padrão e sem sincronização com o disco
+     *
+     * @param file O arquivo, caso não exista será criado
+     * @param charset O nome do charset no qual os textos serão escritos
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public FileAppender(File file, String charset) throws IOException
+    {
+        this(file, charset, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL, DEFAULT_QUEUE_CAPACITY, FsyncPolicyEnum.NONE);
+    }
+
+    /**
+     * Construtor
+     *
+     * @param file O arquivo, caso não exista será criado
+     * @param charset O nome do charset no qual os textos serão escritos
+     * @param bufferSize O tamanho do buffer direto, gravado quando enche
+     * @param flushIntervalMillis O tempo máximo, em milissegundos, que um registro espera no buffer para ser gravado
+     * @param queueCapacity A quantidade máxima de registros na fila
+     * @param fsyncPolicy A {@link FsyncPolicyEnum} de sincronização com o disco
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public FileAppender(File file, String charset, int bufferSize, long flushIntervalMillis, int queueCapacity, FsyncPolicyEnum fsyncPolicy) throws IOException
+    {
+        if (bufferSize < 1 || flushIntervalMillis < 1 || queueCapacity < 1)
+        {
+            throw new IllegalArgumentException("O tamanho do buffer, o intervalo e a capacidade da fila devem ser maiores que zero.");
+        }
+
+        this.charset = Charset.forName(charset);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.fsyncPolicy = fsyncPolicy;
+        this.queue = new ArrayBlockingQueue<Object>(queueCapacity);
+        this.lineSeparator = System.lineSeparator().getBytes(this.charset);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        this.writer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                writeLoop();
+            }
+        }, "FileAppender-" + file.getName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Método que coloca um texto na fila de gravação
+     *
+     * @param content O texto
+     *
+     * @throws IOException Caso o arquivo esteja fechado ou uma gravação anterior tenha falhado
+     */
+    public void append(String content) throws IOException
+    {
+        append(content.getBytes(charset));
+    }
+
+    /**
+     * Método que coloca um texto seguido da quebra de linha do sistema na fila de gravação
+     *
+     * @param content O texto
+     *
+     * @throws IOException Caso o arquivo esteja fechado ou uma gravação anterior tenha falhado
+     */
+    public void appendLine(String content) throws IOException
+    {
+        byte[] bytes = content.getBytes(charset);
+        byte[] line = new byte[bytes.length + lineSeparator.length];
+
+        System.arraycopy(bytes, 0, line, 0, bytes.length);
+        System.arraycopy(lineSeparator, 0, line, bytes.length, lineSeparator.length);
+
+        append(line);
+    }
+
+    /**
+     * Método que coloca bytes na fila de gravação. O array não deve ser alterado depois da chamada
+     *
+     * @param content Os bytes
+     *
+     * @throws IOException Caso o arquivo esteja fechado ou uma gravação anterior tenha falhado
+     */
+    public void append(byte[] content) throws IOException
+    {
+        checkOpen();
+        put(content);
+    }
+
+    /**
+     * Método que espera todos os registros colocados na fila até o momento serem gravados
+     *
+     * @throws IOException Caso o arquivo esteja fechado ou a gravação falhe
+     */
+    public void flush() throws IOException
+    {
+        checkOpen();
+
+        CountDownLatch latch = new CountDownLatch(1);
+        put(latch);
+
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("A espera pela gravação foi interrompida.");
+        }
+
+        checkFailure();
+    }
+
+    /**
+     * Método que grava os registros restantes e fecha o arquivo
+     *
+     * @throws IOException Caso a gravação falhe
+     */
+    @Override
+    public void close() throws IOException
+    {
+        closeLock.writeLock().lock();
+
+        try
+        {
+            if (closed)
+            {
+                return;
+            }
+
+            closed = true;
+        }
+        finally
+        {
+            closeLock.writeLock().unlock();
+        }
+
+        try
+        {
+            queue.put(CLOSE);
+            writer.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            writer.interrupt();
+        }
+        finally
+        {
+            channel.close();
+        }
+
+        checkFailure();
+    }
+
+    /**
+     * @return A quantidade de registros esperando na fila
+     */
+    public int getQueueDepth()
+    {
+        return (queue.size());
+    }
+
+    /**
+     * @return A quantidade de registros gravados
+     */
+    public long getRecords()
+    {
+        return (records.get());
+    }
+
+    /**
+     * @return A quantidade de bytes gravados
+     */
+    public long getWrittenBytes()
+    {
+        return (writtenBytes.get());
+    }
+
+    /**
+     * @return A quantidade de gravações de lotes
+     */
+    public long getFlushes()
+    {
+        return (flushes.get());
+    }
+
+    /**
+     * @return O tempo médio de gravação de um lote, incluindo a sincronização com o disco, em nanossegundos
+     */
+    public long getAverageFlushNanos()
+    {
+        long count = flushes.get();
+
+        return (count == 0 ? 0 : totalFlushNanos.get() / count);
+    }
+
+    /**
+     * @return O maior tempo de gravação de um lote, incluindo a sincronização com o disco, em nanossegundos
+     */
+    public long getMaxFlushNanos()
+    {
+        return (maxFlushNanos.get());
+    }
+
+    /**
+     * Método executado pela thread de gravação, que junta os registros da fila no buffer até ele encher, o intervalo terminar ou o arquivo
+     * ser fechado
+     */
+    private void writeLoop()
+    {
+        List<Object> batch = new ArrayList<Object>();
+        long deadline = 0;
+        boolean running = true;
+
+        try
+        {
+            while (running)
+            {
+                Object first = buffer.position() == 0 ? queue.take() : queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+                if (first != null)
+                {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                }
+
+                for (Object item : batch)
+                {
+                    if (item instanceof byte[])
+                    {
+                        if (buffer.position() == 0)
+                        {
+                            deadline = System.nanoTime() + flushIntervalNanos;
+                        }
+
+                        write((byte[]) item);
+                    }
+                    else if (item instanceof CountDownLatch)
+                    {
+                        flushBuffer();
+                        ((CountDownLatch) item).countDown();
+                    }
+                    else if (item == CLOSE)
+                    {
+                        running = false;
+                    }
+                }
+
+                batch.clear();
+
+                if (!running || (buffer.position() > 0 && System.nanoTime() >= deadline))
+                {
+                    flushBuffer();
+                }
+            }
+
+            if (fsyncPolicy != FsyncPolicyEnum.NONE)
+            {
+                channel.force(false);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            failure = new InterruptedIOException("A thread de gravação foi interrompida.");
+        }
+        catch (IOException e)
+        {
+            failure = e;
+        }
+        finally
+        {
+            // Libera quem está esperando um flush caso a gravação tenha parado
+            for (Object item : batch)
+            {
+                release(item);
+            }
+
+            for (Object item = queue.poll(); item != null; item = queue.poll())
+            {
+                release(item);
+            }
+        }
+    }
+
+    /**
+     * Método que copia um registro para o buffer, gravando o buffer antes caso o registro não caiba
+     *
+     * @param content O registro
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private void write(byte[] content) throws IOException
+    {
+        if (content.length > buffer.remaining())
+        {
+            flushBuffer();
+        }
+
+        if (content.length > buffer.capacity())
+        {
+            writeFully(ByteBuffer.wrap(content));
+            afterWrite();
+        }
+        else
+        {
+            buffer.put(content);
+        }
+
+        records.incrementAndGet();
+    }
+
+    /**
+     * Método que grava o conteúdo do buffer no arquivo e registra o tempo gasto
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private void flushBuffer() throws IOException
+    {
+        if (buffer.position() == 0)
+        {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+        afterWrite();
+
+        long elapsed = System.nanoTime() - start;
+        long max;
+
+        flushes.incrementAndGet();
+        totalFlushNanos.addAndGet(elapsed);
+
+        while (elapsed > (max = maxFlushNanos.get()) && !maxFlushNanos.compareAndSet(max, elapsed))
+        {
+            // Outra leitura do máximo, o valor foi alterado
+        }
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException
+    {
+        while (source.hasRemaining())
+        {
+            writtenBytes.addAndGet(channel.write(source));
+        }
+    }
+
+    private void afterWrite() throws IOException
+    {
+        if (fsyncPolicy == FsyncPolicyEnum.ON_FLUSH)
+        {
+            channel.force(false);
+        }
+    }
+
+    private void release(Object item)
+    {
+        if (item instanceof CountDownLatch)
+        {
+            ((CountDownLatch) item).countDown();
+        }
+    }
+
+    private void put(Object item) throws IOException
+    {
+        // O close() só marca o arquivo como fechado com o lock de escrita, assim nenhum registro entra na fila depois do CLOSE
+        closeLock.readLock().lock();
+
+        try
+        {
+            checkOpen();
+            queue.put(item);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("A espera por espaço na fila foi interrompida.");
+        }
+        finally
+        {
+            closeLock.readLock().unlock();
+        }
+
+        // A gravação pode ter parado por erro enquanto se esperava espaço na fila
+        if (failure != null)
+        {
+            queue.remove(item);
+            release(item);
+            checkFailure();
+        }
+    }
+
+    private void checkOpen() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("O FileAppender está fechado.");
+        }
+
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException
+    {
+        if (failure != null)
+        {
+            throw new IOException("Erro na gravação do arquivo.", failure);
+        }
+    }
+}
@@ -5,12 +5,27 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import jutil.abstracts.AbstractUtils;
+import jutil.data.dtos.LineMatchDTO;
 
 /**
  * Classe utilitaria para trabalhar com leitura de arquivos
@@ -22,6 +37,31 @@ import jutil.abstracts.AbstractUtils;
  */
 public final class FileReaderUtils extends AbstractUtils
 {
+    /**
+     * Tamanho padrão do buffer de leitura das linhas, em caracteres
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * Tamanho padrão, em bytes, de cada parte do arquivo avaliada na busca paralela
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    
+    /**
+     * Interface chamada para cada linha lida de um arquivo
+     */
+    public interface LineHandler
+    {
+        /**
+         * @param line A linha lida, sem o terminador
+         * @param lineNumber O número da linha, começando em 1
+         * 
+         * @return Se False, a leitura do arquivo é interrompida
+         * @throws Exception Caso ocorra algum erro uma exceção será lançada
+         */
+        boolean handle(String line, long lineNumber) throws Exception;
+    }
+    
     /**
      * Construtor privado
      */
@@ -119,34 +159,427 @@ public final class FileReaderUtils extends AbstractUtils
      * @return Um {@link LinkedList} contendo em cada posição uma linha do arquivo
      * @throws Exception Caso algum erro ocorra uma exceção será lançada
      */
-    public static LinkedList<String> getContentFile(File file, String pattern, String charset, boolean stopCaseFind) throws Exception
+    public static LinkedList<String> getContentFile(File file, String pattern, String charset, final boolean stopCaseFind) throws Exception
     {
-        BufferedReader buffer = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charset.forName(charset)));
-        LinkedList<String> retorno = new LinkedList<String>();
+        final LinkedList<String> retorno = new LinkedList<String>();
+        
+        findLines(file, pattern, charset, new LineHandler()
+        {
+            @Override
+            public boolean handle(String line, long lineNumber)
+            {
+                retorno.add(line);
+                return (!stopCaseFind);
+            }
+        });
         
-        Pattern pat = Pattern.compile(StringUtils.ifNullOrEmptyTrimGet(pattern, ""));
+        return (retorno);
+    }
 
-        while (retorno.add(buffer.readLine()))
+    /**
+     * Método que lê um arquivo linha a linha, entregando cada linha ao {@link LineHandler} sem acumulá-las em memória
+     * 
+     * @param file O arquivo que se deseja ler
+     * @param charset O nome do charset no qual o arquivo está escrito
+     * @param handler O {@link LineHandler} chamado para cada linha
+     * 
+     * @return A quantidade de linhas lidas
+     * @throws Exception Caso algum erro ocorra uma exceção será lançada
+     */
+    public static long readLines(File file, String charset, LineHandler handler) throws Exception
+    {
+        return (readLines(file, charset, DEFAULT_BUFFER_SIZE, handler));
+    }
+    
+    /**
+     * Método que lê um arquivo linha a linha, entregando cada linha ao {@link LineHandler} sem acumulá-las em memória
+     * 
+     * @param file O arquivo que se deseja ler
+     * @param charset O nome do charset no qual o arquivo está escrito
+     * @param bufferSize O tamanho do buffer de leitura, em caracteres
+     * @param handler O {@link LineHandler} chamado para cada linha
+     * 
+     * @return A quantidade de linhas lidas
+     * @throws Exception Caso algum erro ocorra uma exceção será lançada
+     */
+    public static long readLines(File file, String charset, int bufferSize, LineHandler handler) throws Exception
+    {
+        long lineNumber = 0;
+        String line;
+        
+        try (BufferedReader buffer = fileToBufferedReader(file, charset, bufferSize))
         {
-            if (retorno.getLast() == null)
+            while ((line = buffer.readLine()) != null)
             {
-                retorno.removeLast();
-                break;
+                if (!handler.handle(line, ++lineNumber))
+                {
+                    break;
+                }
             }
-            else if (!pat.matcher(retorno.getLast()).find())
+        }
+        
+        return (lineNumber);
+    }
+    
+    /**
+     * Método que lê um arquivo linha a linha, entregando ao {@link LineHandler} somente as linhas que passam na expressão regular
+     * 
+     * @param file O arquivo que se deseja ler
+     * @param pattern A expressão regular avaliada em cada linha
+     * @param charset O nome do charset no qual o arquivo está escrito
+     * @param handler O {@link LineHandler} chamado para cada linha encontrada, retornando False a leitura é interrompida
+     * 
+     * @return A quantidade de linhas lidas
+     * @throws Exception Caso algum erro ocorra uma exceção será lançada
+     */
+    public static long findLines(File file, String pattern, String charset, final LineHandler handler) throws Exception
+    {
+        final Matcher matcher = Pattern.compile(StringUtils.ifNullOrEmptyTrimGet(pattern, "")).matcher("");
+        
+        return (readLines(file, charset, new LineHandler()
+        {
+            @Override
+            public boolean handle(String line, long lineNumber) throws Exception
             {
-                retorno.removeLast();
+                return (!matcher.reset(line).find() || handler.handle(line, lineNumber));
             }
-            else if (stopCaseFind)
+        }));
+    }
+    
+    /**
+     * Método que retorna um {@link Stream} preguiçoso com as linhas de um arquivo
+     * <p>
+     * O {@link Stream} deve ser fechado para liberar o arquivo.
+     * 
+     * @param file O arquivo que se deseja ler
+     * @param charset O nome do charset no qual o arquivo está escrito
+     * @param bufferSize O tamanho do buffer de leitura, em caracteres
+     * 
+     * @return O {@link Stream} com as linhas do arquivo
+     * @throws Exception Caso algum erro ocorra uma exceção será lançada
+     */
+    public static Stream<String> lines(File file, String charset, int bufferSize) throws Exception
+    {
+        final BufferedReader buffer = fileToBufferedReader(file, charset, bufferSize);
+        
+        return (buffer.lines().onClose(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    buffer.close();
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }));
+    }
+    
+    /**
+     * Método que busca em paralelo as linhas de um arquivo que passam na expressão regular, usando o {@link ForkJoinPool#commonPool()}
+     * 
+     * @param file O arquivo que se deseja ler
+     * @param pattern A expressão regular avaliada em cada linha
+     * @param charset O nome do charset no qual o arquivo está escrito
+     * 
+     * @return As linhas encontradas, na ordem do arquivo
+     * @throws Exception Caso algum erro ocorra uma exceção será lançada
+     */
+    public static List<LineMatchDTO> grep(File file, String pattern, String charset) throws Exception
+    {
+        return (grep(file, pattern, charset, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool()));
+    }
+    
+    /**
+     * Método que busca em paralelo as linhas de um arquivo que passam na expressão regular
+     * <p>
+     * O arquivo é dividido em partes de aproximadamente chunkSize bytes, alinhadas no fim das linhas. Cada parte é mapeada em memória,
+     * decodificada e avaliada em uma tarefa do {@link ForkJoinPool}, e os números das linhas são corrigidos ao juntar as partes.
+     * As linhas são separadas somente por '\n' (um '\r' no final da linha é removido). Para charsets onde o '\n' não é um único byte,
+     * como o UTF-16, a busca é feita linha a linha em uma única thread.
+     * 
+     * @param file O arquivo que se deseja ler
+     * @param pattern A expressão regular avaliada em cada linha
+     * @param charset O nome do charset no qual o arquivo está escrito
+     * @param chunkSize O tamanho aproximado, em bytes, de cada parte
+     * @param pool O {@link ForkJoinPool} onde as partes serão avaliadas
+     * 
+     * @return As linhas encontradas, na ordem do arquivo
+     * @throws Exception Caso algum erro ocorra uma exceção será lançada
+     */
+    public static List<LineMatchDTO> grep(File file, String pattern, String charset, int chunkSize, ForkJoinPool pool) throws Exception
+    {
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("O tamanho das partes deve ser maior que zero.");
+        }
+        
+        final Pattern regex = Pattern.compile(StringUtils.ifNullOrEmptyTrimGet(pattern, ""));
+        final Charset cs = Charset.forName(charset);
+        
+        if (!Arrays.equals("\n".getBytes(cs), new byte[] { '\n' }))
+        {
+            final ArrayList<LineMatchDTO> retorno = new ArrayList<LineMatchDTO>();
+            final Matcher matcher = regex.matcher("");
+            
+            readLines(file, charset, new LineHandler()
+            {
+                @Override
+                public boolean handle(String line, long lineNumber)
+                {
+                    if (matcher.reset(line).find())
+                    {
+                        retorno.add(new LineMatchDTO(lineNumber, line));
+                    }
+                    
+                    return (true);
+                }
+            });
+            
+            return (retorno);
+        }
+        
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long[] bounds = findChunkBounds(channel, chunkSize);
+            
+            return (pool.invoke(new GrepTask(channel, bounds, 0, bounds.length - 1, regex, cs)).matches);
+        }
+    }
+    
+    /**
+     * Método que divide o arquivo em partes de aproximadamente chunkSize bytes, avançando cada divisão até o próximo '\n'
+     * 
+     * @param channel O canal do arquivo
+     * @param chunkSize O tamanho aproximado de cada parte
+     * 
+     * @return As posições de início das partes, seguidas do tamanho do arquivo
+     * @throws Exception Caso algum erro ocorra uma exceção será lançada
+     */
+    private static long[] findChunkBounds(FileChannel channel, int chunkSize) throws Exception
+    {
+        long size = channel.size();
+        ArrayList<Long> bounds = new ArrayList<Long>();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = 0;
+        
+        bounds.add(Long.valueOf(0));
+        
+        while (size - position > chunkSize)
+        {
+            long next = position + chunkSize;
+            long found = -1;
+            
+            while (found < 0 && next < size)
+            {
+                buffer.clear();
+                int read = channel.read(buffer, next);
+                
+                for (int i = 0; i < read && found < 0; i++)
+                {
+                    if (buffer.get(i) == '\n')
+                    {
+                        found = next + i + 1;
+                    }
+                }
+                
+                next += Math.max(read, 0);
+            }
+            
+            if (found < 0 || found >= size)
             {
                 break;
             }
+            
+            bounds.add(Long.valueOf(found));
+            position = found;
         }
-
-        buffer.close();
+        
+        bounds.add(Long.valueOf(size));
+        
+        long[] retorno = new long[bounds.size()];
+        
+        for (int i = 0; i < retorno.length; i++)
+        {
+            retorno[i] = bounds.get(i).longValue();
+        }
+        
         return (retorno);
     }
-
+    
+    /**
+     * Resultado da busca em um conjunto de partes do arquivo, com os números das linhas relativos ao início do conjunto
+     */
+    private static final class GrepResult
+    {
+        private final long lines;
+        private final List<LineMatchDTO> matches;
+        
+        private GrepResult(long lines, List<LineMatchDTO> matches)
+        {
+            this.lines = lines;
+            this.matches = matches;
+        }
+    }
+    
+    /**
+     * Tarefa que avalia as partes [first, last) do arquivo, dividindo-se ao meio até chegar em uma única parte
+     */
+    private static final class GrepTask extends RecursiveTask<GrepResult>
+    {
+        private static final long serialVersionUID = 1L;
+        private static final long MAP_THRESHOLD = 1024 * 1024;
+        
+        private final transient FileChannel channel;
+        private final long[] bounds;
+        private final int first;
+        private final int last;
+        private final Pattern regex;
+        private final Charset charset;
+        
+        private GrepTask(FileChannel channel, long[] bounds, int first, int last, Pattern regex, Charset charset)
+        {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+            this.regex = regex;
+            this.charset = charset;
+        }
+        
+        @Override
+        protected GrepResult compute()
+        {
+            if (last - first > 1)
+            {
+                int middle = (first + last) >>> 1;
+                GrepTask right = new GrepTask(channel, bounds, middle, last, regex, charset);
+                
+                right.fork();
+                
+                GrepResult leftResult = new GrepTask(channel, bounds, first, middle, regex, charset).compute();
+                GrepResult rightResult = right.join();
+                
+                ArrayList<LineMatchDTO> matches = new ArrayList<LineMatchDTO>(leftResult.matches.size() + rightResult.matches.size());
+                matches.addAll(leftResult.matches);
+                
+                for (LineMatchDTO match : rightResult.matches)
+                {
+                    match.setLineNumber(match.getLineNumber() + leftResult.lines);
+                    matches.add(match);
+                }
+                
+                return (new GrepResult(leftResult.lines + rightResult.lines, matches));
+            }
+            
+            try
+            {
+                return (scan());
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        /**
+         * Método que mapeia, decodifica e avalia uma única parte do arquivo
+         * 
+         * @return O resultado da parte
+         * @throws IOException Caso algum erro ocorra uma exceção será lançada
+         */
+        private GrepResult scan() throws IOException
+        {
+            ArrayList<LineMatchDTO> matches = new ArrayList<LineMatchDTO>();
+            long size = bounds[last] - bounds[first];
+            
+            if (size == 0)
+            {
+                return (new GrepResult(0, matches));
+            }
+            
+            // Um decodificador por parte, já que um CharsetDecoder guarda estado e não pode ser compartilhado
+            CharBuffer chars = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE).decode(read(bounds[first], size));
+            Matcher matcher = regex.matcher("");
+            int length = chars.length();
+            int start = 0;
+            long lines = 0;
+            
+            while (start < length)
+            {
+                int end = start;
+                
+                while (end < length && chars.get(end) != '\n')
+                {
+                    end++;
+                }
+                
+                int lineEnd = (end > start && chars.get(end - 1) == '\r') ? end - 1 : end;
+                CharSequence line = chars.subSequence(start, lineEnd);
+                lines++;
+                
+                if (matcher.reset(line).find())
+                {
+                    matches.add(new LineMatchDTO(lines, line.toString()));
+                }
+                
+                start = end + 1;
+            }
+            
+            return (new GrepResult(lines, matches));
+        }
+        
+        /**
+         * Método que lê uma parte do arquivo, mapeando em memória somente as partes grandes, já que cada mapeamento ocupa uma região do processo
+         * 
+         * @param position A posição inicial da parte
+         * @param size O tamanho da parte
+         * 
+         * @return O {@link ByteBuffer} com o conteúdo da parte
+         * @throws IOException Caso algum erro ocorra uma exceção será lançada
+         */
+        private ByteBuffer read(long position, long size) throws IOException
+        {
+            if (size >= MAP_THRESHOLD)
+            {
+                return (channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+            }
+            
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer, position + buffer.position()) < 0)
+                {
+                    break;
+                }
+            }
+            
+            buffer.flip();
+            
+            return (buffer);
+        }
+    }
+    
+    /**
+     * Método que cria o {@link BufferedReader} para um arquivo com o tamanho de buffer informado
+     * 
+     * @param file O arquivo que se deseja transformar
+     * @param charset O charset no qual o arquivo foi escrito
+     * @param bufferSize O tamanho do buffer de leitura, em caracteres
+     * 
+     * @return O {@link BufferedReader} criado
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static BufferedReader fileToBufferedReader(File file, String charset, int bufferSize) throws Exception
+    {
+        return (new BufferedReader(new InputStreamReader(new FileInputStream(file), Charset.forName(charset)), bufferSize));
+    }
+    
     /**
      * Método que testa se o arquivo está vazio. Esse Método considera os espaços como Conteúdo do arquivo.
      * 
@@ -6,26 +6,65 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FilenameFilter;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.sql.Date;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.swing.filechooser.FileSystemView;
 
 import jutil.abstracts.AbstractUtils;
+import jutil.data.dtos.CopyProgressDTO;
 import jutil.data.enums.FileEnum;
 import jutil.data.enums.RegexEnum;
 
@@ -36,6 +75,16 @@ import jutil.data.enums.RegexEnum;
  */
 public final class FileUtils extends AbstractUtils
 {
+    /**
+     * Tamanho do buffer usado nas cópias por leitura
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Tamanho de cada janela mapeada em memória na comparação de arquivos
+     */
+    public static final long COMPARE_WINDOW_SIZE = 64L * 1024 * 1024;
+
     /**
      * Construtor Privado
      */
@@ -136,42 +185,23 @@ public final class FileUtils extends AbstractUtils
      * @return Um {@link List} com todos os arquivos encontrados
      * @throws Exception Caso ocorra algum erro uma exceção será lançada
      */
-    public static List<File> getFilesInFolder(String caminho, boolean addArquivosEmSubPastas, boolean addSubPastasNaLista) throws Exception
+    public static List<File> getFilesInFolder(String caminho, boolean addArquivosEmSubPastas, final boolean addSubPastasNaLista) throws Exception
     {
-        List<File> fileList = new ArrayList<File>();
-        File path = new File(caminho);
+        final List<File> fileList = new ArrayList<File>();
 
-        if (path.exists())
+        walkFiles(caminho, addArquivosEmSubPastas, new FileWalkHandler()
         {
-            if (path.isDirectory())
+            @Override
+            public FileVisitResult handle(Path path, BasicFileAttributes attributes)
             {
-                String[] children = path.list();
-
-                if (children != null)
+                if (!attributes.isDirectory() || addSubPastasNaLista)
                 {
-                    for (int i = 0; i < children.length; i++)
-                    {
-                        File childFile = new File(caminho, children[i]);
-                        if (childFile.isDirectory())
-                        {
-                            if (addSubPastasNaLista)
-                            {
-                                fileList.add(childFile);
-                            }
-
-                            if (addArquivosEmSubPastas)
-                            {
-                                fileList.addAll(getFilesInFolder(new File(caminho, children[i]).getAbsolutePath(), addArquivosEmSubPastas, addSubPastasNaLista));
-                            }
-                        }
-                        else
-                        {
-                            fileList.add(childFile);
-                        }
-                    }
+                    fileList.add(path.toFile());
                 }
+
+                return (FileVisitResult.CONTINUE);
             }
-        }
+        });
 
         return (fileList);
     }
@@ -188,63 +218,469 @@ public final class FileUtils extends AbstractUtils
      * @return Um {@link List} com todos os arquivos encontrados
      * @throws Exception Caso ocorra algum erro uma exceção será lançada
      */
-    public static List<File> getFilesInFolderByExtension(String caminho, String regex, final boolean fileOrDir, boolean addArquivosEmSubPastas, boolean addSubPastasNaLista) throws Exception
+    public static List<File> getFilesInFolderByExtension(String caminho, String regex, final boolean fileOrDir, boolean addArquivosEmSubPastas, final boolean addSubPastasNaLista) throws Exception
     {
-        List<File> fileList = new ArrayList<File>();
-        File path = new File(caminho);
+        final List<File> fileList = new ArrayList<File>();
         final Pattern pattern = Pattern.compile(regex);
 
-        if (path.exists())
+        walkFiles(caminho, addArquivosEmSubPastas, new FileWalkHandler()
         {
-            if (path.isDirectory())
+            @Override
+            public FileVisitResult handle(Path path, BasicFileAttributes attributes)
             {
-                String[] children = path.list(new FilenameFilter()
+                if (attributes.isDirectory())
                 {
-                    @Override
-                    public boolean accept(File dir, String name)
+                    // As pastas são testadas pelo endereço da pasta onde estão, como no filtro original
+                    if (!fileOrDir && !pattern.matcher(path.getParent().toAbsolutePath().toString()).find())
                     {
-                        if(fileOrDir && new File(dir, name).isFile())
-                        {
-                            return (pattern.matcher(name).find());
-                        }
-                        else if(!fileOrDir && new File(dir, name).isDirectory()) 
-                        {
-                            return (pattern.matcher(dir.getAbsolutePath()).find());
-                        }
-                        else
-                        {
-                            return(Boolean.TRUE);
-                        }
+                        return (FileVisitResult.SKIP_SUBTREE);
                     }
-                });
 
-                if (children != null)
+                    if (addSubPastasNaLista)
+                    {
+                        fileList.add(path.toFile());
+                    }
+                }
+                else if (!fileOrDir || pattern.matcher(path.getFileName().toString()).find())
+                {
+                    fileList.add(path.toFile());
+                }
+
+                return (FileVisitResult.CONTINUE);
+            }
+        });
+
+        return (fileList);
+    }
+
+    /**
+     * Método que percorre um diretório com o {@link Files#walkFileTree(Path, java.util.Set, int, java.nio.file.FileVisitor)}, chamando o
+     * {@link FileWalkHandler} para cada arquivo e pasta encontrados, com os atributos lidos uma única vez
+     * <p>
+     * Os links simbólicos são seguidos e as pastas que não puderem ser lidas são ignoradas. A pasta inicial não é entregue ao handler.
+     * 
+     * @param caminho O endereço da pasta
+     * @param recursive Se True, as subpastas também serão percorridas
+     * @param handler O {@link FileWalkHandler} chamado para cada arquivo e pasta
+     * 
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static void walkFiles(String caminho, boolean recursive, final FileWalkHandler handler) throws Exception
+    {
+        walkFiles(caminho, recursive, false, handler);
+    }
+
+    /**
+     * Método que percorre um diretório com o {@link Files#walkFileTree(Path, java.util.Set, int, java.nio.file.FileVisitor)}, chamando o
+     * {@link FileWalkHandler} para cada arquivo e pasta encontrados, com os atributos lidos uma única vez
+     * <p>
+     * Os links simbólicos são seguidos e a pasta inicial não é entregue ao handler. No modo estrito, um arquivo ou pasta que não puder ser
+     * lido encerra a leitura com o erro, o que deve ser usado por quem não pode deixar parte da árvore para trás sem avisar, como cópias e
+     * backups. Os arquivos apagados durante a leitura e os laços de links simbólicos são ignorados nos dois modos.
+     * 
+     * @param caminho O endereço da pasta
+     * @param recursive Se True, as subpastas também serão percorridas
+     * @param strict Se True, os erros de leitura são lançados, caso contrário os arquivos e pastas que não puderem ser lidos são ignorados
+     * @param handler O {@link FileWalkHandler} chamado para cada arquivo e pasta
+     * 
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static void walkFiles(String caminho, boolean recursive, final boolean strict, final FileWalkHandler handler) throws Exception
+    {
+        final Path root = Paths.get(caminho);
+
+        if (!Files.isDirectory(root))
+        {
+            return;
+        }
+
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), recursive ? Integer.MAX_VALUE : 1, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                return (dir.equals(root) ? FileVisitResult.CONTINUE : handler.handle(dir, attrs));
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                FileVisitResult result = handler.handle(file, attrs);
+
+                return (result == FileVisitResult.TERMINATE ? result : FileVisitResult.CONTINUE);
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException
+            {
+                return (checkWalkError(exc, strict));
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException
+            {
+                return (exc == null ? FileVisitResult.CONTINUE : checkWalkError(exc, strict));
+            }
+        });
+    }
+
+    /**
+     * Método que decide se um erro encontrado ao percorrer um diretório encerra a leitura
+     * 
+     * @param exc O erro encontrado
+     * @param strict Se True, o erro é lançado
+     * 
+     * @return {@link FileVisitResult#CONTINUE} caso o erro deva ser ignorado
+     * @throws IOException Caso o erro não possa ser ignorado, ele será lançado
+     */
+    private static FileVisitResult checkWalkError(IOException exc, boolean strict) throws IOException
+    {
+        if (strict && !(exc instanceof NoSuchFileException) && !(exc instanceof FileSystemLoopException))
+        {
+            throw exc;
+        }
+
+        return (FileVisitResult.CONTINUE);
+    }
+
+    /**
+     * Método que percorre um diretório recursivamente em paralelo, listando cada pasta em uma tarefa do {@link ForkJoinPool}
+     * <p>
+     * Indicado para árvores largas ou em sistemas de arquivos de rede, onde a leitura das pastas é lenta. O handler é chamado por várias
+     * threads ao mesmo tempo e deve ser thread-safe, e a ordem em que os arquivos são entregues não é garantida. Os links simbólicos são
+     * seguidos, mas cada pasta é percorrida somente uma vez.
+     * 
+     * @param caminho O endereço da pasta
+     * @param handler O {@link FileWalkHandler} chamado para cada arquivo e pasta
+     * @param pool O {@link ForkJoinPool} onde as pastas serão lidas
+     * 
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static void walkFilesParallel(String caminho, FileWalkHandler handler, ForkJoinPool pool) throws Exception
+    {
+        Path root = Paths.get(caminho);
+
+        if (!Files.isDirectory(root))
+        {
+            return;
+        }
+
+        Set<Object> visited = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+        Object rootKey = Files.readAttributes(root, BasicFileAttributes.class).fileKey();
+
+        if (rootKey != null)
+        {
+            visited.add(rootKey);
+        }
+
+        try
+        {
+            pool.invoke(new WalkTask(root, handler, new AtomicBoolean(), visited));
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Método que retorna um {@link Stream} preguiçoso com os arquivos de um diretório, lendo as pastas conforme o {@link Stream} é consumido
+     * <p>
+     * O {@link Stream} deve ser fechado para liberar as pastas abertas. Os links simbólicos são seguidos, cada pasta é percorrida somente
+     * uma vez e as pastas que não puderem ser lidas são ignoradas.
+     * 
+     * @param caminho O endereço da pasta
+     * @param addArquivosEmSubPastas Se True, as subpastas também serão percorridas
+     * @param addSubPastasNaLista Se True, as subpastas encontradas também serão entregues
+     * 
+     * @return O {@link Stream} com os arquivos encontrados
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static Stream<Path> streamFiles(String caminho, boolean addArquivosEmSubPastas, boolean addSubPastasNaLista) throws Exception
+    {
+        final WalkIterator iterator = new WalkIterator(Paths.get(caminho), addArquivosEmSubPastas ? Integer.MAX_VALUE : 1, addSubPastasNaLista);
+
+        return (StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                iterator.close();
+            }
+        }));
+    }
+
+    /**
+     * Método que lê os atributos de um arquivo seguindo os links simbólicos, ou os do próprio link caso o destino não exista
+     * 
+     * @param path O arquivo
+     * 
+     * @return Os atributos do arquivo, ou null caso não possam ser lidos
+     */
+    private static BasicFileAttributes readAttributes(Path path)
+    {
+        try
+        {
+            return (Files.readAttributes(path, BasicFileAttributes.class));
+        }
+        catch (IOException e)
+        {
+            try
+            {
+                return (Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+            }
+            catch (IOException ex)
+            {
+                return (null);
+            }
+        }
+    }
+
+    /**
+     * Interface chamada para cada arquivo ou pasta encontrado ao percorrer um diretório
+     */
+    public interface FileWalkHandler
+    {
+        /**
+         * @param path O arquivo ou pasta encontrado
+         * @param attributes Os atributos do arquivo, lidos uma única vez
+         * 
+         * @return {@link FileVisitResult#CONTINUE} para continuar, {@link FileVisitResult#SKIP_SUBTREE} para não entrar na pasta ou
+         *         {@link FileVisitResult#TERMINATE} para encerrar a leitura
+         * @throws IOException Caso ocorra algum erro uma exceção será lançada
+         */
+        FileVisitResult handle(Path path, BasicFileAttributes attributes) throws IOException;
+    }
+
+    /**
+     * Iterador que percorre um diretório em profundidade, mantendo aberta somente uma pasta por nível
+     */
+    private static final class WalkIterator implements Iterator<Path>, AutoCloseable
+    {
+        private final ArrayDeque<DirectoryStream<Path>> streams = new ArrayDeque<DirectoryStream<Path>>();
+        private final ArrayDeque<Iterator<Path>> iterators = new ArrayDeque<Iterator<Path>>();
+        private final Set<Object> visited = new HashSet<Object>();
+        private final int maxDepth;
+        private final boolean addDirs;
+        private Path next;
+
+        private WalkIterator(Path root, int maxDepth, boolean addDirs)
+        {
+            this.maxDepth = maxDepth;
+            this.addDirs = addDirs;
+
+            BasicFileAttributes attributes = readAttributes(root);
+
+            if (attributes != null && attributes.isDirectory())
+            {
+                open(root, attributes);
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (next == null && !iterators.isEmpty())
+            {
+                Iterator<Path> iterator = iterators.peek();
+                Path child = null;
+
+                try
+                {
+                    child = iterator.hasNext() ? iterator.next() : null;
+                }
+                catch (DirectoryIteratorException e)
                 {
-                    for (int i = 0; i < children.length; i++)
+                    // Erro no meio da leitura da pasta, o restante dela é ignorado
+                }
+
+                if (child == null)
+                {
+                    iterators.pop();
+                    closeQuietly(streams.pop());
+                    continue;
+                }
+
+                BasicFileAttributes attributes = readAttributes(child);
+
+                if (attributes == null)
+                {
+                    continue;
+                }
+
+                if (!attributes.isDirectory())
+                {
+                    next = child;
+                    continue;
+                }
+
+                if (addDirs)
+                {
+                    next = child;
+                }
+
+                if (iterators.size() < maxDepth)
+                {
+                    open(child, attributes);
+                }
+            }
+
+            return (next != null);
+        }
+
+        @Override
+        public Path next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+
+            Path retorno = next;
+            next = null;
+
+            return (retorno);
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close()
+        {
+            while (!streams.isEmpty())
+            {
+                closeQuietly(streams.pop());
+            }
+
+            iterators.clear();
+        }
+
+        /**
+         * Método que abre uma pasta ainda não percorrida e a coloca no topo da pilha
+         * 
+         * @param dir A pasta
+         * @param attributes Os atributos da pasta
+         */
+        private void open(Path dir, BasicFileAttributes attributes)
+        {
+            if (attributes.fileKey() != null && !visited.add(attributes.fileKey()))
+            {
+                return;
+            }
+
+            try
+            {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                streams.push(stream);
+                iterators.push(stream.iterator());
+            }
+            catch (IOException e)
+            {
+                // Pastas que não puderem ser lidas são ignoradas
+            }
+        }
+
+        private static void closeQuietly(DirectoryStream<Path> stream)
+        {
+            try
+            {
+                stream.close();
+            }
+            catch (IOException e)
+            {
+                // A pasta já foi lida, o erro ao fechar não altera o resultado
+            }
+        }
+    }
+
+    /**
+     * Tarefa que lista uma pasta e cria uma nova tarefa para cada subpasta
+     */
+    private static final class WalkTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path dir;
+        private final transient FileWalkHandler handler;
+        private final AtomicBoolean stop;
+        private final Set<Object> visited;
+
+        private WalkTask(Path dir, FileWalkHandler handler, AtomicBoolean stop, Set<Object> visited)
+        {
+            this.dir = dir;
+            this.handler = handler;
+            this.stop = stop;
+            this.visited = visited;
+        }
+
+        @Override
+        protected void compute()
+        {
+            List<WalkTask> tasks = new ArrayList<WalkTask>();
+            DirectoryStream<Path> stream;
+
+            try
+            {
+                stream = Files.newDirectoryStream(dir);
+            }
+            catch (IOException e)
+            {
+                // Pastas que não puderem ser lidas são ignoradas, como na leitura sequencial
+                return;
+            }
+
+            try (DirectoryStream<Path> children = stream)
+            {
+                for (Path child : children)
+                {
+                    if (stop.get())
                     {
-                        File childFile = new File(caminho, children[i]);
-                        if (childFile.isDirectory())
-                        {
-                            if (addSubPastasNaLista)
-                            {
-                                fileList.add(childFile);
-                            }
+                        return;
+                    }
 
-                            if (addArquivosEmSubPastas)
-                            {
-                                fileList.addAll(getFilesInFolderByExtension(new File(caminho, children[i]).getAbsolutePath(), regex, fileOrDir, addArquivosEmSubPastas, addSubPastasNaLista));
-                            }
-                        }
-                        else
-                        {
-                            fileList.add(childFile);
-                        }
+                    BasicFileAttributes attributes = readAttributes(child);
+
+                    if (attributes == null)
+                    {
+                        continue;
+                    }
+
+                    FileVisitResult result = handler.handle(child, attributes);
+
+                    if (result == FileVisitResult.TERMINATE)
+                    {
+                        stop.set(true);
+                        return;
+                    }
+
+                    if (attributes.isDirectory() && result == FileVisitResult.CONTINUE && (attributes.fileKey() == null || visited.add(attributes.fileKey())))
+                    {
+                        WalkTask task = new WalkTask(child, handler, stop, visited);
+                        task.fork();
+                        tasks.add(task);
                     }
                 }
             }
+            catch (DirectoryIteratorException e)
+            {
+                // Erro no meio da leitura da pasta, o restante dela é ignorado
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            finally
+            {
+                for (WalkTask task : tasks)
+                {
+                    task.join();
+                }
+            }
         }
-
-        return (fileList);
     }
 
     /**
@@ -323,33 +759,141 @@ public final class FileUtils extends AbstractUtils
         {
             is.close();
         }
-
-        return (bytes);
+
+        return (bytes);
+    }
+
+    /**
+     * Método que ler um arquivo usando o {@link DataInputStream}
+     * 
+     * @param file O arquivo que se deseja ler
+     * 
+     * @return Um array de byte do arquivo
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static byte[] getBytesFromFileByInputStream(String file) throws Exception
+    {
+        byte[] fileArray = new byte[(int) new File(file).length()];
+        DataInputStream inputStream = new DataInputStream(new FileInputStream(file));
+
+        try
+        {
+            inputStream.readFully(fileArray);
+        }
+        finally
+        {
+            inputStream.close();
+        }
+
+        return (fileArray);
+    }
+
+    /**
+     * Método que mapeia um arquivo inteiro em memória no modo somente leitura, sem copiar o conteúdo para o heap
+     * 
+     * @param file O arquivo que se deseja ler
+     * 
+     * @return Um {@link MappedByteBuffer} somente leitura do arquivo
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     * @see #getMappedWindows(String, int) Para arquivos maiores que {@link Integer#MAX_VALUE} bytes
+     */
+    public static MappedByteBuffer getMappedByteBuffer(String file) throws Exception
+    {
+        long length = new File(file).length();
+
+        if (length > Integer.MAX_VALUE)
+        {
+            throw new Exception("O Arquivo é muito Grande! O Máximo aceito é " + Integer.MAX_VALUE + " em bytes, use o mapeamento em janelas!");
+        }
+
+        return (getMappedByteBuffer(file, 0, length));
+    }
+
+    /**
+     * Método que mapeia um trecho de um arquivo em memória no modo somente leitura, sem copiar o conteúdo para o heap
+     * 
+     * @param file O arquivo que se deseja ler
+     * @param position A posição inicial do trecho
+     * @param size O tamanho do trecho, no máximo {@link Integer#MAX_VALUE}
+     * 
+     * @return Um {@link MappedByteBuffer} somente leitura do trecho
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static MappedByteBuffer getMappedByteBuffer(String file, long position, long size) throws Exception
+    {
+        // O mapeamento continua válido depois que o canal é fechado
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ))
+        {
+            return (channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+        }
     }
 
     /**
-     * Método que ler um arquivo usando o {@link DataInputStream}
+     * Método que mapeia um arquivo de qualquer tamanho em uma sequência de janelas somente leitura
+     * <p>
+     * Cada janela é mapeada somente quando solicitada pelo iterador, permitindo percorrer arquivos de vários GB sem cópias para o heap.
      * 
      * @param file O arquivo que se deseja ler
+     * @param windowSize O tamanho de cada janela em bytes, a última janela pode ser menor
      * 
-     * @return Um array de byte do arquivo
+     * @return Um {@link Iterable} com as janelas do arquivo, em ordem
      * @throws Exception Caso ocorra algum erro uma exceção será lançada
      */
-    public static byte[] getBytesFromFileByInputStream(String file) throws Exception
+    public static Iterable<MappedByteBuffer> getMappedWindows(final String file, final int windowSize) throws Exception
     {
-        byte[] fileArray = new byte[(int) new File(file).length()];
-        DataInputStream inputStream = new DataInputStream(new FileInputStream(file));
-
-        try
+        if (windowSize < 1)
         {
-            inputStream.readFully(fileArray);
+            throw new IllegalArgumentException("O tamanho da janela deve ser maior que zero.");
         }
-        finally
+
+        final long length = Files.size(Paths.get(file));
+
+        return (new Iterable<MappedByteBuffer>()
         {
-            inputStream.close();
-        }
+            @Override
+            public Iterator<MappedByteBuffer> iterator()
+            {
+                return (new Iterator<MappedByteBuffer>()
+                {
+                    private long position = 0;
 
-        return (fileArray);
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return (position < length);
+                    }
+
+                    @Override
+                    public MappedByteBuffer next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+
+                        long size = Math.min(windowSize, length - position);
+
+                        try
+                        {
+                            MappedByteBuffer window = getMappedByteBuffer(file, position, size);
+                            position += size;
+
+                            return (window);
+                        }
+                        catch (Exception e)
+                        {
+                            throw new IllegalStateException("Não foi possível mapear a janela " + position + " do arquivo " + file, e);
+                        }
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                });
+            }
+        });
     }
 
     /**
@@ -368,7 +912,7 @@ public final class FileUtils extends AbstractUtils
 
         in = new FileInputStream(srcFile);
         out = new FileOutputStream(destFile);
-        byte[] buf = new byte[1024];
+        byte[] buf = new byte[COPY_BUFFER_SIZE];
         int len;
 
         try
@@ -424,7 +968,7 @@ public final class FileUtils extends AbstractUtils
         {
             sourceChan = new FileInputStream(source).getChannel();
             targetChan = new FileOutputStream(target).getChannel();
-            sourceChan.transferTo(0, sourceChan.size(), targetChan);
+            transferFully(sourceChan, targetChan);
         }
         finally
         {
@@ -482,7 +1026,7 @@ public final class FileUtils extends AbstractUtils
             {
                 sourceChan = new FileInputStream(source).getChannel();
                 targetChan = new FileOutputStream(target).getChannel();
-                sourceChan.transferTo(0, sourceChan.size(), targetChan);
+                transferFully(sourceChan, targetChan);
             }
             finally
             {
@@ -506,6 +1050,229 @@ public final class FileUtils extends AbstractUtils
         }
     }
 
+    /**
+     * Método que copia todo o conteúdo de uma pasta para outra pasta em paralelo
+     * <p>
+     * A origem é percorrida uma única vez enquanto os arquivos são copiados por um número limitado de threads com o
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}. As datas de modificação dos arquivos e das pastas são
+     * preservadas, o que permite ignorar nas próximas cópias os arquivos que não foram alterados. Caso algum arquivo ou pasta da origem não
+     * possa ser lido, a cópia falha com o erro ao invés de deixá-lo para trás.
+     * 
+     * @param source A pasta de origem
+     * @param target A pasta de destino, caso ela não exista, a mesma será criada
+     * @param threads A quantidade de arquivos copiados ao mesmo tempo
+     * @param skipUnchanged Se True, os arquivos que já existem no destino com o mesmo tamanho e a mesma data de modificação não são copiados
+     * @param listener O {@link CopyListener} avisado a cada arquivo copiado ou ignorado, pode ser null
+     * 
+     * @return O {@link CopyProgressDTO} com o resultado final da cópia
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static CopyProgressDTO copyFolder(File source, File target, int threads, final boolean skipUnchanged, final CopyListener listener) throws Exception
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("A quantidade de threads deve ser maior que zero.");
+        }
+
+        // A raiz precisa ser absoluta e normalizada, já que os caminhos entregues pela varredura são relativizados a partir dela
+        final Path sourceRoot = source.toPath().toAbsolutePath().normalize();
+        final Path targetRoot = target.toPath();
+        final long start = System.currentTimeMillis();
+        final AtomicLong totalFiles = new AtomicLong();
+        final AtomicLong copiedFiles = new AtomicLong();
+        final AtomicLong skippedFiles = new AtomicLong();
+        final AtomicLong totalBytes = new AtomicLong();
+        final AtomicLong copiedBytes = new AtomicLong();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final LinkedList<Path[]> folders = new LinkedList<Path[]>();
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "FileUtils-copy-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return (thread);
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        Files.createDirectories(targetRoot);
+
+        try
+        {
+            walkFiles(sourceRoot.toString(), true, true, new FileWalkHandler()
+            {
+                @Override
+                public FileVisitResult handle(final Path path, final BasicFileAttributes attributes) throws IOException
+                {
+                    if (failure.get() != null)
+                    {
+                        return (FileVisitResult.TERMINATE);
+                    }
+
+                    final Path destination = targetRoot.resolve(sourceRoot.relativize(path).toString());
+
+                    if (attributes.isDirectory())
+                    {
+                        Files.createDirectories(destination);
+                        folders.addFirst(new Path[] { destination, path });
+                        return (FileVisitResult.CONTINUE);
+                    }
+
+                    totalFiles.incrementAndGet();
+                    totalBytes.addAndGet(attributes.size());
+
+                    executor.execute(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            if (failure.get() != null)
+                            {
+                                return;
+                            }
+
+                            try
+                            {
+                                if (skipUnchanged && isUnchanged(attributes, destination))
+                                {
+                                    skippedFiles.incrementAndGet();
+                                }
+                                else
+                                {
+                                    copyFileWithTimes(path, destination, attributes);
+                                    copiedFiles.incrementAndGet();
+                                    copiedBytes.addAndGet(attributes.size());
+                                }
+
+                                if (listener != null)
+                                {
+                                    listener.progress(new CopyProgressDTO(totalFiles.get(), copiedFiles.get(), skippedFiles.get(), totalBytes.get(), copiedBytes.get(), System.currentTimeMillis() - start));
+                                }
+                            }
+                            catch (Exception e)
+                            {
+                                failure.compareAndSet(null, e);
+                            }
+                        }
+                    });
+
+                    return (FileVisitResult.CONTINUE);
+                }
+            });
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        if (failure.get() != null)
+        {
+            throw failure.get();
+        }
+
+        // As pastas recebem a data da origem depois dos arquivos, já que criar um arquivo altera a data da pasta
+        for (Path[] folder : folders)
+        {
+            Files.setLastModifiedTime(folder[0], Files.getLastModifiedTime(folder[1]));
+        }
+
+        return (new CopyProgressDTO(totalFiles.get(), copiedFiles.get(), skippedFiles.get(), totalBytes.get(), copiedBytes.get(), System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Interface avisada do andamento da cópia paralela de uma pasta
+     * <p>
+     * É chamada pelas threads da cópia, ao mesmo tempo, e deve ser thread-safe.
+     */
+    public interface CopyListener
+    {
+        /**
+         * @param progress O andamento da cópia após o último arquivo copiado ou ignorado
+         */
+        void progress(CopyProgressDTO progress);
+    }
+
+    /**
+     * Método que testa se o arquivo de destino tem o mesmo tamanho e a mesma data de modificação do arquivo de origem
+     * 
+     * @param source Os atributos do arquivo de origem
+     * @param target O arquivo de destino
+     * 
+     * @return Se True, o arquivo de destino não precisa ser copiado
+     */
+    private static boolean isUnchanged(BasicFileAttributes source, Path target)
+    {
+        try
+        {
+            BasicFileAttributes attributes = Files.readAttributes(target, BasicFileAttributes.class);
+
+            return (attributes.isRegularFile() && attributes.size() == source.size() && attributes.lastModifiedTime().equals(source.lastModifiedTime()));
+        }
+        catch (IOException e)
+        {
+            return (Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Método que copia um arquivo com {@link FileChannel} e preserva a data de modificação
+     * 
+     * @param source O arquivo de origem
+     * @param target O arquivo de destino
+     * @param attributes Os atributos do arquivo de origem
+     * 
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private static void copyFileWithTimes(Path source, Path target, BasicFileAttributes attributes) throws IOException
+    {
+        try (FileChannel sourceChan = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel targetChan = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            if (transferFully(sourceChan, targetChan) != attributes.size())
+            {
+                throw new IOException("O arquivo " + source + " não pode ser corretamente copiado");
+            }
+        }
+
+        Files.setLastModifiedTime(target, attributes.lastModifiedTime());
+    }
+
+    /**
+     * Método que transfere todo o conteúdo de um canal para outro, repetindo o
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} já que ele pode transferir menos que o pedido
+     * 
+     * @param source O canal de origem
+     * @param target O canal de destino
+     * 
+     * @return A quantidade de bytes transferidos
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private static long transferFully(FileChannel source, FileChannel target) throws IOException
+    {
+        long size = source.size();
+        long position = 0;
+
+        while (position < size)
+        {
+            long transferred = source.transferTo(position, size - position, target);
+
+            if (transferred <= 0)
+            {
+                // O arquivo diminuiu durante a cópia
+                break;
+            }
+
+            position += transferred;
+        }
+
+        return (position);
+    }
+
     /**
      * Método que retorna a extensão de um arquivo
      * 
@@ -781,24 +1548,13 @@ public final class FileUtils extends AbstractUtils
      * @return Se True, Os dois arquivos são iguais
      * @throws Exception Caso ocorra algum erro uma exceção será lançada
      */
-    public boolean equals(String arquivo1, String arquivo2) throws Exception
+    public static boolean equals(String arquivo1, String arquivo2) throws Exception
     {
-        FileInputStream stream1 = new FileInputStream(new File(arquivo1));
-        FileInputStream stream2 = new FileInputStream(new File(arquivo2));
-        DataInputStream in1 = new DataInputStream(stream1);
-        DataInputStream in2 = new DataInputStream(stream2);
+        File file1 = new File(arquivo1);
+        File file2 = new File(arquivo2);
 
-        try
-        {
-            return (equals(in1, in2));
-        }
-        finally
-        {
-            stream1.close();
-            stream2.close();
-            in1.close();
-            in2.close();
-        }
+        // Arquivos de tamanhos diferentes nem precisam ser lidos
+        return (file1.length() == file2.length() && mismatch(file1, file2) < 0);
     }
 
     /**
@@ -810,35 +1566,171 @@ public final class FileUtils extends AbstractUtils
      * @return Se True, Os dois {@link InputStream} são iguais
      * @throws Exception Caso ocorra algum erro uma exceção será lançada
      */
-    public boolean equals(InputStream input1, InputStream input2) throws Exception
+    public static boolean equals(InputStream input1, InputStream input2) throws Exception
     {
-        byte[] buffer1 = new byte[1024 * 1024];
-        byte[] buffer2 = new byte[1024 * 1024];
-
-        int numRead1 = 0;
-        int numRead2 = 0;
+        byte[] buffer1 = new byte[COPY_BUFFER_SIZE];
+        byte[] buffer2 = new byte[COPY_BUFFER_SIZE];
 
         while (true)
         {
-            numRead1 = input1.read(buffer1);
-            numRead2 = input2.read(buffer2);
-            
-            if (numRead1 > -1)
+            int numRead1 = readFully(input1, buffer1);
+            int numRead2 = readFully(input2, buffer2);
+
+            if (numRead1 != numRead2 || mismatch(ByteBuffer.wrap(buffer1, 0, numRead1), ByteBuffer.wrap(buffer2, 0, numRead2)) >= 0)
             {
-                if (numRead2 != numRead1)
-                {
-                    return (Boolean.FALSE);
-                }
-                if (!Arrays.equals(buffer1, buffer2))
+                return (Boolean.FALSE);
+            }
+
+            if (numRead1 < buffer1.length)
+            {
+                return (Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Método que retorna a posição do primeiro byte diferente entre dois arquivos
+     * <p>
+     * Os arquivos são mapeados em memória em janelas de {@link #COMPARE_WINDOW_SIZE} bytes e comparados de 8 em 8 bytes. Para somente
+     * testar se dois arquivos são iguais use o {@link #equals(String, String)}, que compara os tamanhos antes.
+     * 
+     * @param file1 O primeiro arquivo
+     * @param file2 O segundo arquivo
+     * 
+     * @return -1 caso os arquivos sejam iguais, a posição do primeiro byte diferente ou o tamanho do menor arquivo caso um seja o início do outro
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static long mismatch(File file1, File file2) throws Exception
+    {
+        Path path1 = file1.toPath();
+        Path path2 = file2.toPath();
+
+        if (Files.isSameFile(path1, path2))
+        {
+            return (-1);
+        }
+
+        try (FileChannel channel1 = FileChannel.open(path1, StandardOpenOption.READ);
+             FileChannel channel2 = FileChannel.open(path2, StandardOpenOption.READ))
+        {
+            long size1 = channel1.size();
+            long size2 = channel2.size();
+            long size = Math.min(size1, size2);
+
+            for (long position = 0; position < size; position += COMPARE_WINDOW_SIZE)
+            {
+                long length = Math.min(COMPARE_WINDOW_SIZE, size - position);
+                int index = mismatch(channel1.map(FileChannel.MapMode.READ_ONLY, position, length), channel2.map(FileChannel.MapMode.READ_ONLY, position, length));
+
+                if (index >= 0)
                 {
-                    return (Boolean.TRUE);
+                    return (position + index);
                 }
             }
-            else
+
+            return (size1 == size2 ? -1 : size);
+        }
+    }
+
+    /**
+     * Método que testa se dois arquivos são iguais comparando o tamanho e depois o CheckSum de cada um
+     * <p>
+     * Indicado quando o mesmo arquivo é comparado com vários outros, já que o CheckSum pode ser guardado, ou quando os arquivos estão em
+     * discos diferentes e podem ser lidos ao mesmo tempo.
+     * 
+     * @param file1 O primeiro arquivo
+     * @param file2 O segundo arquivo
+     * @param mode O algoritmo de geração a ser usado aceito pela classe {@link MessageDigest}
+     * 
+     * @return Se True, os dois arquivos têm o mesmo tamanho e o mesmo CheckSum
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static boolean equalsByChecksum(File file1, File file2, String mode) throws Exception
+    {
+        if (file1.length() != file2.length())
+        {
+            return (Boolean.FALSE);
+        }
+
+        return (MessageDigest.isEqual(createChecksum(file1, mode), createChecksum(file2, mode)));
+    }
+
+    /**
+     * Método que testa se dois arquivos são iguais comparando o tamanho e depois o CheckSum de cada um, guardado no {@link ChecksumCache}
+     * 
+     * @param file1 O primeiro arquivo
+     * @param file2 O segundo arquivo
+     * @param cache O {@link ChecksumCache} consultado antes de ler os arquivos
+     * 
+     * @return Se True, os dois arquivos têm o mesmo tamanho e o mesmo CheckSum
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static boolean equalsByChecksum(File file1, File file2, ChecksumCache cache) throws Exception
+    {
+        if (file1.length() != file2.length())
+        {
+            return (Boolean.FALSE);
+        }
+
+        return (MessageDigest.isEqual(cache.getChecksum(file1), cache.getChecksum(file2)));
+    }
+
+    /**
+     * Método que retorna a posição do primeiro byte diferente entre os bytes restantes de dois {@link ByteBuffer}, comparando 8 bytes por vez
+     * 
+     * @param buffer1 O primeiro buffer
+     * @param buffer2 O segundo buffer
+     * 
+     * @return -1 caso os buffers sejam iguais, a posição relativa do primeiro byte diferente ou o tamanho do menor buffer
+     */
+    private static int mismatch(ByteBuffer buffer1, ByteBuffer buffer2)
+    {
+        int start1 = buffer1.position();
+        int start2 = buffer2.position();
+        int length = Math.min(buffer1.remaining(), buffer2.remaining());
+        int i = 0;
+
+        buffer2.order(buffer1.order());
+
+        for (; i <= length - 8; i += 8)
+        {
+            if (buffer1.getLong(start1 + i) != buffer2.getLong(start2 + i))
+            {
+                break;
+            }
+        }
+
+        for (; i < length; i++)
+        {
+            if (buffer1.get(start1 + i) != buffer2.get(start2 + i))
             {
-                return (numRead2 < 0);
+                return (i);
             }
         }
+
+        return (buffer1.remaining() == buffer2.remaining() ? -1 : length);
+    }
+
+    /**
+     * Método que lê um {@link InputStream} até encher o buffer ou até o final
+     * 
+     * @param input O {@link InputStream}
+     * @param buffer O buffer
+     * 
+     * @return A quantidade de bytes lidos
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private static int readFully(InputStream input, byte[] buffer) throws IOException
+    {
+        int total = 0;
+        int read;
+
+        while (total < buffer.length && (read = input.read(buffer, total, buffer.length - total)) > -1)
+        {
+            total += read;
+        }
+
+        return (total);
     }
 
     /**
@@ -885,23 +1777,14 @@ public final class FileUtils extends AbstractUtils
      */
     public static void writeInFileSystem(ByteArrayInputStream bais, String dirToSave, String objetName) throws Exception
     {
-        InputStream in = (InputStream) bais;
-        FileOutputStream out = new FileOutputStream(new File(new File(dirToSave), objetName));
-
         try
         {
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-
-            while ((bytesRead = in.read(buffer)) != -1)
-            {
-                out.write(buffer, 0, bytesRead);
-            }
+            // Escrita atômica, quem lê o arquivo nunca vê o conteúdo pela metade
+            FileWriterUtils.writeAtomic(new File(new File(dirToSave), objetName).toPath(), bais, false);
         }
         finally
         {
-            in.close();
-            out.close();
+            bais.close();
         }
     }
 
@@ -955,23 +1838,14 @@ public final class FileUtils extends AbstractUtils
      * 
      * @return Se True, O CheckSum atual corresponde ao CheckSum gerado
      * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     * @deprecated Use o {@link ChecksumUtils#verifySidecar(File, String)}, que calcula o CheckSum e lê o arquivo de CheckSum completo
      */
+    @Deprecated
     public static boolean verifyChecksumByFile(byte[] actualChecksumFile, String checksumFile) throws Exception
     {
-        InputStream is = null;
-        try
-        {
-            byte[] chk2 = new byte[actualChecksumFile.length];
-            is = new FileInputStream(checksumFile);
-            is.read(chk2);
-
-            return(new String(chk2).equals(new String(actualChecksumFile)));
-        }
-        finally
-        {
-            is.close();
-        }
+        byte[] chk2 = Files.readAllBytes(Paths.get(checksumFile));
 
+        return (chk2.length >= actualChecksumFile.length && Arrays.equals(Arrays.copyOf(chk2, actualChecksumFile.length), actualChecksumFile));
     }
 
     /**
@@ -982,34 +1856,11 @@ public final class FileUtils extends AbstractUtils
      * 
      * @return O array de bytes do checkSum do arquivo
      * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     * @see ChecksumUtils#checksum(File, String...)
      */
     public static byte[] createChecksum(File file, String mode) throws Exception
     {
-        InputStream fis = new FileInputStream(file);
-        MessageDigest digest = null;
-        
-        try
-        {
-            byte[] buffer = new byte[1024];
-            digest = MessageDigest.getInstance(mode);
-            int numRead;
-            
-            do
-            {
-                numRead = fis.read(buffer);
-                if (numRead > 0)
-                {
-                    digest.update(buffer, 0, numRead);
-                }
-            }
-            while (numRead != -1);
-        }
-        finally
-        {
-            fis.close();
-        }
-        
-        return digest.digest();
+        return (ChecksumUtils.checksum(file, mode));
     }
     
     /**
@@ -2,73 +2,467 @@ package jutil.utils;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchEvent.Kind;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Classe utilitária que observa um diretório em busca de eventos pré configurados
- * 
+ * <p>
+ * A thread continua observando o diretório até ser interrompida, até o {@link #stopWatching()} ser chamado ou até o diretório deixar de
+ * existir. Os eventos de um mesmo arquivo que ocorrerem dentro da janela de debounce são agrupados em um único aviso, e os avisos são
+ * entregues ao {@link ActionListener} pelo {@link Executor} informado, nunca pela própria thread de observação. O source do
+ * {@link ActionEvent} é o {@link Path} do arquivo relativo ao diretório observado e o command é o nome do evento.
+ * <p>
+ * Quando o sistema operacional perde eventos ({@link StandardWatchEventKinds#OVERFLOW}), as pastas são percorridas novamente para
+ * registrar as subpastas criadas, e os arquivos e pastas alterados desde a última leitura completa dos eventos são avisados como
+ * criados ou alterados, conforme os eventos pedidos. Como as exclusões não podem ser recuperadas dessa forma, o
+ * {@link StandardWatchEventKinds#OVERFLOW} é avisado com o diretório observado como source quando foi pedido ou quando o
+ * {@link StandardWatchEventKinds#ENTRY_DELETE} foi pedido, indicando que o diretório deve ser relido.
+ *
  * @author Diego Steyner
  */
 public class FileWatchThread extends Thread
 {
-    private Path           watchDir;
-    private WatchService   watcher;
-    private ActionListener action;
-    private Kind<Path>   type;
+    /**
+     * Margem, em milissegundos, aplicada na releitura após a perda de eventos, para cobrir a precisão das datas de modificação
+     */
+    private static final long RESCAN_MARGIN_MILLIS = 2000;
+
+    private Path                    watchDir;
+    private WatchService            watcher;
+    private ActionListener          action;
+    private List<Kind<?>>           types;
+    private boolean                 recursive;
+    private long                    debounceMillis;
+    private Executor                executor;
+    private ExecutorService         ownExecutor;
+    private Map<WatchKey, Path>     keys    = new ConcurrentHashMap<WatchKey, Path>();
+    private Map<Path, PendingEvent> pending = new LinkedHashMap<Path, PendingEvent>();
+    private long                    lastPoll;
 
     /**
      * Construtor parametrizado
-     * 
+     *
      * @param path O diretorio que se deseja monitorar
      * @param action O {@link ActionListener} que será acionado caso o evento ocorra no diretório
      * @param type O {@link StandardWatchEventKinds} desejado.
-     * 
+     *
      * @throws Exception Caso ocorra algum erro uma exceção será lançada
-     * @see Atenção, Essa classe funciona como filha de {@link Thread}, dessa forma, todas as regras aplicáveis a {@link Thread}, tais como 
-     * this.start(), this.stop(), this.yeld() e vinculações de threads, ciclo de vida, e qualquer outra ação aplicável a 
+     * @see Atenção, Essa classe funciona como filha de {@link Thread}, dessa forma, todas as regras aplicáveis a {@link Thread}, tais como
+     * this.start(), this.stop(), this.yeld() e vinculações de threads, ciclo de vida, e qualquer outra ação aplicável a
      * {@link Thread} também são aplicáveis também a ela.
      */
     public FileWatchThread(String path, ActionListener action, Kind<Path> type) throws Exception
     {
+        this(path, action, false, 0, null, type);
+    }
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param path O diretorio que se deseja monitorar
+     * @param action O {@link ActionListener} que será acionado caso o evento ocorra no diretório
+     * @param recursive Se True, as subpastas, inclusive as criadas depois, também serão observadas
+     * @param debounceMillis A janela, em milissegundos, em que os eventos de um mesmo arquivo são agrupados. Com 0 cada evento é avisado
+     * @param executor O {@link Executor} que executará o {@link ActionListener}, caso seja null uma thread exclusiva será criada
+     * @param types Os {@link StandardWatchEventKinds} desejados
+     *
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     * @see Atenção, Essa classe funciona como filha de {@link Thread}, dessa forma, todas as regras aplicáveis a {@link Thread} também
+     * são aplicáveis também a ela.
+     */
+    public FileWatchThread(String path, ActionListener action, boolean recursive, long debounceMillis, Executor executor, Kind<?>... types) throws Exception
+    {
+        if (types.length == 0 || debounceMillis < 0)
+        {
+            throw new IllegalArgumentException("Ao menos um evento deve ser informado e o debounce não pode ser negativo.");
+        }
+
         this.watchDir = Paths.get(path);
         this.watcher = watchDir.getFileSystem().newWatchService();
-        this.type = type;
         this.action = action;
-        this.watchDir.register(watcher, this.type);
+        this.types = Arrays.<Kind<?>>asList(types);
+        this.recursive = recursive;
+        this.debounceMillis = debounceMillis;
+        this.executor = executor;
+
+        setName("FileWatchThread-" + watchDir.getFileName());
+        lastPoll = System.currentTimeMillis();
+        register(watchDir, false);
     }
 
     /**
      * Método sobrescrito, não é necessário documentação
-     * 
+     *
      * @see java.lang.Thread#run();
      */
     @Override
     public void run()
     {
+        if (executor == null)
+        {
+            ownExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, getName() + "-dispatcher");
+                    thread.setDaemon(true);
+                    return (thread);
+                }
+            });
+            executor = ownExecutor;
+        }
+
         try
         {
-            WatchKey watchKey = watcher.take();
-            List<WatchEvent<?>> events = watchKey.pollEvents();
-            for (WatchEvent<?> event : events)
+            while (!isInterrupted() && !keys.isEmpty())
             {
-                if (event.kind() == type)
+                WatchKey watchKey = pending.isEmpty() ? watcher.take() : watcher.poll(nextDeadline(), TimeUnit.MILLISECONDS);
+
+                if (watchKey != null)
                 {
-                    action.actionPerformed(new ActionEvent(event.context(), ActionEvent.ACTION_LAST, event.kind().name()));
+                    processEvents(watchKey);
                 }
+
+                dispatch(false);
             }
-            
-            watchKey.reset();
+        }
+        catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            // Fim da observação
         }
         catch (Exception e)
         {
             e.printStackTrace();
         }
+        finally
+        {
+            dispatch(true);
+            closeQuietly();
+
+            if (ownExecutor != null)
+            {
+                ownExecutor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Método que encerra a observação do diretório. Os eventos ainda agrupados são avisados antes da thread terminar
+     */
+    public void stopWatching()
+    {
+        closeQuietly();
+        interrupt();
+    }
+
+    public Path getWatchDir()
+    {
+        return (watchDir);
+    }
+
+    /**
+     * Método que trata os eventos de uma pasta e devolve a chave para o {@link WatchService}
+     *
+     * @param watchKey A chave da pasta
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private void processEvents(WatchKey watchKey) throws IOException
+    {
+        Path dir = keys.get(watchKey);
+
+        // Os eventos perdidos ocorreram depois da leitura anterior, que passa a ser o ponto de partida de uma eventual releitura
+        long since = lastPoll;
+        lastPoll = System.currentTimeMillis();
+
+        for (WatchEvent<?> event : watchKey.pollEvents())
+        {
+            Kind<?> kind = event.kind();
+
+            if (kind == StandardWatchEventKinds.OVERFLOW)
+            {
+                rescan(since - RESCAN_MARGIN_MILLIS);
+
+                if (types.contains(kind) || types.contains(StandardWatchEventKinds.ENTRY_DELETE))
+                {
+                    addPending(watchDir, StandardWatchEventKinds.OVERFLOW);
+                }
+
+                continue;
+            }
+
+            if (dir == null)
+            {
+                continue;
+            }
+
+            Path child = dir.resolve((Path) event.context());
+
+            if (types.contains(kind))
+            {
+                addPending(child, kind);
+            }
+
+            if (recursive && kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child))
+            {
+                // Os arquivos criados antes do registro da nova pasta são avisados como criados
+                register(child, types.contains(StandardWatchEventKinds.ENTRY_CREATE));
+            }
+        }
+
+        if (!watchKey.reset())
+        {
+            keys.remove(watchKey);
+        }
+    }
+
+    /**
+     * Método que registra uma pasta, e suas subpastas caso a observação seja recursiva
+     *
+     * @param dir A pasta
+     * @param notifyCreated Se True, os arquivos e pastas encontrados dentro da pasta são avisados como criados
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private void register(final Path dir, final boolean notifyCreated) throws IOException
+    {
+        List<Kind<?>> kinds = new ArrayList<Kind<?>>(types);
+        kinds.remove(StandardWatchEventKinds.OVERFLOW);
+
+        if (recursive && !kinds.contains(StandardWatchEventKinds.ENTRY_CREATE))
+        {
+            // Necessário para registrar as subpastas criadas depois
+            kinds.add(StandardWatchEventKinds.ENTRY_CREATE);
+        }
+
+        final Kind<?>[] events = kinds.toArray(new Kind<?>[kinds.size()]);
+
+        if (!recursive)
+        {
+            keys.put(dir.register(watcher, events), dir);
+            return;
+        }
+
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException
+            {
+                keys.put(path.register(watcher, events), path);
+
+                if (notifyCreated && !path.equals(dir))
+                {
+                    addPending(path, StandardWatchEventKinds.ENTRY_CREATE);
+                }
+
+                return (FileVisitResult.CONTINUE);
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
+            {
+                if (notifyCreated)
+                {
+                    addPending(path, StandardWatchEventKinds.ENTRY_CREATE);
+                }
+
+                return (FileVisitResult.CONTINUE);
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException exc)
+            {
+                return (FileVisitResult.CONTINUE);
+            }
+        });
+    }
+
+    /**
+     * Método que relê as pastas observadas depois da perda de eventos, registrando as subpastas novas e avisando os arquivos e pastas
+     * alterados a partir do instante informado
+     *
+     * @param since O instante, em milissegundos, a partir do qual os eventos podem ter sido perdidos
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private void rescan(final long since) throws IOException
+    {
+        register(watchDir, false);
+
+        Files.walkFileTree(watchDir, EnumSet.noneOf(FileVisitOption.class), recursive ? Integer.MAX_VALUE : 1, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs)
+            {
+                if (!path.equals(watchDir))
+                {
+                    addRescanned(path, attrs, since);
+                }
+
+                return (FileVisitResult.CONTINUE);
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
+            {
+                addRescanned(path, attrs, since);
+                return (FileVisitResult.CONTINUE);
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException exc)
+            {
+                return (FileVisitResult.CONTINUE);
+            }
+        });
+    }
+
+    /**
+     * Método que avisa um arquivo encontrado na releitura caso ele tenha sido criado ou alterado depois do instante informado
+     *
+     * @param path O arquivo
+     * @param attrs Os atributos do arquivo
+     * @param since O instante, em milissegundos, a partir do qual os eventos podem ter sido perdidos
+     */
+    private void addRescanned(Path path, BasicFileAttributes attrs, long since)
+    {
+        if (attrs.lastModifiedTime().toMillis() < since)
+        {
+            return;
+        }
+
+        if (types.contains(StandardWatchEventKinds.ENTRY_CREATE) && (attrs.creationTime().toMillis() >= since || !types.contains(StandardWatchEventKinds.ENTRY_MODIFY)))
+        {
+            addPending(path, StandardWatchEventKinds.ENTRY_CREATE);
+        }
+        else if (types.contains(StandardWatchEventKinds.ENTRY_MODIFY))
+        {
+            addPending(path, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+    }
+
+    /**
+     * Método que agrupa um evento com os eventos do mesmo arquivo ainda não avisados
+     * <p>
+     * O último evento prevalece, exceto uma alteração depois da criação, que continua sendo avisada como criação.
+     *
+     * @param path O arquivo
+     * @param kind O evento
+     */
+    private void addPending(Path path, Kind<?> kind)
+    {
+        PendingEvent event = pending.get(path);
+
+        if (event == null)
+        {
+            pending.put(path, new PendingEvent(kind, System.currentTimeMillis() + debounceMillis));
+        }
+        else if (!(event.kind == StandardWatchEventKinds.ENTRY_CREATE && kind == StandardWatchEventKinds.ENTRY_MODIFY))
+        {
+            event.kind = kind;
+        }
+    }
+
+    /**
+     * @return O tempo, em milissegundos, até o próximo evento agrupado ter que ser avisado
+     */
+    private long nextDeadline()
+    {
+        return (Math.max(0, pending.values().iterator().next().deadline - System.currentTimeMillis()));
+    }
+
+    /**
+     * Método que entrega ao {@link Executor} os eventos cuja janela de debounce terminou. Como os eventos são mantidos na ordem em que
+     * chegaram, a leitura termina no primeiro evento ainda dentro da janela
+     *
+     * @param all Se True, todos os eventos são avisados
+     */
+    private void dispatch(boolean all)
+    {
+        long now = System.currentTimeMillis();
+
+        for (Iterator<Map.Entry<Path, PendingEvent>> iterator = pending.entrySet().iterator(); iterator.hasNext();)
+        {
+            Map.Entry<Path, PendingEvent> entry = iterator.next();
+
+            if (!all && entry.getValue().deadline > now)
+            {
+                break;
+            }
+
+            iterator.remove();
+
+            final ActionEvent event = new ActionEvent(entry.getKey().equals(watchDir) ? watchDir : watchDir.relativize(entry.getKey()), ActionEvent.ACTION_LAST, entry.getValue().kind.name());
+
+            try
+            {
+                executor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        action.actionPerformed(event);
+                    }
+                });
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void closeQuietly()
+    {
+        try
+        {
+            watcher.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Evento agrupado ainda não avisado
+     */
+    private static final class PendingEvent
+    {
+        private Kind<?>    kind;
+        private final long deadline;
+
+        private PendingEvent(Kind<?> kind, long deadline)
+        {
+            this.kind = kind;
+            this.deadline = deadline;
+        }
     }
 }
@@ -1,18 +1,35 @@
 
 package jutil.utils;
 
-import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
 
 import jutil.abstracts.AbstractUtils;
+import jutil.data.enums.FsyncPolicyEnum;
 
 /**
  * Classe utilitaria para trabalhar com escrita de arquivos
@@ -21,6 +38,38 @@ import jutil.abstracts.AbstractUtils;
  */
 public final class FileWriterUtils extends AbstractUtils 
 {
+    /**
+     * Sincronizações agrupadas das pastas que estão sendo sincronizadas no momento. Uma pasta sai do mapa quando a última chamada termina
+     */
+    private static final ConcurrentHashMap<Path, DirectorySync> DIRECTORY_SYNCS = new ConcurrentHashMap<Path, DirectorySync>();
+    
+    /**
+     * Entra na sincronização agrupada de uma pasta, criando-a caso nenhuma chamada esteja em andamento
+     */
+    private static final BiFunction<Path, DirectorySync, DirectorySync> JOIN_SYNC = new BiFunction<Path, DirectorySync, DirectorySync>()
+    {
+        @Override
+        public DirectorySync apply(Path dir, DirectorySync sync)
+        {
+            DirectorySync joined = (sync == null) ? new DirectorySync(dir) : sync;
+            joined.users++;
+            
+            return (joined);
+        }
+    };
+    
+    /**
+     * Sai da sincronização agrupada de uma pasta, retirando-a do mapa quando não há mais chamadas em andamento
+     */
+    private static final BiFunction<Path, DirectorySync, DirectorySync> LEAVE_SYNC = new BiFunction<Path, DirectorySync, DirectorySync>()
+    {
+        @Override
+        public DirectorySync apply(Path dir, DirectorySync sync)
+        {
+            return (--sync.users == 0 ? null : sync);
+        }
+    };
+    
     /**
      * Construtor privado
      */
@@ -44,35 +93,263 @@ public final class FileWriterUtils extends AbstractUtils
      */
     public static boolean writerContent(File file, String content, String charset, boolean append, boolean createNewLine) throws IOException
     {
-        PrintWriter w = new PrintWriter(new FileWriter(file, append), true);
-        
-        if(createNewLine)
-        {
-            w.println(new String(content.getBytes(Charset.forName(charset))));
-        }
-        else 
+        try (BufferedWriter w = Files.newBufferedWriter(file.toPath(), Charset.forName(charset), StandardOpenOption.CREATE, StandardOpenOption.WRITE, append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING))
         {
-            w.print(new String(content.getBytes(Charset.forName(charset))));
+            w.write(content);
+            
+            if(createNewLine)
+            {
+                w.newLine();
+            }
         }
         
-        w.close();
         return(Boolean.TRUE);
     }
     
     public static void writeContentToFile(File file, String content, Charset charset) throws IOException
     {
-		try (FileWriter writer = new FileWriter(file); BufferedWriter bw = Files.newBufferedWriter(file.toPath(), charset)) 
+		try (BufferedWriter bw = Files.newBufferedWriter(file.toPath(), charset)) 
 		{
 			bw.write(content);
 		}
     }
     
+    /**
+     * Método que escreve bytes em um arquivo de forma atômica, sem sincronizar com o disco
+     * 
+     * @param file O arquivo a ser escrito
+     * @param data O conteúdo a ser escrito
+     * 
+     * @throws IOException Caso ocorra algum erro na escrita, uma exceção será lançada
+     * @see #writeAtomic(Path, byte[], boolean)
+     */
     public static void wrteContentBuffer(Path file, byte[] data) throws IOException
     {
-		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) 
-		{
-			out.write(data, 0, data.length);
-		} 
+        writeAtomic(file, data, false);
+    }
+    
+    /**
+     * Método que escreve bytes em um arquivo de forma atômica e durável
+     * 
+     * @param file O arquivo a ser escrito
+     * @param data O conteúdo a ser escrito
+     * 
+     * @throws IOException Caso ocorra algum erro na escrita, uma exceção será lançada
+     * @see #writeAtomic(Path, byte[], boolean)
+     */
+    public static void writeAtomic(Path file, byte[] data) throws IOException
+    {
+        writeAtomic(file, data, true);
+    }
+    
+    /**
+     * Método que escreve bytes em um arquivo de forma atômica
+     * <p>
+     * O conteúdo é escrito em um arquivo temporário na mesma pasta, que depois é renomeado sobre o arquivo, de forma que quem lê o arquivo
+     * vê o conteúdo anterior ou o novo, nunca uma parte. Se durable for True, o arquivo temporário é sincronizado com o disco antes de ser
+     * renomeado e a pasta é sincronizada depois. As escritas simultâneas na mesma pasta compartilham a sincronização da pasta: quem chega
+     * enquanto uma sincronização está em andamento espera a próxima, que cobre todos que chegaram nesse intervalo.
+     * <p>
+     * Se o arquivo for um link simbólico, o arquivo apontado por ele é que é substituído, e o link é mantido. Quando o arquivo já existe,
+     * o novo conteúdo recebe as permissões, o dono e o grupo do arquivo anterior, caso o sistema de arquivos seja POSIX.
+     * 
+     * @param file O arquivo a ser escrito
+     * @param data O conteúdo a ser escrito
+     * @param durable Se True, o método só retorna depois do conteúdo e da renomeação estarem no disco
+     * 
+     * @throws IOException Caso ocorra algum erro na escrita, uma exceção será lançada
+     */
+    public static void writeAtomic(Path file, byte[] data, boolean durable) throws IOException
+    {
+        writeAtomic(file, new ByteArrayInputStream(data), durable);
+    }
+    
+    /**
+     * Método que escreve o conteúdo de um {@link InputStream} em um arquivo de forma atômica
+     * 
+     * @param file O arquivo a ser escrito
+     * @param in O {@link InputStream} com o conteúdo, que não é fechado
+     * @param durable Se True, o método só retorna depois do conteúdo e da renomeação estarem no disco
+     * 
+     * @throws IOException Caso ocorra algum erro na escrita, uma exceção será lançada
+     * @see #writeAtomic(Path, byte[], boolean)
+     */
+    public static void writeAtomic(Path file, InputStream in, boolean durable) throws IOException
+    {
+        Path target = resolveLinks(file.toAbsolutePath());
+        Path dir = target.getParent();
+        Path temp = dir.resolve("." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        PosixFileAttributes attributes = readPosixAttributes(target);
+        // Um arquivo novo é criado como um arquivo comum, e não com Files.createTempFile, para receber as permissões padrão do sistema.
+        // Um arquivo existente tem o temporário criado já com as suas permissões, para o conteúdo nunca ficar mais exposto que o anterior
+        FileAttribute<?>[] createAttributes = (attributes == null) ? new FileAttribute<?>[0] : new FileAttribute<?>[] { PosixFilePermissions.asFileAttribute(attributes.permissions()) };
+        
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temp, EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), createAttributes))
+            {
+                ReadableByteChannel source = Channels.newChannel(in);
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                
+                while (source.read(buffer) > -1)
+                {
+                    buffer.flip();
+                    
+                    while (buffer.hasRemaining())
+                    {
+                        channel.write(buffer);
+                    }
+                    
+                    buffer.clear();
+                }
+                
+                if (durable)
+                {
+                    channel.force(true);
+                }
+            }
+            
+            if (attributes != null)
+            {
+                copyPosixAttributes(attributes, temp);
+            }
+            
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        
+        if (durable)
+        {
+            syncDirectory(dir);
+        }
+    }
+    
+    /**
+     * Método que segue os links simbólicos do caminho, para que a escrita atômica substitua o arquivo apontado e não o link
+     * 
+     * @param path O caminho absoluto do arquivo
+     * 
+     * @return O caminho do arquivo apontado, ou o próprio caminho caso ele não seja um link
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private static Path resolveLinks(Path path) throws IOException
+    {
+        if (Files.exists(path))
+        {
+            return (path.toRealPath());
+        }
+        
+        // Link que aponta para um arquivo ainda não criado, o arquivo é criado no destino do link
+        for (int hops = 0; Files.isSymbolicLink(path); hops++)
+        {
+            if (hops == 40)
+            {
+                throw new FileSystemException(path.toString(), null, "Muitos níveis de links simbólicos");
+            }
+            
+            path = path.resolveSibling(Files.readSymbolicLink(path));
+        }
+        
+        return (path);
+    }
+    
+    /**
+     * Método que lê as permissões, o dono e o grupo de um arquivo
+     * 
+     * @param file O arquivo
+     * 
+     * @return Os atributos do arquivo, ou null caso ele não exista ou o sistema de arquivos não seja POSIX
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private static PosixFileAttributes readPosixAttributes(Path file) throws IOException
+    {
+        PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+        
+        if (view == null || !Files.exists(file))
+        {
+            return (null);
+        }
+        
+        return (view.readAttributes());
+    }
+    
+    /**
+     * Método que aplica o dono, o grupo e as permissões do arquivo anterior no arquivo temporário
+     * 
+     * @param attributes Os atributos do arquivo anterior
+     * @param temp O arquivo temporário
+     * 
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private static void copyPosixAttributes(PosixFileAttributes attributes, Path temp) throws IOException
+    {
+        PosixFileAttributeView view = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+        PosixFileAttributes current = view.readAttributes();
+        
+        // Somente quem tem permissão pode trocar o dono ou o grupo, caso contrário o arquivo fica com o dono de quem escreveu
+        if (!current.owner().equals(attributes.owner()))
+        {
+            try
+            {
+                view.setOwner(attributes.owner());
+            }
+            catch (FileSystemException e)
+            {
+                // Sem permissão para trocar o dono
+            }
+        }
+        
+        if (!current.group().equals(attributes.group()))
+        {
+            try
+            {
+                view.setGroup(attributes.group());
+            }
+            catch (FileSystemException e)
+            {
+                // Sem permissão para trocar o grupo
+            }
+        }
+        
+        // Aplicadas por último, já que a troca de dono remove alguns bits e a criação do arquivo aplica a umask
+        view.setPermissions(attributes.permissions());
+    }
+    
+    /**
+     * Método que sincroniza uma pasta com o disco, gravando as criações e renomeações de arquivos feitas nela
+     * <p>
+     * As chamadas simultâneas para a mesma pasta são agrupadas em uma única sincronização, e caso ela falhe, todas as chamadas agrupadas
+     * recebem o erro. No Windows, onde uma pasta não pode ser aberta, a sincronização é ignorada.
+     * 
+     * @param dir A pasta
+     * 
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public static void syncDirectory(Path dir) throws IOException
+    {
+        Path key = dir.toAbsolutePath().normalize();
+        DirectorySync sync = DIRECTORY_SYNCS.compute(key, JOIN_SYNC);
+        
+        try
+        {
+            sync.sync();
+        }
+        finally
+        {
+            DIRECTORY_SYNCS.computeIfPresent(key, LEAVE_SYNC);
+        }
+    }
+    
+    /**
+     * @return A quantidade de pastas com sincronizações em andamento
+     */
+    static int getDirectorySyncCount()
+    {
+        return (DIRECTORY_SYNCS.size());
     }
     
     /**
@@ -105,4 +382,136 @@ public final class FileWriterUtils extends AbstractUtils
     {
         return (new PrintWriter(new FileWriter(arquivo, append), autoFlush));
     }
+    
+    /**
+     * Metodo que retorna um {@link FileAppender}, indicado para acrescentar muitos registros pequenos em um arquivo a partir de várias threads
+     * 
+     * @param arquivo O arquivo para ser escrito, os registros são sempre acrescentados no final
+     * @param charset O charset no qual os textos devem ser escritos
+     * @param fsyncPolicy A {@link FsyncPolicyEnum} de sincronização com o disco
+     * 
+     * @return O {@link FileAppender} criado, que deve ser fechado ao final
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public static FileAppender getFileAppender(File arquivo, String charset, FsyncPolicyEnum fsyncPolicy) throws Exception
+    {
+        return (new FileAppender(arquivo, charset, FileAppender.DEFAULT_BUFFER_SIZE, FileAppender.DEFAULT_FLUSH_INTERVAL, FileAppender.DEFAULT_QUEUE_CAPACITY, fsyncPolicy));
+    }
+    
+    /**
+     * Sincronização agrupada de uma pasta
+     * <p>
+     * Quem chama entra na geração atual. Quando nenhuma sincronização está em andamento, um dos participantes da geração atual a inicia,
+     * e quem chega depois entra na próxima geração. O resultado, sucesso ou erro, vale para todos os participantes da geração.
+     */
+    private static final class DirectorySync
+    {
+        private final Path dir;
+        private Generation current = new Generation();
+        private boolean syncing;
+        
+        /**
+         * Quantidade de chamadas em andamento, alterada somente dentro do {@link ConcurrentHashMap#compute} da pasta
+         */
+        private int users;
+        
+        private DirectorySync(Path dir)
+        {
+            this.dir = dir;
+        }
+        
+        private void sync() throws IOException
+        {
+            Generation generation;
+            
+            synchronized (this)
+            {
+                generation = current;
+                
+                while (!generation.done && syncing)
+                {
+                    try
+                    {
+                        wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("A espera pela sincronização da pasta foi interrompida.");
+                    }
+                }
+                
+                if (generation.done)
+                {
+                    if (generation.failure != null)
+                    {
+                        throw new IOException("Erro ao sincronizar a pasta " + dir + ".", generation.failure);
+                    }
+                    
+                    return;
+                }
+                
+                // Sem sincronização em andamento, a geração ainda não iniciada é a atual, e quem chegar agora espera a próxima
+                syncing = true;
+                current = new Generation();
+            }
+            
+            try
+            {
+                force();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                generation.failure = e;
+                throw e;
+            }
+            finally
+            {
+                synchronized (this)
+                {
+                    generation.done = true;
+                    syncing = false;
+                    notifyAll();
+                }
+            }
+        }
+        
+        private void force() throws IOException
+        {
+            FileChannel channel;
+            
+            try
+            {
+                channel = FileChannel.open(dir, StandardOpenOption.READ);
+            }
+            catch (IOException e)
+            {
+                // O Windows não permite abrir pastas, e as renomeações já são duráveis nele
+                if (System.getProperty("os.name", "").startsWith("Windows"))
+                {
+                    return;
+                }
+                
+                throw e;
+            }
+            
+            try
+            {
+                channel.force(true);
+            }
+            finally
+            {
+                channel.close();
+            }
+        }
+    }
+    
+    /**
+     * Uma sincronização de pasta e o seu resultado, compartilhado por todos que a aguardam
+     */
+    private static final class Generation
+    {
+        private boolean done;
+        private Exception failure;
+    }
 }
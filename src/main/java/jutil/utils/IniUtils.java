@@ -2,7 +2,6 @@ package jutil.utils;
 
 import java.io.File;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Pattern;
@@ -35,43 +34,33 @@ public final class IniUtils extends AbstractUtils
      * @return Um {@link Map} com o conteúdo do arquivo .ini
      * @throws Exception Caso ocorra algum erro uma exceção será lançada
      */
-    public static Map<String, Properties> getIniAsMap(File iniFile, String charset, boolean removeBrackets) throws Exception
+    public static Map<String, Properties> getIniAsMap(File iniFile, String charset, final boolean removeBrackets) throws Exception
     {
-        Map<String, Properties> retorno = new HashMap<>();
-        LinkedList<String> lines = FileReaderUtils.getContentFile(iniFile, charset);
+        final Map<String, Properties> retorno = new HashMap<>();
+        final Pattern section = Pattern.compile(RegexEnum.FIND_INI_SECTION.getStringValue());
+        final Pattern props = Pattern.compile(RegexEnum.FIND_INI_PROPERTIES.getStringValue());
         
-        Pattern section = Pattern.compile(RegexEnum.FIND_INI_SECTION.getStringValue());
-        Pattern props = Pattern.compile(RegexEnum.FIND_INI_PROPERTIES.getStringValue());
-        int lastSection = 0;
-        String temp[];
-        
-        for (int i = 0; i < lines.size(); i++)
+        FileReaderUtils.readLines(iniFile, charset, new FileReaderUtils.LineHandler()
         {
-            if(section.matcher(lines.get(i)).find())
+            private Properties lastSection;
+            
+            @Override
+            public boolean handle(String line, long lineNumber)
             {
-                lastSection = i;
-                
-                if(removeBrackets)
+                if(section.matcher(line).find())
                 {
-                    retorno.put(lines.get(i).replaceAll(RegexEnum.REPLACE_ALL_BRACKETS.getStringValue(), ""), new Properties());
-                    continue;
+                    lastSection = new Properties();
+                    retorno.put(removeBrackets ? line.replaceAll(RegexEnum.REPLACE_ALL_BRACKETS.getStringValue(), "") : line, lastSection);
                 }
-                
-                retorno.put(lines.get(i), new Properties());
-            }
-            else if(props.matcher(lines.get(i)).find())
-            {
-                temp = lines.get(i).split("=");
-                
-                if(removeBrackets)
+                else if(props.matcher(line).find())
                 {
-                    retorno.get(lines.get(lastSection).replaceAll(RegexEnum.REPLACE_ALL_BRACKETS.getStringValue(), "")).put(temp[0], temp[1]);
-                    continue;
+                    String temp[] = line.split("=");
+                    lastSection.put(temp[0], temp[1]);
                 }
                 
-                retorno.get(lines.get(lastSection)).put(temp[0], temp[1]);
+                return (true);
             }
-        }
+        });
         
         return(retorno);
     }
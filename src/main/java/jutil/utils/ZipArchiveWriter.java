@@ -0,0 +1,854 @@
+package jutil.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Classe que escreve um arquivo ZIP diretamente em um {@link WritableByteChannel}, entrada por entrada
+ * <p>
+ * As entradas podem ser recebidas já comprimidas, com o CRC e os tamanhos conhecidos, o que permite que elas sejam comprimidas em
+ * paralelo e escritas aqui na ordem desejada, ou podem ser comprimidas enquanto são escritas, a partir de um {@link InputStream}, de um
+ * array de bytes, de um {@link EntryProducer} ou do {@link OutputStream} retornado por {@link #openEntry(String, long)}. Nesse caso o CRC
+ * e os tamanhos são gravados depois dos dados, em um descritor de dados, e a memória usada se limita aos buffers da compressão, o que
+ * permite escrever um ZIP de qualquer tamanho diretamente em uma resposta HTTP, por exemplo. Os cabeçalhos locais e o diretório central
+ * são escritos pela própria classe, usando as extensões ZIP64 somente quando um tamanho, uma posição ou a quantidade de entradas passa
+ * dos limites do formato ZIP original. Os nomes das entradas são gravados em UTF-8. A classe não é thread-safe.
+ * <p>
+ * Qualquer erro na escrita de uma entrada aborta o arquivo ZIP: o {@link #close()} fecha o canal sem escrever o diretório central, de
+ * forma que um arquivo incompleto nunca parece válido. Quem escreve no {@link OutputStream} de {@link #openEntry(String, long)} e falha
+ * fora dele, por exemplo ao gerar o conteúdo dentro de um try-with-resources, deve chamar {@link #abort()} antes do {@link OutputStream}
+ * ser fechado, caso contrário a entrada truncada é finalizada como se estivesse completa.
+ *
+ * @author Diego Steyner
+ */
+public class ZipArchiveWriter implements AutoCloseable
+{
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_END_LOCATOR = 0x07064b50;
+    private static final int ZIP64_EXTRA = 0x0001;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+
+    private static final long ZIP32_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP16_LIMIT = 0xFFFF;
+
+    private final WritableByteChannel channel;
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private final ByteBuffer header = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer copyBuffer = ByteBuffer.allocate(64 * 1024);
+    private long position;
+    private long entries;
+    private boolean finished;
+    private boolean aborted;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private Deflater deflater;
+    private byte[] inputBuffer;
+    private EntryOutputStream current;
+    private ZipEntry lastEntry;
+
+    /**
+     * Construtor
+     *
+     * @param channel O {@link WritableByteChannel} onde o arquivo ZIP será escrito
+     */
+    public ZipArchiveWriter(WritableByteChannel channel)
+    {
+        this.channel = channel;
+    }
+
+    /**
+     * Construtor
+     *
+     * @param out O {@link OutputStream} onde o arquivo ZIP será escrito
+     */
+    public ZipArchiveWriter(OutputStream out)
+    {
+        this(Channels.newChannel(out));
+    }
+
+    /**
+     * Construtor
+     *
+     * @param out O {@link OutputStream} onde o arquivo ZIP será escrito
+     * @param level O nível de compressão das entradas comprimidas durante a escrita
+     */
+    public ZipArchiveWriter(OutputStream out, int level)
+    {
+        this(out);
+        setLevel(level);
+    }
+
+    /**
+     * Método que adiciona uma pasta ao arquivo ZIP
+     *
+     * @param name O nome da pasta, uma '/' é adicionada no final caso não exista
+     * @param time A data de modificação, em milissegundos
+     *
+     * @return O {@link ZipEntry} da pasta
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public ZipEntry addDirectory(String name, long time) throws IOException
+    {
+        return (addEntry(name.endsWith("/") ? name : name + "/", time, ZipEntry.STORED, 0, 0, 0, null));
+    }
+
+    /**
+     * Método que adiciona uma entrada já comprimida ao arquivo ZIP
+     *
+     * @param name O nome da entrada
+     * @param time A data de modificação, em milissegundos
+     * @param method {@link ZipEntry#DEFLATED} para dados comprimidos com um {@link java.util.zip.Deflater} sem cabeçalho (nowrap), ou
+     *        {@link ZipEntry#STORED} para dados sem compressão
+     * @param crc O CRC32 dos dados sem compressão
+     * @param compressedSize O tamanho dos dados comprimidos
+     * @param size O tamanho dos dados sem compressão
+     * @param data O canal de onde os dados comprimidos serão lidos, exatamente compressedSize bytes
+     *
+     * @return O {@link ZipEntry} da entrada
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public ZipEntry addEntry(String name, long time, int method, long crc, long compressedSize, long size, ReadableByteChannel data) throws IOException
+    {
+        checkState();
+
+        if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED)
+        {
+            throw new IllegalArgumentException("Método de compressão não suportado: " + method);
+        }
+
+        if (method == ZipEntry.STORED && compressedSize != size)
+        {
+            throw new ZipException("Uma entrada sem compressão deve ter o mesmo tamanho comprimido e original: " + name);
+        }
+
+        byte[] nameBytes = encodeName(name);
+        long offset = position;
+        int dosTime = toDosTime(time);
+        boolean zip64 = size >= ZIP32_LIMIT || compressedSize >= ZIP32_LIMIT;
+
+        header.clear();
+        header.putInt(LOCAL_HEADER);
+        header.putShort((short) (zip64 ? VERSION_ZIP64 : VERSION_DEFAULT));
+        header.putShort((short) FLAG_UTF8);
+        header.putShort((short) method);
+        header.putInt(dosTime);
+        header.putInt((int) crc);
+        header.putInt((int) (zip64 ? ZIP32_LIMIT : compressedSize));
+        header.putInt((int) (zip64 ? ZIP32_LIMIT : size));
+        header.putShort((short) nameBytes.length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(nameBytes);
+
+        if (zip64)
+        {
+            header.putShort((short) ZIP64_EXTRA);
+            header.putShort((short) 16);
+            header.putLong(size);
+            header.putLong(compressedSize);
+        }
+
+        try
+        {
+            writeHeader();
+
+            if (compressedSize > 0)
+            {
+                copy(data, compressedSize, name);
+            }
+
+            return (endEntry(name, nameBytes, time, dosTime, FLAG_UTF8, method, crc, compressedSize, size, offset));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // O cabeçalho já pode ter sido escrito, o arquivo ZIP não pode mais ser finalizado
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Método que adiciona uma entrada ao arquivo ZIP, comprimindo o conteúdo de um {@link InputStream} enquanto ele é lido
+     *
+     * @param name O nome da entrada
+     * @param time A data de modificação, em milissegundos
+     * @param in O {@link InputStream} com o conteúdo, lido até o final e não fechado
+     *
+     * @return O {@link ZipEntry} da entrada
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public ZipEntry addEntry(String name, long time, InputStream in) throws IOException
+    {
+        OutputStream out = openEntry(name, time);
+
+        try
+        {
+            if (inputBuffer == null)
+            {
+                inputBuffer = new byte[64 * 1024];
+            }
+
+            int read;
+
+            while ((read = in.read(inputBuffer)) > -1)
+            {
+                out.write(inputBuffer, 0, read);
+            }
+
+            out.close();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            abort();
+            throw e;
+        }
+
+        return (lastEntry);
+    }
+
+    /**
+     * Método que adiciona uma entrada ao arquivo ZIP a partir de um array de bytes
+     *
+     * @param name O nome da entrada
+     * @param time A data de modificação, em milissegundos
+     * @param data O conteúdo da entrada
+     *
+     * @return O {@link ZipEntry} da entrada
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public ZipEntry addEntry(String name, long time, byte[] data) throws IOException
+    {
+        OutputStream out = openEntry(name, time);
+
+        try
+        {
+            out.write(data);
+            out.close();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            abort();
+            throw e;
+        }
+
+        return (lastEntry);
+    }
+
+    /**
+     * Método que adiciona uma entrada ao arquivo ZIP cujo conteúdo é gerado por um {@link EntryProducer}, sem guardar o conteúdo em
+     * memória ou em disco
+     *
+     * @param name O nome da entrada
+     * @param time A data de modificação, em milissegundos
+     * @param producer O {@link EntryProducer} que escreve o conteúdo
+     *
+     * @return O {@link ZipEntry} da entrada
+     * @throws Exception Caso ocorra algum erro, inclusive no {@link EntryProducer}, uma exceção será lançada
+     */
+    public ZipEntry addEntry(String name, long time, EntryProducer producer) throws Exception
+    {
+        OutputStream out = openEntry(name, time);
+
+        try
+        {
+            producer.write(out);
+            out.close();
+        }
+        catch (Exception e)
+        {
+            // O conteúdo da entrada ficou incompleto, o arquivo ZIP não pode mais ser finalizado
+            abort();
+            throw e;
+        }
+
+        return (lastEntry);
+    }
+
+    /**
+     * Método que inicia uma entrada comprimida durante a escrita e retorna o {@link OutputStream} do seu conteúdo
+     * <p>
+     * A entrada termina quando o {@link OutputStream} é fechado, o que deve ocorrer antes de adicionar outra entrada ou finalizar o ZIP.
+     * Um erro no {@link OutputStream} aborta o arquivo ZIP. Um erro de quem escreve, fora do {@link OutputStream}, deve ser seguido de
+     * {@link #abort()}, para que o fechamento do {@link OutputStream} não finalize a entrada incompleta.
+     *
+     * @param name O nome da entrada
+     * @param time A data de modificação, em milissegundos
+     *
+     * @return O {@link OutputStream} do conteúdo da entrada
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public OutputStream openEntry(String name, long time) throws IOException
+    {
+        checkState();
+
+        byte[] nameBytes = encodeName(name);
+        long offset = position;
+        int dosTime = toDosTime(time);
+
+        header.clear();
+        header.putInt(LOCAL_HEADER);
+        header.putShort((short) VERSION_DEFAULT);
+        header.putShort((short) (FLAG_UTF8 | FLAG_DATA_DESCRIPTOR));
+        header.putShort((short) ZipEntry.DEFLATED);
+        header.putInt(dosTime);
+        header.putInt(0);
+        header.putInt(0);
+        header.putInt(0);
+        header.putShort((short) nameBytes.length);
+        header.putShort((short) 0);
+        header.put(nameBytes);
+
+        try
+        {
+            writeHeader();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            abort();
+            throw e;
+        }
+
+        if (deflater == null)
+        {
+            deflater = new Deflater(level, true);
+        }
+        else
+        {
+            deflater.reset();
+            deflater.setLevel(level);
+        }
+
+        current = new EntryOutputStream(name, nameBytes, time, dosTime, offset);
+
+        return (current);
+    }
+
+    /**
+     * Método que define o nível de compressão das próximas entradas comprimidas durante a escrita
+     *
+     * @param level O nível de compressão, de {@link Deflater#NO_COMPRESSION} a {@link Deflater#BEST_COMPRESSION}, ou
+     *        {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public void setLevel(int level)
+    {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+        {
+            throw new IllegalArgumentException("O nível de compressão deve estar entre -1 e 9.");
+        }
+
+        this.level = level;
+    }
+
+    public int getLevel()
+    {
+        return (level);
+    }
+
+    /**
+     * @return A quantidade de bytes escritos até o momento
+     */
+    public long getPosition()
+    {
+        return (position);
+    }
+
+    /**
+     * Método que escreve o diretório central, finalizando o arquivo ZIP sem fechar o canal
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    public void finish() throws IOException
+    {
+        if (finished)
+        {
+            return;
+        }
+
+        if (aborted)
+        {
+            throw new ZipException("O arquivo ZIP não pode ser finalizado, a escrita de uma entrada falhou.");
+        }
+
+        if (current != null)
+        {
+            current.close();
+        }
+
+        finished = true;
+
+        try
+        {
+            writeEndOfArchive();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Método que escreve o diretório central e os registros de fim do arquivo ZIP
+     */
+    private void writeEndOfArchive() throws IOException
+    {
+        long centralOffset = position;
+        byte[] central = centralDirectory.toByteArray();
+
+        writeBytes(ByteBuffer.wrap(central));
+
+        long centralSize = central.length;
+        boolean zip64 = entries >= ZIP16_LIMIT || centralOffset >= ZIP32_LIMIT || centralSize >= ZIP32_LIMIT;
+
+        header.clear();
+
+        if (zip64)
+        {
+            long zip64Offset = position;
+
+            header.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY);
+            header.putLong(44);
+            header.putShort((short) VERSION_ZIP64);
+            header.putShort((short) VERSION_ZIP64);
+            header.putInt(0);
+            header.putInt(0);
+            header.putLong(entries);
+            header.putLong(entries);
+            header.putLong(centralSize);
+            header.putLong(centralOffset);
+
+            header.putInt(ZIP64_END_LOCATOR);
+            header.putInt(0);
+            header.putLong(zip64Offset);
+            header.putInt(1);
+        }
+
+        header.putInt(END_OF_CENTRAL_DIRECTORY);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putShort((short) (zip64 ? ZIP16_LIMIT : entries));
+        header.putShort((short) (zip64 ? ZIP16_LIMIT : entries));
+        header.putInt((int) (zip64 ? ZIP32_LIMIT : centralSize));
+        header.putInt((int) (zip64 ? ZIP32_LIMIT : centralOffset));
+        header.putShort((short) 0);
+
+        writeHeader();
+    }
+
+    /**
+     * Método que aborta o arquivo ZIP: nenhuma entrada pode mais ser adicionada, a entrada aberta é descartada e o {@link #close()} fecha o
+     * canal sem escrever o diretório central, deixando um arquivo que não é um ZIP válido
+     */
+    public void abort()
+    {
+        aborted = true;
+    }
+
+    /**
+     * @return Se True, o arquivo ZIP foi abortado por {@link #abort()} ou por um erro na escrita de uma entrada
+     */
+    public boolean isAborted()
+    {
+        return (aborted);
+    }
+
+    /**
+     * Método que finaliza o arquivo ZIP e fecha o canal
+     *
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            if (!aborted)
+            {
+                finish();
+            }
+        }
+        finally
+        {
+            if (deflater != null)
+            {
+                deflater.end();
+            }
+
+            channel.close();
+        }
+    }
+
+    /**
+     * Método que registra a entrada escrita no diretório central e cria o seu {@link ZipEntry}
+     */
+    private ZipEntry endEntry(String name, byte[] nameBytes, long time, int dosTime, int flags, int method, long crc, long compressedSize, long size, long offset)
+    {
+        writeCentralHeader(nameBytes, dosTime, flags, method, crc, compressedSize, size, offset);
+        entries++;
+
+        ZipEntry retorno = new ZipEntry(name);
+        retorno.setTime(time);
+        retorno.setMethod(method);
+        retorno.setCrc(crc);
+        retorno.setCompressedSize(compressedSize);
+        retorno.setSize(size);
+
+        return (retorno);
+    }
+
+    /**
+     * Método que guarda o registro da entrada no diretório central, com os campos ZIP64 somente para os valores que passam do limite
+     */
+    private void writeCentralHeader(byte[] nameBytes, int dosTime, int flags, int method, long crc, long compressedSize, long size, long offset)
+    {
+        boolean zip64Size = size >= ZIP32_LIMIT;
+        boolean zip64Compressed = compressedSize >= ZIP32_LIMIT;
+        boolean zip64Offset = offset >= ZIP32_LIMIT;
+        int extraLength = (zip64Size ? 8 : 0) + (zip64Compressed ? 8 : 0) + (zip64Offset ? 8 : 0);
+        boolean directory = nameBytes.length > 0 && nameBytes[nameBytes.length - 1] == '/';
+        ByteBuffer record = ByteBuffer.allocate(46 + nameBytes.length + (extraLength > 0 ? extraLength + 4 : 0)).order(ByteOrder.LITTLE_ENDIAN);
+
+        record.putInt(CENTRAL_HEADER);
+        record.putShort((short) VERSION_ZIP64);
+        record.putShort((short) (extraLength > 0 ? VERSION_ZIP64 : VERSION_DEFAULT));
+        record.putShort((short) flags);
+        record.putShort((short) method);
+        record.putInt(dosTime);
+        record.putInt((int) crc);
+        record.putInt((int) (zip64Compressed ? ZIP32_LIMIT : compressedSize));
+        record.putInt((int) (zip64Size ? ZIP32_LIMIT : size));
+        record.putShort((short) nameBytes.length);
+        record.putShort((short) (extraLength > 0 ? extraLength + 4 : 0));
+        record.putShort((short) 0);
+        record.putShort((short) 0);
+        record.putShort((short) 0);
+        record.putInt(directory ? 0x10 : 0);
+        record.putInt((int) (zip64Offset ? ZIP32_LIMIT : offset));
+        record.put(nameBytes);
+
+        if (extraLength > 0)
+        {
+            record.putShort((short) ZIP64_EXTRA);
+            record.putShort((short) extraLength);
+
+            if (zip64Size)
+            {
+                record.putLong(size);
+            }
+
+            if (zip64Compressed)
+            {
+                record.putLong(compressedSize);
+            }
+
+            if (zip64Offset)
+            {
+                record.putLong(offset);
+            }
+        }
+
+        centralDirectory.write(record.array(), 0, record.position());
+    }
+
+    /**
+     * Método que copia exatamente length bytes do canal de dados para o arquivo ZIP
+     */
+    private void copy(ReadableByteChannel data, long length, String name) throws IOException
+    {
+        long remaining = length;
+
+        if (data instanceof FileChannel)
+        {
+            FileChannel file = (FileChannel) data;
+            long start = file.position();
+
+            while (remaining > 0)
+            {
+                long transferred = file.transferTo(start + length - remaining, remaining, channel);
+
+                if (transferred <= 0)
+                {
+                    break;
+                }
+
+                remaining -= transferred;
+                position += transferred;
+            }
+        }
+        else
+        {
+            while (remaining > 0)
+            {
+                copyBuffer.clear();
+
+                if (remaining < copyBuffer.capacity())
+                {
+                    copyBuffer.limit((int) remaining);
+                }
+
+                if (data.read(copyBuffer) < 0)
+                {
+                    break;
+                }
+
+                copyBuffer.flip();
+                remaining -= copyBuffer.remaining();
+                writeBytes(copyBuffer);
+            }
+        }
+
+        if (remaining > 0)
+        {
+            throw new ZipException("Os dados da entrada " + name + " terminaram antes do tamanho informado.");
+        }
+    }
+
+    private void checkState()
+    {
+        if (finished || aborted)
+        {
+            throw new IllegalStateException("O arquivo ZIP já foi finalizado ou a escrita de uma entrada falhou.");
+        }
+
+        if (current != null)
+        {
+            throw new IllegalStateException("A entrada anterior ainda está aberta.");
+        }
+    }
+
+    private byte[] encodeName(String name)
+    {
+        byte[] retorno = name.getBytes(StandardCharsets.UTF_8);
+
+        if (retorno.length > ZIP16_LIMIT)
+        {
+            throw new IllegalArgumentException("O nome da entrada é grande demais: " + name);
+        }
+
+        return (retorno);
+    }
+
+    private void writeHeader() throws IOException
+    {
+        header.flip();
+        writeBytes(header);
+    }
+
+    private void writeBytes(ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            position += channel.write(buffer);
+        }
+    }
+
+    /**
+     * Método que converte uma data em milissegundos para o formato de data e hora do MS-DOS usado no ZIP, no fuso horário local
+     *
+     * @param time A data em milissegundos
+     *
+     * @return A data no formato do MS-DOS
+     */
+    static int toDosTime(long time)
+    {
+        LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+
+        if (date.getYear() < 1980)
+        {
+            return ((1 << 21) | (1 << 16));
+        }
+
+        return (((date.getYear() - 1980) << 25) | (date.getMonthValue() << 21) | (date.getDayOfMonth() << 16) | (date.getHour() << 11) | (date.getMinute() << 5) | (date.getSecond() >> 1));
+    }
+
+    /**
+     * Método que converte uma data no formato do MS-DOS usado no ZIP para milissegundos, no fuso horário local
+     *
+     * @param dosTime A data no formato do MS-DOS
+     *
+     * @return A data em milissegundos
+     */
+    static long fromDosTime(int dosTime)
+    {
+        LocalDateTime date = LocalDateTime.of(((dosTime >> 25) & 0x7F) + 1980, Math.max(1, Math.min(12, (dosTime >> 21) & 0x0F)), Math.max(1, (dosTime >> 16) & 0x1F), Math.min(23, (dosTime >> 11) & 0x1F), Math.min(59, (dosTime >> 5) & 0x3F), Math.min(59, (dosTime << 1) & 0x3E));
+
+        return (date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Interface que gera o conteúdo de uma entrada diretamente no arquivo ZIP
+     */
+    public interface EntryProducer
+    {
+        /**
+         * Método que escreve o conteúdo da entrada
+         *
+         * @param out O {@link OutputStream} da entrada, que não precisa ser fechado
+         *
+         * @throws Exception Caso ocorra algum erro uma exceção será lançada
+         */
+        void write(OutputStream out) throws Exception;
+    }
+
+    /**
+     * Conteúdo de uma entrada comprimida durante a escrita. Ao ser fechado, grava o descritor de dados, com os tamanhos em 8 bytes quando
+     * passam do limite do formato ZIP original
+     */
+    private final class EntryOutputStream extends OutputStream
+    {
+        private final String name;
+        private final byte[] nameBytes;
+        private final long time;
+        private final int dosTime;
+        private final long offset;
+        private final CRC32 crc = new CRC32();
+        private long size;
+        private boolean closed;
+
+        private EntryOutputStream(String name, byte[] nameBytes, long time, int dosTime, long offset)
+        {
+            this.name = name;
+            this.nameBytes = nameBytes;
+            this.time = time;
+            this.dosTime = dosTime;
+            this.offset = offset;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int off, int len) throws IOException
+        {
+            if (closed)
+            {
+                throw new IOException("A entrada " + name + " já foi fechada.");
+            }
+
+            if (aborted)
+            {
+                throw new ZipException("O arquivo ZIP foi abortado, a entrada " + name + " não pode ser escrita.");
+            }
+
+            if (len == 0)
+            {
+                return;
+            }
+
+            try
+            {
+                crc.update(data, off, len);
+                size += len;
+                deflater.setInput(data, off, len);
+
+                while (!deflater.needsInput())
+                {
+                    deflate();
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                abort();
+                throw e;
+            }
+        }
+
+        /**
+         * Método que termina a entrada gravando o descritor de dados, ou somente a descarta caso o arquivo ZIP tenha sido abortado
+         */
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+
+            closed = true;
+
+            if (aborted)
+            {
+                current = null;
+                return;
+            }
+
+            try
+            {
+                finishEntry();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                abort();
+                throw e;
+            }
+        }
+
+        private void finishEntry() throws IOException
+        {
+            deflater.finish();
+
+            while (!deflater.finished())
+            {
+                deflate();
+            }
+
+            long compressedSize = deflater.getBytesWritten();
+            boolean zip64 = size >= ZIP32_LIMIT || compressedSize >= ZIP32_LIMIT;
+
+            header.clear();
+            header.putInt(DATA_DESCRIPTOR);
+            header.putInt((int) crc.getValue());
+
+            if (zip64)
+            {
+                header.putLong(compressedSize);
+                header.putLong(size);
+            }
+            else
+            {
+                header.putInt((int) compressedSize);
+                header.putInt((int) size);
+            }
+
+            writeHeader();
+
+            current = null;
+            lastEntry = endEntry(name, nameBytes, time, dosTime, FLAG_UTF8 | FLAG_DATA_DESCRIPTOR, ZipEntry.DEFLATED, crc.getValue(), compressedSize, size, offset);
+        }
+
+        private void deflate() throws IOException
+        {
+            int length = deflater.deflate(copyBuffer.array());
+
+            if (length > 0)
+            {
+                writeBytes(ByteBuffer.wrap(copyBuffer.array(), 0, length));
+            }
+        }
+    }
+}
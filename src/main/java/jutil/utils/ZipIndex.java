@@ -0,0 +1,662 @@
+package jutil.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Classe que indexa o diretório central de um arquivo ZIP para listagens e buscas rápidas
+ * <p>
+ * O diretório central é lido uma única vez por um {@link MappedByteBuffer} e copiado para um buffer na heap, de forma que nenhum índice,
+ * nem os guardados em memória, mantém o arquivo mapeado, o que impediria apagá-lo no Windows e causaria erros caso ele fosse truncado.
+ * Cada entrada vira uma posição em arrays de tipos primitivos: a posição e o tamanho do nome dentro do buffer, os tamanhos, o CRC, o método e a data. Os nomes só são convertidos
+ * em {@link String} quando pedidos. A busca por nome usa uma tabela hash sobre os bytes do nome e a listagem por prefixo usa a ordem dos
+ * nomes, calculada na criação do índice. Os arquivos ZIP64 são suportados. O índice não é alterado depois de criado e pode ser usado por
+ * várias threads ao mesmo tempo.
+ * <p>
+ * O {@link #getIndex(File)} mantém os índices dos últimos arquivos consultados em memória, recriando o índice quando o arquivo é alterado.
+ *
+ * @author Diego Steyner
+ */
+public final class ZipIndex
+{
+    /**
+     * Quantidade de índices mantidos em memória pelo {@link #getIndex(File)}
+     */
+    public static final int CACHE_SIZE = 64;
+
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_END_LOCATOR = 0x07064b50;
+    private static final int ZIP64_EXTRA = 0x0001;
+    private static final int END_SIZE = 22;
+    private static final int LOCATOR_SIZE = 20;
+    private static final int ZIP64_END_SIZE = 56;
+    private static final int CENTRAL_SIZE = 46;
+    private static final long ZIP32_LIMIT = 0xFFFFFFFFL;
+
+    private static final Map<String, ZipIndex> CACHE = new LinkedHashMap<String, ZipIndex>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ZipIndex> eldest)
+        {
+            return (size() > CACHE_SIZE);
+        }
+    };
+
+    private final File file;
+    private final long fileSize;
+    private final long modified;
+    private final ByteBuffer central;
+    private final int count;
+    private final int[] nameOffsets;
+    private final int[] nameLengths;
+    private final int[] crcs;
+    private final int[] dosTimes;
+    private final short[] methods;
+    private final long[] sizes;
+    private final long[] compressedSizes;
+    private final long[] localOffsets;
+    private final int[] hashTable;
+    private final int[] sorted;
+
+    /**
+     * Construtor que lê o diretório central do arquivo
+     *
+     * @param file O arquivo ZIP
+     *
+     * @throws IOException Caso o arquivo não possa ser lido ou não seja um ZIP válido
+     */
+    public ZipIndex(File file) throws IOException
+    {
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+
+        this.file = file;
+        this.fileSize = attributes.size();
+        this.modified = attributes.lastModifiedTime().toMillis();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long[] directory = readEndOfCentralDirectory(channel);
+
+            if (directory[1] > Integer.MAX_VALUE || directory[2] + directory[1] > fileSize || directory[0] > Integer.MAX_VALUE)
+            {
+                throw new ZipException("O diretório central do arquivo " + file + " é inválido ou grande demais.");
+            }
+
+            this.count = (int) directory[0];
+            this.central = readRegion(channel, directory[2], directory[1]);
+        }
+
+        this.nameOffsets = new int[count];
+        this.nameLengths = new int[count];
+        this.crcs = new int[count];
+        this.dosTimes = new int[count];
+        this.methods = new short[count];
+        this.sizes = new long[count];
+        this.compressedSizes = new long[count];
+        this.localOffsets = new long[count];
+
+        readCentralDirectory();
+
+        this.hashTable = new int[Integer.highestOneBit(Math.max(1, count) * 2) * 2];
+        this.sorted = new int[count];
+
+        buildHashTable();
+        buildSortedOrder();
+    }
+
+    /**
+     * Método que retorna o índice de um arquivo ZIP, reaproveitando o índice guardado em memória caso o arquivo não tenha sido alterado
+     *
+     * @param file O arquivo ZIP
+     *
+     * @return O {@link ZipIndex} do arquivo
+     * @throws IOException Caso o arquivo não possa ser lido ou não seja um ZIP válido
+     */
+    public static ZipIndex getIndex(File file) throws IOException
+    {
+        String key = file.getCanonicalPath();
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        ZipIndex retorno;
+
+        synchronized (CACHE)
+        {
+            retorno = CACHE.get(key);
+        }
+
+        if (retorno != null && retorno.fileSize == attributes.size() && retorno.modified == attributes.lastModifiedTime().toMillis())
+        {
+            return (retorno);
+        }
+
+        retorno = new ZipIndex(file);
+
+        synchronized (CACHE)
+        {
+            CACHE.put(key, retorno);
+        }
+
+        return (retorno);
+    }
+
+    /**
+     * Método que descarta todos os índices guardados em memória
+     */
+    public static void clearCache()
+    {
+        synchronized (CACHE)
+        {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * @return A quantidade de entradas do arquivo ZIP
+     */
+    public int size()
+    {
+        return (count);
+    }
+
+    public File getFile()
+    {
+        return (file);
+    }
+
+    /**
+     * Método que busca a posição de uma entrada pelo nome. Caso o nome não seja encontrado, a pasta com o mesmo nome é buscada, como no
+     * {@link java.util.zip.ZipFile#getEntry(String)}
+     *
+     * @param name O nome da entrada
+     *
+     * @return A posição da entrada, ou -1 caso ela não exista
+     */
+    public int indexOf(String name)
+    {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int retorno = indexOf(bytes, bytes.length);
+
+        if (retorno < 0 && !name.endsWith("/"))
+        {
+            bytes = Arrays.copyOf(bytes, bytes.length + 1);
+            bytes[bytes.length - 1] = '/';
+            retorno = indexOf(bytes, bytes.length);
+        }
+
+        return (retorno);
+    }
+
+    /**
+     * @param name O nome da entrada
+     *
+     * @return Se True, a entrada existe no arquivo ZIP
+     */
+    public boolean contains(String name)
+    {
+        return (indexOf(name) > -1);
+    }
+
+    /**
+     * Método que busca uma entrada pelo nome
+     *
+     * @param name O nome da entrada
+     *
+     * @return O {@link ZipEntry} da entrada, ou null caso ela não exista
+     */
+    public ZipEntry getEntry(String name)
+    {
+        int index = indexOf(name);
+
+        return (index < 0 ? null : getEntry(index));
+    }
+
+    /**
+     * @param index A posição da entrada
+     *
+     * @return O {@link ZipEntry} da entrada
+     */
+    public ZipEntry getEntry(int index)
+    {
+        ZipEntry retorno = new ZipEntry(getName(index));
+
+        retorno.setTime(getTime(index));
+        retorno.setMethod(methods[index]);
+        retorno.setCrc(getCrc(index));
+        retorno.setSize(sizes[index]);
+        retorno.setCompressedSize(compressedSizes[index]);
+
+        return (retorno);
+    }
+
+    /**
+     * Método que lista, em ordem alfabética, os nomes das entradas que começam com um prefixo
+     *
+     * @param prefix O prefixo, como "pasta/", ou vazio para todas as entradas
+     *
+     * @return Um {@link List} com os nomes das entradas
+     */
+    public List<String> list(String prefix)
+    {
+        List<String> retorno = new ArrayList<String>();
+        byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count;
+
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (compareName(sorted[middle], bytes, bytes.length) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        for (int i = low; i < count && startsWith(sorted[i], bytes); i++)
+        {
+            retorno.add(getName(sorted[i]));
+        }
+
+        return (retorno);
+    }
+
+    /**
+     * @return Os nomes de todas as entradas, na ordem do arquivo ZIP
+     */
+    public List<String> getNames()
+    {
+        List<String> retorno = new ArrayList<String>(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            retorno.add(getName(i));
+        }
+
+        return (retorno);
+    }
+
+    public String getName(int index)
+    {
+        byte[] bytes = new byte[nameLengths[index]];
+
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = central.get(nameOffsets[index] + i);
+        }
+
+        return (new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    public boolean isDirectory(int index)
+    {
+        return (nameLengths[index] > 0 && central.get(nameOffsets[index] + nameLengths[index] - 1) == '/');
+    }
+
+    public long getSize(int index)
+    {
+        return (sizes[index]);
+    }
+
+    public long getCompressedSize(int index)
+    {
+        return (compressedSizes[index]);
+    }
+
+    public long getCrc(int index)
+    {
+        return (crcs[index] & ZIP32_LIMIT);
+    }
+
+    public int getMethod(int index)
+    {
+        return (methods[index]);
+    }
+
+    /**
+     * @param index A posição da entrada
+     *
+     * @return A data de modificação da entrada, em milissegundos
+     */
+    public long getTime(int index)
+    {
+        return (ZipArchiveWriter.fromDosTime(dosTimes[index]));
+    }
+
+    /**
+     * @param index A posição da entrada
+     *
+     * @return A posição do cabeçalho local da entrada dentro do arquivo ZIP
+     */
+    public long getLocalHeaderOffset(int index)
+    {
+        return (localOffsets[index]);
+    }
+
+    /**
+     * Método que lê uma parte do arquivo por um {@link MappedByteBuffer} e a copia para um buffer na heap, descartando o mapeamento
+     *
+     * @param channel O canal do arquivo
+     * @param position A posição da parte no arquivo
+     * @param size O tamanho da parte
+     *
+     * @return O buffer na heap, em little-endian
+     * @throws IOException Caso ocorra algum erro, inclusive se o arquivo for truncado durante a leitura
+     */
+    private ByteBuffer readRegion(FileChannel channel, long position, long size) throws IOException
+    {
+        ByteBuffer retorno = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+
+        try
+        {
+            retorno.put(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+        }
+        catch (InternalError e)
+        {
+            // Acesso a uma página que deixou de existir, o arquivo foi truncado durante a leitura
+            throw new ZipException("O arquivo " + file + " foi alterado durante a leitura do diretório central.");
+        }
+
+        retorno.clear();
+
+        return (retorno);
+    }
+
+    /**
+     * Método que localiza o fim do diretório central, usando o registro ZIP64 quando ele existir
+     *
+     * @param channel O canal do arquivo
+     *
+     * @return A quantidade de entradas, o tamanho e a posição do diretório central
+     * @throws IOException Caso o fim do diretório central não seja encontrado
+     */
+    private long[] readEndOfCentralDirectory(FileChannel channel) throws IOException
+    {
+        long tailSize = Math.min(fileSize, END_SIZE + 0xFFFF + LOCATOR_SIZE);
+        ByteBuffer tail = readRegion(channel, fileSize - tailSize, tailSize);
+
+        for (int end = (int) tailSize - END_SIZE; end >= 0; end--)
+        {
+            if (tail.getInt(end) != END_OF_CENTRAL_DIRECTORY || end + END_SIZE + (tail.getShort(end + 20) & 0xFFFF) != tailSize)
+            {
+                continue;
+            }
+
+            if (end >= LOCATOR_SIZE && tail.getInt(end - LOCATOR_SIZE) == ZIP64_END_LOCATOR)
+            {
+                long zip64Offset = tail.getLong(end - LOCATOR_SIZE + 8);
+
+                if (zip64Offset < 0 || zip64Offset + ZIP64_END_SIZE > fileSize)
+                {
+                    break;
+                }
+
+                ByteBuffer zip64 = readRegion(channel, zip64Offset, ZIP64_END_SIZE);
+
+                if (zip64.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY)
+                {
+                    break;
+                }
+
+                return (new long[] { zip64.getLong(32), zip64.getLong(40), zip64.getLong(48) });
+            }
+
+            return (new long[] { tail.getShort(end + 10) & 0xFFFF, tail.getInt(end + 12) & ZIP32_LIMIT, tail.getInt(end + 16) & ZIP32_LIMIT });
+        }
+
+        throw new ZipException("O arquivo " + file + " não é um ZIP válido.");
+    }
+
+    /**
+     * Método que percorre os registros do diretório central preenchendo os arrays do índice
+     *
+     * @throws ZipException Caso um registro seja inválido
+     */
+    private void readCentralDirectory() throws ZipException
+    {
+        int position = 0;
+        int limit = central.capacity();
+
+        for (int i = 0; i < count; i++)
+        {
+            if (position + CENTRAL_SIZE > limit || central.getInt(position) != CENTRAL_HEADER)
+            {
+                throw new ZipException("O diretório central do arquivo " + file + " é inválido na entrada " + i + ".");
+            }
+
+            int nameLength = central.getShort(position + 28) & 0xFFFF;
+            int extraLength = central.getShort(position + 30) & 0xFFFF;
+            int commentLength = central.getShort(position + 32) & 0xFFFF;
+
+            methods[i] = central.getShort(position + 10);
+            dosTimes[i] = central.getInt(position + 12);
+            crcs[i] = central.getInt(position + 16);
+            compressedSizes[i] = central.getInt(position + 20) & ZIP32_LIMIT;
+            sizes[i] = central.getInt(position + 24) & ZIP32_LIMIT;
+            localOffsets[i] = central.getInt(position + 42) & ZIP32_LIMIT;
+            nameOffsets[i] = position + CENTRAL_SIZE;
+            nameLengths[i] = nameLength;
+
+            if (position + CENTRAL_SIZE + nameLength + extraLength > limit)
+            {
+                throw new ZipException("O diretório central do arquivo " + file + " é inválido na entrada " + i + ".");
+            }
+
+            readZip64Extra(i, position + CENTRAL_SIZE + nameLength, extraLength);
+
+            position += CENTRAL_SIZE + nameLength + extraLength + commentLength;
+        }
+    }
+
+    /**
+     * Método que lê os valores ZIP64 de uma entrada, presentes somente para os campos que ficaram com o valor máximo no registro
+     */
+    private void readZip64Extra(int index, int start, int length)
+    {
+        int position = start;
+        int end = start + length;
+
+        while (position + 4 <= end)
+        {
+            int id = central.getShort(position) & 0xFFFF;
+            int size = central.getShort(position + 2) & 0xFFFF;
+            int data = position + 4;
+
+            if (id == ZIP64_EXTRA)
+            {
+                if (sizes[index] == ZIP32_LIMIT && data + 8 <= end)
+                {
+                    sizes[index] = central.getLong(data);
+                    data += 8;
+                }
+
+                if (compressedSizes[index] == ZIP32_LIMIT && data + 8 <= end)
+                {
+                    compressedSizes[index] = central.getLong(data);
+                    data += 8;
+                }
+
+                if (localOffsets[index] == ZIP32_LIMIT && data + 8 <= end)
+                {
+                    localOffsets[index] = central.getLong(data);
+                }
+
+                return;
+            }
+
+            position = data + size;
+        }
+    }
+
+    /**
+     * Método que monta a tabela hash de endereçamento aberto, guardando a posição da entrada mais um. Com nomes repetidos, a primeira
+     * entrada prevalece
+     */
+    private void buildHashTable()
+    {
+        int mask = hashTable.length - 1;
+
+        for (int i = 0; i < count; i++)
+        {
+            int slot = hash(nameOffsets[i], nameLengths[i]) & mask;
+
+            while (hashTable[slot] != 0)
+            {
+                if (equalsName(hashTable[slot] - 1, i))
+                {
+                    break;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            if (hashTable[slot] == 0)
+            {
+                hashTable[slot] = i + 1;
+            }
+        }
+    }
+
+    private void buildSortedOrder()
+    {
+        Integer[] order = new Integer[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            order[i] = i;
+        }
+
+        Arrays.sort(order, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer o1, Integer o2)
+            {
+                return (compareNames(o1, o2));
+            }
+        });
+
+        for (int i = 0; i < count; i++)
+        {
+            sorted[i] = order[i];
+        }
+    }
+
+    private int indexOf(byte[] name, int length)
+    {
+        int mask = hashTable.length - 1;
+        int hash = 0;
+
+        for (int i = 0; i < length; i++)
+        {
+            hash = 31 * hash + name[i];
+        }
+
+        for (int slot = hash & mask; hashTable[slot] != 0; slot = (slot + 1) & mask)
+        {
+            int index = hashTable[slot] - 1;
+
+            if (nameLengths[index] == length && compareName(index, name, length) == 0)
+            {
+                return (index);
+            }
+        }
+
+        return (-1);
+    }
+
+    private int hash(int offset, int length)
+    {
+        int retorno = 0;
+
+        for (int i = 0; i < length; i++)
+        {
+            retorno = 31 * retorno + central.get(offset + i);
+        }
+
+        return (retorno);
+    }
+
+    private boolean equalsName(int index1, int index2)
+    {
+        return (nameLengths[index1] == nameLengths[index2] && compareNames(index1, index2) == 0);
+    }
+
+    /**
+     * Método que compara os bytes de dois nomes sem sinal, o que no UTF-8 equivale à ordem dos caracteres
+     */
+    private int compareNames(int index1, int index2)
+    {
+        int length = Math.min(nameLengths[index1], nameLengths[index2]);
+
+        for (int i = 0; i < length; i++)
+        {
+            int b1 = central.get(nameOffsets[index1] + i) & 0xFF;
+            int b2 = central.get(nameOffsets[index2] + i) & 0xFF;
+
+            if (b1 != b2)
+            {
+                return (b1 - b2);
+            }
+        }
+
+        return (nameLengths[index1] - nameLengths[index2]);
+    }
+
+    private int compareName(int index, byte[] name, int nameLength)
+    {
+        int length = Math.min(nameLengths[index], nameLength);
+
+        for (int i = 0; i < length; i++)
+        {
+            int b1 = central.get(nameOffsets[index] + i) & 0xFF;
+            int b2 = name[i] & 0xFF;
+
+            if (b1 != b2)
+            {
+                return (b1 - b2);
+            }
+        }
+
+        return (nameLengths[index] - nameLength);
+    }
+
+    private boolean startsWith(int index, byte[] prefix)
+    {
+        if (nameLengths[index] < prefix.length)
+        {
+            return (false);
+        }
+
+        for (int i = 0; i < prefix.length; i++)
+        {
+            if (central.get(nameOffsets[index] + i) != prefix[i])
+            {
+                return (false);
+            }
+        }
+
+        return (true);
+    }
+}
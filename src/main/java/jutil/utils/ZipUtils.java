@@ -2,21 +2,53 @@ package jutil.utils;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import jutil.abstracts.AbstractUtils;
+import jutil.utils.FileUtils.FileWalkHandler;
 
 /**
  * Classe que possui metodos para se trabalhar com arquivos ZIP
@@ -27,6 +59,13 @@ public class ZipUtils extends AbstractUtils
 {
     public static final int TAMANHO_BUFFER = 2048;
 
+    /**
+     * Tamanho a partir do qual uma entrada comprimida em paralelo é guardada em um arquivo temporário em vez da memória
+     */
+    public static final int PARALLEL_MEMORY_LIMIT = 4 * 1024 * 1024;
+
+    private static final int PARALLEL_BUFFER_SIZE = 64 * 1024;
+
     public ZipUtils() 
     {
     }
@@ -61,11 +100,25 @@ public class ZipUtils extends AbstractUtils
             {
                 zip.close();
             }
-            
-            retorno.clear();
         }
     }
 
+    /**
+     * Método que lista, em ordem alfabética, os arquivos e pastas dentro de um Arquivo ZIP que começam com um prefixo
+     * <p>
+     * A listagem usa o {@link ZipIndex} do arquivo, que é mantido em memória para as próximas consultas enquanto o arquivo não for alterado.
+     * 
+     * @param zipFile O arquivo ZIP que se deseja listar
+     * @param prefix O prefixo, como "pasta/", ou vazio para todos os arquivos e pastas
+     * 
+     * @return Um {@link List} contendo o endereco dos arquivos e pastas que começam com o prefixo
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public List<String> getFilesInZip(File zipFile, String prefix) throws Exception
+    {
+        return (ZipIndex.getIndex(zipFile).list(prefix));
+    }
+
     /**
      * Método que lista todos os arquivos e pastas dentro de um Arquivo ZIP
      * 
@@ -96,14 +149,14 @@ public class ZipUtils extends AbstractUtils
             {
                 zip.close();
             }
-            
-            retorno.clear();
         }
     }
 
     /**
      * Método que extrai um arquivo ZIP em um determinado diretório
      * 
+     * @see #extractZipToDir(File, File, boolean, String, int)
+     * 
      * @param zipFile O arquivo ZIP a ser extraido
      * @param dir O diretório onde o arquivo deve ser extraido
      * @param createDir Se True, Caso o diretório de destino não exista, ele será criado
@@ -113,89 +166,211 @@ public class ZipUtils extends AbstractUtils
      */
     public boolean extractZipToDir(File zipFile, File dir, boolean createDir) throws Exception
     {
-        ZipFile zip = null;
-        File file = null;
-        InputStream is = null;
-        OutputStream os = null;
-        byte[] buffer = new byte[TAMANHO_BUFFER];
+        extractZipToDir(zipFile, dir, createDir, null, 1);
+        
+        return(Boolean.TRUE);
+    }
 
-        try 
+    /**
+     * Método que extrai as entradas de um arquivo ZIP que atendem a um filtro, em paralelo
+     * <p>
+     * As pastas necessárias são criadas uma única vez, antes da extração, a partir do diretório central do ZIP. Os arquivos são extraídos
+     * do mesmo {@link ZipFile} por várias threads, os maiores primeiro, e gravados diretamente em um {@link FileChannel}. As entradas cujo
+     * caminho sai do diretório de destino, como "../arquivo" ou caminhos absolutos, são rejeitadas antes de qualquer arquivo ser gravado.
+     * 
+     * @param zipFile O arquivo ZIP a ser extraido
+     * @param dir O diretório onde o arquivo deve ser extraido
+     * @param createDir Se True, Caso o diretório de destino não exista, ele será criado
+     * @param filter O filtro no formato de {@link java.nio.file.FileSystem#getPathMatcher(String)}, como "glob:**.xml" ou
+     *        "regex:.*\\.xml", aplicado ao caminho da entrada. Se Nulo, todas as entradas são extraídas
+     * @param threads A quantidade de threads que extraem os arquivos
+     * 
+     * @return Um {@link List} com os arquivos extraidos
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public List<File> extractZipToDir(File zipFile, File dir, boolean createDir, String filter, int threads) throws Exception
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("A quantidade de threads deve ser maior que zero.");
+        }
+        
+        if(createDir)
         {
-            if(createDir)
+            if (!dir.exists()) 
             {
-                if (!dir.exists()) 
+                dir.mkdirs();
+            }
+        }
+        
+        if (!dir.exists() || !dir.isDirectory()) 
+        {
+            throw new Exception("O diretório "+dir+" Não existe ou não é um diretório.");
+        }
+        
+        final Path target = dir.toPath().toAbsolutePath().normalize();
+        PathMatcher matcher = (filter == null) ? null : FileSystems.getDefault().getPathMatcher(filter);
+        List<ExtractEntry> files = new ArrayList<ExtractEntry>();
+        Set<Path> folders = new LinkedHashSet<Path>();
+        List<File> retorno = new ArrayList<File>();
+        
+        try (final ZipFile zip = new ZipFile(zipFile))
+        {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            
+            while (entries.hasMoreElements()) 
+            {
+                ZipEntry entry = entries.nextElement();
+                Path path = resolveEntry(target, entry.getName());
+                
+                if (path.equals(target) || (matcher != null && !matcher.matches(target.relativize(path))))
+                {
+                    continue;
+                }
+                
+                if (entry.isDirectory())
+                {
+                    folders.add(path);
+                }
+                else
                 {
-                    dir.mkdirs();
+                    folders.add(path.getParent());
+                    files.add(new ExtractEntry(entry, path));
                 }
             }
             
-            if (!dir.exists() || !dir.isDirectory()) 
+            for (Path folder : folders)
             {
-                throw new Exception("O diretório "+dir+" Não existe ou não é um diretório.");
+                Files.createDirectories(folder);
             }
             
-            zip = new ZipFile(zipFile);
-            Enumeration<? extends ZipEntry> entries = zip.entries();
-            ZipEntry entry = null;
-            
-            while (entries.hasMoreElements()) 
+            // Os maiores primeiro, para que um arquivo grande não fique sozinho no final
+            Collections.sort(files, new Comparator<ExtractEntry>()
             {
-                entry = (ZipEntry) entries.nextElement();
-                file = new File(dir, entry.getName());
-                
-                //se for diretório inexistente, cria a estrutura e pula pra próxima entrada
-                if (entry.isDirectory() && !file.exists()) 
+                @Override
+                public int compare(ExtractEntry o1, ExtractEntry o2)
                 {
-                    file.mkdirs();
-                    continue;
+                    return (Long.compare(o2.entry.getSize(), o1.entry.getSize()));
                 }
+            });
+            
+            ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger();
                 
-                //se a estrutura de diretórios não existe, cria
-                if (!file.getParentFile().exists()) 
+                @Override
+                public Thread newThread(Runnable runnable)
                 {
-                    file.getParentFile().mkdirs();
+                    Thread thread = new Thread(runnable, "ZipUtils-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return (thread);
                 }
+            });
+            
+            try
+            {
+                List<Future<File>> futures = new ArrayList<Future<File>>();
                 
-                try 
+                for (final ExtractEntry file : files)
                 {
-                    //lê o arquivo do zip e grava em disco
-                    is = zip.getInputStream(entry);
-                    os = new FileOutputStream(file);
-                    int bytesLidos = 0;
-                    
-                    if (is == null) 
+                    futures.add(pool.submit(new Callable<File>()
                     {
-                        throw new ZipException("Erro ao ler a entrada do zip: " + entry.getName());
-                    }
-                    
-                    while ((bytesLidos = is.read(buffer)) > 0) 
-                    {
-                        os.write(buffer, 0, bytesLidos);
-                    }
+                        @Override
+                        public File call() throws Exception
+                        {
+                            return (extractEntry(zip, file.entry, file.path));
+                        }
+                    }));
                 }
-                finally 
+                
+                for (Future<File> future : futures)
                 {
-                    if (is != null) 
+                    try
                     {
-                        is.close();
+                        retorno.add(future.get());
                     }
-                    
-                    if (os != null) 
+                    catch (ExecutionException e)
                     {
-                        os.close();
+                        throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
                     }
                 }
             }
+            finally
+            {
+                pool.shutdownNow();
+                // O ZipFile só pode ser fechado depois que nenhuma thread estiver lendo dele
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
         }
-        finally 
+        
+        return(retorno);
+    }
+
+    /**
+     * Método que resolve o caminho de uma entrada dentro do diretório de destino, rejeitando as entradas que saem dele (Zip Slip)
+     * 
+     * @param target O diretório de destino, absoluto e normalizado
+     * @param name O nome da entrada
+     * 
+     * @return O caminho da entrada
+     * @throws ZipException Caso a entrada saia do diretório de destino
+     */
+    private static Path resolveEntry(Path target, String name) throws ZipException
+    {
+        Path retorno;
+        
+        try
         {
-            if (zip != null) 
+            retorno = target.resolve(name).normalize();
+        }
+        catch (InvalidPathException e)
+        {
+            throw new ZipException("A entrada do zip possui um nome inválido: " + name);
+        }
+        
+        if (!retorno.startsWith(target))
+        {
+            throw new ZipException("A entrada do zip está fora do diretório de destino: " + name);
+        }
+        
+        return (retorno);
+    }
+
+    /**
+     * Método que grava uma entrada do ZIP em um arquivo, transferindo os dados descomprimidos diretamente para o {@link FileChannel}
+     * 
+     * @param zip O {@link ZipFile} aberto
+     * @param entry A entrada
+     * @param path O arquivo de destino
+     * 
+     * @return O arquivo gravado
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private static File extractEntry(ZipFile zip, ZipEntry entry, Path path) throws IOException
+    {
+        try (InputStream is = zip.getInputStream(entry); FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            if (is == null) 
             {
-                zip.close();
+                throw new ZipException("Erro ao ler a entrada do zip: " + entry.getName());
+            }
+            
+            ReadableByteChannel source = Channels.newChannel(is);
+            long position = 0;
+            long transferred;
+            
+            while ((transferred = channel.transferFrom(source, position, PARALLEL_BUFFER_SIZE * 16)) > 0)
+            {
+                position += transferred;
             }
         }
         
-        return(Boolean.TRUE);
+        if (entry.getTime() != -1)
+        {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(entry.getTime()));
+        }
+        
+        return (path.toFile());
     }
 
     /**
@@ -345,6 +520,295 @@ public class ZipUtils extends AbstractUtils
         }
     }
     
+    /**
+     * Método que cria um arquivo ZIP à partir do diretório informado, comprimindo os arquivos em paralelo
+     * <p>
+     * Cada arquivo é comprimido de forma independente por uma thread do pool, em memória ou, acima de {@link #PARALLEL_MEMORY_LIMIT},
+     * em um arquivo temporário. As entradas comprimidas são escritas no ZIP na ordem em que os arquivos foram encontrados, com o CRC e os
+     * tamanhos já nos cabeçalhos, e somente algumas entradas à frente da escrita são comprimidas ao mesmo tempo, limitando o espaço usado.
+     * Os arquivos que não diminuem com a compressão são guardados sem compressão. O ZIP64 é usado automaticamente para arquivos, posições
+     * ou quantidades de entradas acima dos limites do formato ZIP. Caso algum arquivo ou pasta não possa ser lido, o ZIP não é criado, e
+     * caso ocorra algum erro durante a escrita, o arquivo ZIP incompleto é apagado.
+     * 
+     * @param arqZip O endereço completo onde o arquivo ZIP deve ser salvo
+     * @param addRootFolder Se True, A Pasta informada será adicionada ao ZIP como RootFolder
+     * @param folder A Pasta que se deseja Zipar
+     * @param threads A quantidade de threads que comprimem os arquivos
+     * @param level O nível de compressão, de {@link Deflater#NO_COMPRESSION} a {@link Deflater#BEST_COMPRESSION}, ou
+     *        {@link Deflater#DEFAULT_COMPRESSION}
+     * 
+     * @return Um {@link List} com todos os arquivos internos do ZIP
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public List<ZipEntry> createZipFileFromFolderParallel(File arqZip, boolean addRootFolder, File folder, int threads, final int level) throws Exception
+    {
+        if (!folder.isDirectory()) 
+        {
+            throw new ZipException("O "+folder+" Não é um diretório ou não existe");
+        }
+        
+        if (threads < 1 || level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+        {
+            throw new IllegalArgumentException("A quantidade de threads deve ser maior que zero e o nível de compressão deve estar entre -1 e 9.");
+        }
+        
+        final Path root = folder.toPath().toAbsolutePath();
+        final String prefix = addRootFolder ? root.getFileName() + "/" : "";
+        final List<ParallelSource> sources = new ArrayList<ParallelSource>();
+        
+        if (addRootFolder)
+        {
+            sources.add(new ParallelSource(prefix, root, true, Files.getLastModifiedTime(root).toMillis()));
+        }
+        
+        // A leitura é estrita, uma pasta ilegível geraria um ZIP válido, mas incompleto
+        FileUtils.walkFiles(root.toString(), true, true, new FileWalkHandler()
+        {
+            @Override
+            public FileVisitResult handle(Path path, BasicFileAttributes attrs)
+            {
+                String name = prefix + root.relativize(path).toString().replace(File.separatorChar, '/');
+                
+                sources.add(new ParallelSource(attrs.isDirectory() ? name + "/" : name, path, attrs.isDirectory(), attrs.lastModifiedTime().toMillis()));
+                
+                return (FileVisitResult.CONTINUE);
+            }
+        });
+        
+        List<ZipEntry> retorno = new ArrayList<ZipEntry>();
+        Deque<Future<ParallelEntry>> window = new ArrayDeque<Future<ParallelEntry>>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "ZipUtils-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return (thread);
+            }
+        });
+        
+        try (ZipArchiveWriter writer = new ZipArchiveWriter(FileChannel.open(arqZip.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)))
+        {
+            try
+            {
+                for (final ParallelSource source : sources)
+                {
+                    window.add(pool.submit(new Callable<ParallelEntry>()
+                    {
+                        @Override
+                        public ParallelEntry call() throws Exception
+                        {
+                            return (compressEntry(source, level));
+                        }
+                    }));
+                    
+                    if (window.size() > threads * 2)
+                    {
+                        retorno.add(writeParallelEntry(writer, window.poll()));
+                    }
+                }
+                
+                while (!window.isEmpty())
+                {
+                    retorno.add(writeParallelEntry(writer, window.poll()));
+                }
+            }
+            catch (Exception e)
+            {
+                // Impede que o close() finalize um arquivo ZIP com somente parte das entradas
+                writer.abort();
+                throw e;
+            }
+        }
+        catch (Exception e)
+        {
+            try
+            {
+                Files.deleteIfExists(arqZip.toPath());
+            }
+            catch (IOException suppressed)
+            {
+                e.addSuppressed(suppressed);
+            }
+            
+            throw e;
+        }
+        finally 
+        {
+            pool.shutdown();
+            
+            // Cancela as entradas pendentes e descarta as comprimidas que não chegaram a ser escritas
+            for (Future<ParallelEntry> future : window)
+            {
+                try
+                {
+                    if (!future.cancel(false))
+                    {
+                        future.get().discard();
+                    }
+                }
+                catch (Exception e)
+                {
+                    // A entrada falhou ou foi cancelada, não existe nada a descartar
+                }
+            }
+        }
+        
+        return (retorno);
+    }
+    
+    /**
+     * Método que cria um {@link ZipArchiveWriter} para escrever um arquivo ZIP diretamente em um {@link OutputStream}, como uma resposta
+     * HTTP, a partir de {@link InputStream}, arrays de bytes ou conteúdos gerados, sem arquivos temporários
+     * 
+     * @param out O {@link OutputStream} onde o arquivo ZIP será escrito, fechado junto com o {@link ZipArchiveWriter}
+     * @param level O nível de compressão, de {@link Deflater#NO_COMPRESSION} a {@link Deflater#BEST_COMPRESSION}, ou
+     *        {@link Deflater#DEFAULT_COMPRESSION}
+     * 
+     * @return O {@link ZipArchiveWriter} criado, que deve ser fechado ao final
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    public ZipArchiveWriter createZipStream(OutputStream out, int level) throws Exception
+    {
+        return (new ZipArchiveWriter(new BufferedOutputStream(out, PARALLEL_BUFFER_SIZE), level));
+    }
+    
+    /**
+     * Método que comprime um arquivo com um {@link Deflater} sem cabeçalho, calculando o seu CRC32
+     * 
+     * @param source O arquivo
+     * @param level O nível de compressão
+     * 
+     * @return A entrada comprimida
+     * @throws IOException Caso ocorra algum erro uma exceção será lançada
+     */
+    private static ParallelEntry compressEntry(ParallelSource source, int level) throws IOException
+    {
+        ParallelEntry retorno = new ParallelEntry(source);
+        
+        if (source.directory)
+        {
+            return (retorno);
+        }
+        
+        CRC32 crc = new CRC32();
+        Deflater deflater = level == Deflater.NO_COMPRESSION ? null : new Deflater(level, true);
+        byte[] input = new byte[PARALLEL_BUFFER_SIZE];
+        byte[] output = new byte[PARALLEL_BUFFER_SIZE];
+        ParallelOutput out = new ParallelOutput();
+        
+        try (InputStream in = Files.newInputStream(source.path))
+        {
+            int read;
+            
+            while ((read = in.read(input)) > -1)
+            {
+                crc.update(input, 0, read);
+                retorno.size += read;
+                
+                if (deflater != null)
+                {
+                    deflater.setInput(input, 0, read);
+                    
+                    while (!deflater.needsInput())
+                    {
+                        out.write(output, 0, deflater.deflate(output));
+                    }
+                }
+            }
+            
+            if (deflater != null)
+            {
+                deflater.finish();
+                
+                while (!deflater.finished())
+                {
+                    out.write(output, 0, deflater.deflate(output));
+                }
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            out.discard();
+            throw e;
+        }
+        finally
+        {
+            if (deflater != null)
+            {
+                deflater.end();
+            }
+            
+            out.close();
+        }
+        
+        retorno.crc = crc.getValue();
+        
+        if (deflater != null && out.size < retorno.size)
+        {
+            retorno.method = ZipEntry.DEFLATED;
+            retorno.compressedSize = out.size;
+            retorno.memory = out.memory;
+            retorno.spill = out.spill;
+        }
+        else
+        {
+            // Guardado sem compressão, os dados são copiados do próprio arquivo
+            out.discard();
+            retorno.compressedSize = retorno.size;
+        }
+        
+        return (retorno);
+    }
+    
+    /**
+     * Método que espera uma entrada ser comprimida e a escreve no arquivo ZIP
+     * 
+     * @param writer O {@link ZipArchiveWriter} do arquivo ZIP
+     * @param future A entrada sendo comprimida
+     * 
+     * @return O {@link ZipEntry} escrito
+     * @throws Exception Caso ocorra algum erro uma exceção será lançada
+     */
+    private static ZipEntry writeParallelEntry(ZipArchiveWriter writer, Future<ParallelEntry> future) throws Exception
+    {
+        ParallelEntry entry;
+        
+        try
+        {
+            entry = future.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        }
+        
+        try
+        {
+            if (entry.source.directory)
+            {
+                return (writer.addDirectory(entry.source.name, entry.source.modified));
+            }
+            
+            if (entry.memory != null)
+            {
+                return (writer.addEntry(entry.source.name, entry.source.modified, entry.method, entry.crc, entry.compressedSize, entry.size, Channels.newChannel(new ByteArrayInputStream(entry.memory, 0, (int) entry.compressedSize))));
+            }
+            
+            try (FileChannel data = FileChannel.open(entry.spill != null ? entry.spill : entry.source.path, StandardOpenOption.READ))
+            {
+                return (writer.addEntry(entry.source.name, entry.source.modified, entry.method, entry.crc, entry.compressedSize, entry.size, data));
+            }
+        }
+        finally
+        {
+            entry.discard();
+        }
+    }
+    
     /**
      * Método que adiciona arquivos dentro do arquivo ZIP
      * 
@@ -437,4 +901,134 @@ public class ZipUtils extends AbstractUtils
             return(root.concat(file.getName()));
         }
     }
+    
+    /**
+     * Entrada do ZIP a ser extraída e o seu arquivo de destino
+     */
+    private static final class ExtractEntry
+    {
+        private final ZipEntry entry;
+        private final Path path;
+        
+        private ExtractEntry(ZipEntry entry, Path path)
+        {
+            this.entry = entry;
+            this.path = path;
+        }
+    }
+    
+    /**
+     * Arquivo ou pasta a ser adicionado ao ZIP em paralelo
+     */
+    private static final class ParallelSource
+    {
+        private final String name;
+        private final Path path;
+        private final boolean directory;
+        private final long modified;
+        
+        private ParallelSource(String name, Path path, boolean directory, long modified)
+        {
+            this.name = name;
+            this.path = path;
+            this.directory = directory;
+            this.modified = modified;
+        }
+    }
+    
+    /**
+     * Entrada comprimida e ainda não escrita no ZIP
+     */
+    private static final class ParallelEntry
+    {
+        private final ParallelSource source;
+        private int method = ZipEntry.STORED;
+        private long crc;
+        private long size;
+        private long compressedSize;
+        private byte[] memory;
+        private Path spill;
+        
+        private ParallelEntry(ParallelSource source)
+        {
+            this.source = source;
+        }
+        
+        private void discard() throws IOException
+        {
+            memory = null;
+            
+            if (spill != null)
+            {
+                Files.deleteIfExists(spill);
+                spill = null;
+            }
+        }
+    }
+    
+    /**
+     * Saída da compressão, que guarda os dados em memória até {@link ZipUtils#PARALLEL_MEMORY_LIMIT} e depois em um arquivo temporário
+     */
+    private static final class ParallelOutput
+    {
+        private byte[] memory = new byte[PARALLEL_BUFFER_SIZE];
+        private long size;
+        private Path spill;
+        private FileChannel channel;
+        
+        private void write(byte[] data, int offset, int length) throws IOException
+        {
+            if (channel == null && size + length > PARALLEL_MEMORY_LIMIT)
+            {
+                spill = Files.createTempFile("ziputils", ".deflate");
+                channel = FileChannel.open(spill, StandardOpenOption.WRITE);
+                writeFully(ByteBuffer.wrap(memory, 0, (int) size));
+                memory = null;
+            }
+            
+            if (channel != null)
+            {
+                writeFully(ByteBuffer.wrap(data, offset, length));
+            }
+            else
+            {
+                if (size + length > memory.length)
+                {
+                    memory = Arrays.copyOf(memory, (int) Math.min(PARALLEL_MEMORY_LIMIT, Math.max(memory.length * 2L, size + length)));
+                }
+                
+                System.arraycopy(data, offset, memory, (int) size, length);
+            }
+            
+            size += length;
+        }
+        
+        private void writeFully(ByteBuffer buffer) throws IOException
+        {
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+        
+        private void close() throws IOException
+        {
+            if (channel != null)
+            {
+                channel.close();
+            }
+        }
+        
+        private void discard() throws IOException
+        {
+            close();
+            memory = null;
+            
+            if (spill != null)
+            {
+                Files.deleteIfExists(spill);
+                spill = null;
+            }
+        }
+    }
 }
@@ -0,0 +1,818 @@
+package jutil.utils.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import jutil.data.enums.ColumnTypeEnum;
+
+/**
+ * Classe que materializa um {@link ResultSet} em memória no formato colunar, com arrays de tipos primitivos
+ * <p>
+ * Cada coluna numérica é armazenada em um único array primitivo (int[], long[] ou double[]) com um bitmap de nulos,
+ * e as colunas de texto são codificadas em um dicionário de valores distintos, ocupando uma fração da memória de uma
+ * lista de objetos e permitindo laços diretos sobre os arrays. Linhas e colunas são indexadas a partir de 0.
+ *
+ * @author Diego Steyner
+ */
+public final class ColumnarTable
+{
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Maior tamanho de array aceito com segurança pelas JVMs
+	 */
+	static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+	private final Column[] columns;
+	private final HashMap<String, Integer> columnIndexes = new HashMap<>();
+	private int rowCount;
+
+	/**
+	 * Interface usada para filtrar as linhas da tabela
+	 */
+	public interface RowFilter
+	{
+		/**
+		 * @param table A tabela
+		 * @param row O índice da linha
+		 * @return Se True, a linha será incluída no resultado
+		 */
+		boolean accept(ColumnarTable table, int row);
+	}
+
+	/**
+	 * Interface usada para percorrer as linhas da tabela
+	 */
+	public interface RowVisitor
+	{
+		/**
+		 * @param table A tabela
+		 * @param row O índice da linha
+		 */
+		void visit(ColumnarTable table, int row);
+	}
+
+	private ColumnarTable(Column[] columns)
+	{
+		this.columns = columns;
+
+		for (int i = 0; i < columns.length; i++)
+		{
+			columnIndexes.put(columns[i].name.toUpperCase(), i);
+		}
+	}
+
+	/**
+	 * Método que lê todas as linhas restantes do {@link ResultSet} para uma nova tabela colunar
+	 *
+	 * @param result O {@link ResultSet} a ser lido
+	 *
+	 * @return A tabela com os dados do {@link ResultSet}
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 * @throws IllegalStateException Caso o {@link ResultSet} tenha mais linhas do que um array comporta
+	 */
+	public static ColumnarTable fromResultSet(ResultSet result) throws SQLException
+	{
+		ResultSetMetaData metaData = result.getMetaData();
+		Column[] columns = new Column[metaData.getColumnCount()];
+
+		for (int i = 0; i < columns.length; i++)
+		{
+			columns[i] = createColumn(metaData, i+1);
+		}
+
+		ColumnarTable table = new ColumnarTable(columns);
+		int capacity = INITIAL_CAPACITY;
+
+		for (Column column : columns)
+		{
+			column.grow(capacity);
+		}
+
+		int row = 0;
+
+		while(result.next())
+		{
+			if(row == capacity)
+			{
+				capacity = nextCapacity(capacity);
+
+				for (Column column : columns)
+				{
+					column.grow(capacity);
+				}
+			}
+
+			for (int i = 0; i < columns.length; i++)
+			{
+				columns[i].read(result, i+1, row);
+			}
+
+			row++;
+		}
+
+		for (Column column : columns)
+		{
+			column.grow(row);
+		}
+
+		table.rowCount = row;
+
+		return(table);
+	}
+
+	/**
+	 * Método que calcula a nova capacidade de um array, dobrando-a sem passar do limite de tamanho de um array
+	 *
+	 * @param capacity A capacidade atual
+	 *
+	 * @return A nova capacidade
+	 * @throws IllegalStateException Caso a capacidade atual já seja o limite
+	 */
+	static int nextCapacity(int capacity)
+	{
+		if(capacity >= MAX_CAPACITY)
+		{
+			throw new IllegalStateException("A tabela não comporta mais de "+MAX_CAPACITY+" linhas.");
+		}
+
+		return(capacity > (MAX_CAPACITY >> 1) ? MAX_CAPACITY : capacity << 1);
+	}
+
+	/**
+	 * Método que cria a coluna adequada para o tipo SQL
+	 *
+	 * @param metaData O {@link ResultSetMetaData} do {@link ResultSet}
+	 * @param colIndex O índice da coluna no {@link ResultSet}
+	 *
+	 * @return A coluna criada
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	private static Column createColumn(ResultSetMetaData metaData, int colIndex) throws SQLException
+	{
+		final String name = metaData.getColumnLabel(colIndex);
+
+		switch (metaData.getColumnType(colIndex))
+		{
+			case Types.INTEGER:
+			case Types.SMALLINT:
+			case Types.TINYINT:
+			case Types.BIT:
+			case Types.BOOLEAN:
+				return(new IntColumn(name, metaData.getColumnType(colIndex) == Types.BIT || metaData.getColumnType(colIndex) == Types.BOOLEAN));
+			case Types.BIGINT:
+				return(new LongColumn(name, ColumnTypeEnum.LONG));
+			case Types.NUMERIC:
+			case Types.DECIMAL:
+				if(metaData.getScale(colIndex) == 0 && metaData.getPrecision(colIndex) > 0 && metaData.getPrecision(colIndex) <= 18)
+				{
+					return(new LongColumn(name, ColumnTypeEnum.LONG));
+				}
+
+				return(new ObjectColumn(name));
+			case Types.DOUBLE:
+			case Types.FLOAT:
+			case Types.REAL:
+				return(new DoubleColumn(name));
+			case Types.DATE:
+			case Types.TIME:
+			case Types.TIMESTAMP:
+				return(new LongColumn(name, ColumnTypeEnum.TIMESTAMP));
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+			case Types.LONGNVARCHAR:
+				return(new StringColumn(name));
+			default:
+				return(new ObjectColumn(name));
+		}
+	}
+
+	/**
+	 * Método que retorna os índices das linhas aceitas pelo filtro
+	 *
+	 * @param filter O filtro das linhas
+	 *
+	 * @return Os índices das linhas aceitas, em ordem crescente
+	 */
+	public int[] filter(RowFilter filter)
+	{
+		int[] rows = new int[16];
+		int size = 0;
+
+		for (int row = 0; row < rowCount; row++)
+		{
+			if(filter.accept(this, row))
+			{
+				if(size == rows.length)
+				{
+					rows = Arrays.copyOf(rows, nextCapacity(size));
+				}
+
+				rows[size++] = row;
+			}
+		}
+
+		return(Arrays.copyOf(rows, size));
+	}
+
+	/**
+	 * Método que retorna os índices das linhas em que o valor numérico da coluna está entre min e max (inclusive), ignorando nulos
+	 *
+	 * @param column O índice da coluna numérica
+	 * @param min O valor mínimo
+	 * @param max O valor máximo
+	 *
+	 * @return Os índices das linhas aceitas, em ordem crescente
+	 */
+	public int[] filterRange(int column, double min, double max)
+	{
+		Column col = columns[column];
+		int[] rows = new int[16];
+		int size = 0;
+
+		for (int row = 0; row < rowCount; row++)
+		{
+			if(!col.isNull(row))
+			{
+				double value = col.getDouble(row);
+
+				if(value >= min && value <= max)
+				{
+					if(size == rows.length)
+					{
+						rows = Arrays.copyOf(rows, nextCapacity(size));
+					}
+
+					rows[size++] = row;
+				}
+			}
+		}
+
+		return(Arrays.copyOf(rows, size));
+	}
+
+	/**
+	 * Método que retorna os índices das linhas em que a coluna de texto é igual ao valor, comparando somente os códigos do dicionário
+	 *
+	 * @param column O índice da coluna de texto
+	 * @param value O valor procurado
+	 *
+	 * @return Os índices das linhas aceitas, em ordem crescente
+	 */
+	public int[] filterEquals(int column, String value)
+	{
+		StringColumn col = stringColumn(column);
+		Integer code = col.dictionaryIndex.get(value);
+
+		if(code == null)
+		{
+			return(new int[0]);
+		}
+
+		final int vcode = code.intValue();
+		final int[] codes = col.codes;
+		int[] rows = new int[16];
+		int size = 0;
+
+		for (int row = 0; row < rowCount; row++)
+		{
+			if(codes[row] == vcode)
+			{
+				if(size == rows.length)
+				{
+					rows = Arrays.copyOf(rows, nextCapacity(size));
+				}
+
+				rows[size++] = row;
+			}
+		}
+
+		return(Arrays.copyOf(rows, size));
+	}
+
+	/**
+	 * Método que percorre todas as linhas da tabela
+	 *
+	 * @param visitor O visitante de cada linha
+	 */
+	public void scan(RowVisitor visitor)
+	{
+		for (int row = 0; row < rowCount; row++)
+		{
+			visitor.visit(this, row);
+		}
+	}
+
+	/**
+	 * Método que percorre somente as linhas informadas, normalmente o resultado de um filtro
+	 *
+	 * @param rows Os índices das linhas
+	 * @param visitor O visitante de cada linha
+	 */
+	public void scan(int[] rows, RowVisitor visitor)
+	{
+		for (int row : rows)
+		{
+			visitor.visit(this, row);
+		}
+	}
+
+	/**
+	 * Método que retorna o índice de uma coluna pelo nome, sem diferenciar maiúsculas e minúsculas
+	 *
+	 * @param columnName O nome da coluna
+	 *
+	 * @return O índice da coluna
+	 * @throws IllegalArgumentException Caso a coluna não exista
+	 */
+	public int findColumn(String columnName)
+	{
+		Integer index = columnIndexes.get(columnName.toUpperCase());
+
+		if(index == null)
+		{
+			throw new IllegalArgumentException("A coluna [ "+columnName+" ] não existe na tabela.");
+		}
+
+		return(index.intValue());
+	}
+
+	public int getRowCount()
+	{
+		return rowCount;
+	}
+
+	public int getColumnCount()
+	{
+		return columns.length;
+	}
+
+	public String getColumnName(int column)
+	{
+		return columns[column].name;
+	}
+
+	public ColumnTypeEnum getColumnType(int column)
+	{
+		return columns[column].type;
+	}
+
+	public boolean isNull(int row, int column)
+	{
+		return columns[column].isNull(row);
+	}
+
+	public int getInt(int row, int column)
+	{
+		return columns[column].getInt(row);
+	}
+
+	public boolean getBoolean(int row, int column)
+	{
+		return columns[column].getInt(row) != 0;
+	}
+
+	public long getLong(int row, int column)
+	{
+		return columns[column].getLong(row);
+	}
+
+	public double getDouble(int row, int column)
+	{
+		return columns[column].getDouble(row);
+	}
+
+	public String getString(int row, int column)
+	{
+		Object value = columns[column].getObject(row);
+
+		return(value == null ? null : value.toString());
+	}
+
+	public Timestamp getTimestamp(int row, int column)
+	{
+		if(columns[column].type != ColumnTypeEnum.TIMESTAMP)
+		{
+			throw columns[column].incompatible(ColumnTypeEnum.TIMESTAMP);
+		}
+
+		return(columns[column].isNull(row) ? null : new Timestamp(columns[column].getLong(row)));
+	}
+
+	public Object getObject(int row, int column)
+	{
+		return columns[column].getObject(row);
+	}
+
+	/**
+	 * Método que retorna o array que armazena uma coluna do tipo {@link ColumnTypeEnum#INT}, sem cópia
+	 *
+	 * @param column O índice da coluna
+	 *
+	 * @return O array da coluna, com tamanho igual a {@link #getRowCount()}
+	 */
+	public int[] getIntColumn(int column)
+	{
+		if(!(columns[column] instanceof IntColumn))
+		{
+			throw columns[column].incompatible(ColumnTypeEnum.INT);
+		}
+
+		return(((IntColumn) columns[column]).values);
+	}
+
+	/**
+	 * Método que retorna o array que armazena uma coluna do tipo {@link ColumnTypeEnum#LONG} ou {@link ColumnTypeEnum#TIMESTAMP}, sem cópia
+	 *
+	 * @param column O índice da coluna
+	 *
+	 * @return O array da coluna, com tamanho igual a {@link #getRowCount()}
+	 */
+	public long[] getLongColumn(int column)
+	{
+		if(!(columns[column] instanceof LongColumn))
+		{
+			throw columns[column].incompatible(ColumnTypeEnum.LONG);
+		}
+
+		return(((LongColumn) columns[column]).values);
+	}
+
+	/**
+	 * Método que retorna o array que armazena uma coluna do tipo {@link ColumnTypeEnum#DOUBLE}, sem cópia
+	 *
+	 * @param column O índice da coluna
+	 *
+	 * @return O array da coluna, com tamanho igual a {@link #getRowCount()}
+	 */
+	public double[] getDoubleColumn(int column)
+	{
+		if(!(columns[column] instanceof DoubleColumn))
+		{
+			throw columns[column].incompatible(ColumnTypeEnum.DOUBLE);
+		}
+
+		return(((DoubleColumn) columns[column]).values);
+	}
+
+	/**
+	 * Método que retorna os códigos do dicionário de uma coluna do tipo {@link ColumnTypeEnum#STRING}, sem cópia. Linhas nulas possuem o código -1.
+	 *
+	 * @param column O índice da coluna
+	 *
+	 * @return Os códigos da coluna, com tamanho igual a {@link #getRowCount()}
+	 * @see #getDictionary(int)
+	 */
+	public int[] getStringCodes(int column)
+	{
+		return(stringColumn(column).codes);
+	}
+
+	/**
+	 * Método que retorna o dicionário de valores distintos de uma coluna do tipo {@link ColumnTypeEnum#STRING}
+	 *
+	 * @param column O índice da coluna
+	 *
+	 * @return Os valores distintos, indexados pelo código
+	 */
+	public String[] getDictionary(int column)
+	{
+		ArrayList<String> dictionary = stringColumn(column).dictionary;
+
+		return(dictionary.toArray(new String[dictionary.size()]));
+	}
+
+	private StringColumn stringColumn(int column)
+	{
+		if(!(columns[column] instanceof StringColumn))
+		{
+			throw columns[column].incompatible(ColumnTypeEnum.STRING);
+		}
+
+		return((StringColumn) columns[column]);
+	}
+
+	/**
+	 * Coluna base, com o bitmap de nulos
+	 */
+	private abstract static class Column
+	{
+		final String name;
+		final ColumnTypeEnum type;
+		long[] nulls = new long[0];
+
+		Column(String name, ColumnTypeEnum type)
+		{
+			this.name = name;
+			this.type = type;
+		}
+
+		abstract void read(ResultSet result, int colIndex, int row) throws SQLException;
+
+		abstract Object getObject(int row);
+
+		void grow(int capacity)
+		{
+			nulls = Arrays.copyOf(nulls, (int) ((capacity + 63L) >>> 6));
+		}
+
+		void setNull(int row)
+		{
+			nulls[row >>> 6] |= 1L << row;
+		}
+
+		boolean isNull(int row)
+		{
+			return((nulls[row >>> 6] & (1L << row)) != 0);
+		}
+
+		int getInt(int row)
+		{
+			throw incompatible(ColumnTypeEnum.INT);
+		}
+
+		long getLong(int row)
+		{
+			throw incompatible(ColumnTypeEnum.LONG);
+		}
+
+		double getDouble(int row)
+		{
+			throw incompatible(ColumnTypeEnum.DOUBLE);
+		}
+
+		IllegalStateException incompatible(ColumnTypeEnum requested)
+		{
+			return(new IllegalStateException("A coluna [ "+name+" ] é do tipo [ "+type+" ] e não pode ser lida como [ "+requested+" ]."));
+		}
+	}
+
+	private static final class IntColumn extends Column
+	{
+		private final boolean bool;
+		int[] values = new int[0];
+
+		IntColumn(String name, boolean bool)
+		{
+			super(name, ColumnTypeEnum.INT);
+			this.bool = bool;
+		}
+
+		@Override
+		void read(ResultSet result, int colIndex, int row) throws SQLException
+		{
+			values[row] = bool ? (result.getBoolean(colIndex) ? 1 : 0) : result.getInt(colIndex);
+
+			if(result.wasNull())
+			{
+				setNull(row);
+			}
+		}
+
+		@Override
+		void grow(int capacity)
+		{
+			super.grow(capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		Object getObject(int row)
+		{
+			if(isNull(row))
+			{
+				return(null);
+			}
+
+			return(bool ? (Object) Boolean.valueOf(values[row] != 0) : (Object) Integer.valueOf(values[row]));
+		}
+
+		@Override
+		int getInt(int row)
+		{
+			return(values[row]);
+		}
+
+		@Override
+		long getLong(int row)
+		{
+			return(values[row]);
+		}
+
+		@Override
+		double getDouble(int row)
+		{
+			return(values[row]);
+		}
+	}
+
+	private static final class LongColumn extends Column
+	{
+		long[] values = new long[0];
+
+		LongColumn(String name, ColumnTypeEnum type)
+		{
+			super(name, type);
+		}
+
+		@Override
+		void read(ResultSet result, int colIndex, int row) throws SQLException
+		{
+			if(type == ColumnTypeEnum.TIMESTAMP)
+			{
+				Timestamp timestamp = result.getTimestamp(colIndex);
+
+				if(timestamp == null)
+				{
+					setNull(row);
+				}
+				else
+				{
+					values[row] = timestamp.getTime();
+				}
+			}
+			else
+			{
+				values[row] = result.getLong(colIndex);
+
+				if(result.wasNull())
+				{
+					setNull(row);
+				}
+			}
+		}
+
+		@Override
+		void grow(int capacity)
+		{
+			super.grow(capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		Object getObject(int row)
+		{
+			if(isNull(row))
+			{
+				return(null);
+			}
+
+			return(type == ColumnTypeEnum.TIMESTAMP ? (Object) new Timestamp(values[row]) : (Object) Long.valueOf(values[row]));
+		}
+
+		@Override
+		long getLong(int row)
+		{
+			return(values[row]);
+		}
+
+		@Override
+		double getDouble(int row)
+		{
+			return(values[row]);
+		}
+	}
+
+	private static final class DoubleColumn extends Column
+	{
+		double[] values = new double[0];
+
+		DoubleColumn(String name)
+		{
+			super(name, ColumnTypeEnum.DOUBLE);
+		}
+
+		@Override
+		void read(ResultSet result, int colIndex, int row) throws SQLException
+		{
+			values[row] = result.getDouble(colIndex);
+
+			if(result.wasNull())
+			{
+				setNull(row);
+			}
+		}
+
+		@Override
+		void grow(int capacity)
+		{
+			super.grow(capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		Object getObject(int row)
+		{
+			return(isNull(row) ? null : Double.valueOf(values[row]));
+		}
+
+		@Override
+		double getDouble(int row)
+		{
+			return(values[row]);
+		}
+	}
+
+	private static final class StringColumn extends Column
+	{
+		final ArrayList<String> dictionary = new ArrayList<>();
+		final HashMap<String, Integer> dictionaryIndex = new HashMap<>();
+		int[] codes = new int[0];
+
+		StringColumn(String name)
+		{
+			super(name, ColumnTypeEnum.STRING);
+		}
+
+		@Override
+		void read(ResultSet result, int colIndex, int row) throws SQLException
+		{
+			String value = result.getString(colIndex);
+
+			if(value == null)
+			{
+				setNull(row);
+				codes[row] = -1;
+				return;
+			}
+
+			Integer code = dictionaryIndex.get(value);
+
+			if(code == null)
+			{
+				code = dictionary.size();
+				dictionary.add(value);
+				dictionaryIndex.put(value, code);
+			}
+
+			codes[row] = code.intValue();
+		}
+
+		@Override
+		void grow(int capacity)
+		{
+			super.grow(capacity);
+			codes = Arrays.copyOf(codes, capacity);
+		}
+
+		@Override
+		Object getObject(int row)
+		{
+			return(codes[row] < 0 ? null : dictionary.get(codes[row]));
+		}
+	}
+
+	private static final class ObjectColumn extends Column
+	{
+		Object[] values = new Object[0];
+
+		ObjectColumn(String name)
+		{
+			super(name, ColumnTypeEnum.OBJECT);
+		}
+
+		@Override
+		void read(ResultSet result, int colIndex, int row) throws SQLException
+		{
+			values[row] = result.getObject(colIndex);
+
+			if(values[row] == null)
+			{
+				setNull(row);
+			}
+		}
+
+		@Override
+		void grow(int capacity)
+		{
+			super.grow(capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		Object getObject(int row)
+		{
+			return(values[row]);
+		}
+
+		@Override
+		double getDouble(int row)
+		{
+			if(values[row] instanceof Number)
+			{
+				return(((Number) values[row]).doubleValue());
+			}
+
+			return(super.getDouble(row));
+		}
+	}
+}
@@ -0,0 +1,763 @@
+package jutil.utils.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jutil.data.dtos.JdbcConnectionDTO;
+import jutil.data.enums.JdbcEnum;
+
+/**
+ * Classe que implementa um pool de conexões JDBC simples, criado a partir de um {@link JdbcEnum} e de um {@link JdbcConnectionDTO}
+ * <p>
+ * As conexões entregues pelo pool são proxies, e chamar {@link Connection#close()} devolve a conexão ao pool ao invés de fechá-la.
+ * Os {@link Statement} abertos pela conexão e ainda não fechados são fechados na devolução, e os {@link Statement} e o {@link DatabaseMetaData}
+ * obtidos dela retornam o proxy em {@code getConnection()}, nunca a conexão física.
+ * O empréstimo de uma conexão ociosa não usa locks, somente um {@link Semaphore} que limita o tamanho máximo e uma fila concorrente.
+ * Uma thread de manutenção fecha as conexões ociosas há mais tempo que o configurado e mantém o tamanho mínimo do pool.
+ *
+ * @author Diego Steyner
+ */
+public class JdbcConnectionPool implements AutoCloseable
+{
+	/**
+	 * Tempo padrão de espera por uma conexão livre, em milissegundos
+	 */
+	public static final long DEFAULT_BORROW_TIMEOUT = 30000L;
+
+	/**
+	 * Tempo padrão que uma conexão pode ficar ociosa antes de ser fechada, em milissegundos
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT = 600000L;
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	private final JdbcEnum driver;
+	private final JdbcConnectionDTO info;
+	private final boolean autoCommit;
+	private final int minSize;
+	private final int maxSize;
+	private final long borrowTimeout;
+	private final long idleTimeout;
+	private final boolean validateOnBorrow;
+
+	private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+	private final Semaphore permits;
+	private final ScheduledExecutorService evictor;
+
+	private final AtomicInteger totalCount = new AtomicInteger();
+	private final AtomicInteger activeCount = new AtomicInteger();
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	private volatile boolean closed;
+
+	/**
+	 * Construtor que cria um pool com os tempos padrão, validação no empréstimo e commit automático
+	 *
+	 * @param driver O ENUM {@link JdbcEnum} do banco que se deseja conectar
+	 * @param info As informações de conexão
+	 * @param minSize A quantidade mínima de conexões mantidas abertas
+	 * @param maxSize A quantidade máxima de conexões abertas
+	 *
+	 * @throws Exception Caso ocorra algum erro uma excessão será lançada
+	 */
+	public JdbcConnectionPool(JdbcEnum driver, JdbcConnectionDTO info, int minSize, int maxSize) throws Exception
+	{
+		this(driver, info, true, minSize, maxSize, DEFAULT_BORROW_TIMEOUT, DEFAULT_IDLE_TIMEOUT, true);
+	}
+
+	/**
+	 * Construtor
+	 *
+	 * @param driver O ENUM {@link JdbcEnum} do banco que se deseja conectar
+	 * @param info As informações de conexão
+	 * @param autoCommit Se True, as conexões farão o commit automático.
+	 * @param minSize A quantidade mínima de conexões mantidas abertas
+	 * @param maxSize A quantidade máxima de conexões abertas
+	 * @param borrowTimeout O tempo máximo de espera por uma conexão livre, em milissegundos
+	 * @param idleTimeout O tempo que uma conexão pode ficar ociosa antes de ser fechada, em milissegundos
+	 * @param validateOnBorrow Se True, as conexões ociosas serão validadas com {@link Connection#isValid(int)} antes de serem entregues
+	 *
+	 * @throws Exception Caso ocorra algum erro uma excessão será lançada
+	 */
+	public JdbcConnectionPool(JdbcEnum driver, JdbcConnectionDTO info, boolean autoCommit, int minSize, int maxSize, long borrowTimeout, long idleTimeout, boolean validateOnBorrow) throws Exception
+	{
+		if(minSize < 0 || maxSize < 1 || minSize > maxSize)
+		{
+			throw new IllegalArgumentException("Os tamanhos do pool devem respeitar 0 <= minimo <= maximo e maximo > 0.");
+		}
+
+		Class.forName(driver.getDriver());
+
+		this.driver = driver;
+		this.info = info;
+		this.autoCommit = autoCommit;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.borrowTimeout = borrowTimeout;
+		this.idleTimeout = idleTimeout;
+		this.validateOnBorrow = validateOnBorrow;
+		this.permits = new Semaphore(maxSize, true);
+
+		try
+		{
+			fillToMinimum();
+		}
+		catch (SQLException | RuntimeException e)
+		{
+			PooledConnection pooled;
+
+			while((pooled = idle.pollFirst()) != null)
+			{
+				destroy(pooled);
+			}
+
+			throw e;
+		}
+
+		final long period = Math.max(1000L, idleTimeout / 2);
+
+		this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "JdbcConnectionPool-evictor");
+				thread.setDaemon(true);
+				return(thread);
+			}
+		});
+
+		this.evictor.scheduleWithFixedDelay(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				evictIdleConnections();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Método que empresta uma conexão do pool, esperando até o tempo máximo configurado caso todas estejam em uso
+	 * <p>
+	 * A conexão deve ser devolvida chamando {@link Connection#close()}
+	 *
+	 * @return A conexão emprestada
+	 * @throws SQLTimeoutException Caso nenhuma conexão fique livre dentro do tempo máximo de espera
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	public Connection getConnection() throws SQLException
+	{
+		if(closed)
+		{
+			throw new SQLException("O pool de conexões já foi fechado.");
+		}
+
+		final long start = System.nanoTime();
+
+		if(!permits.tryAcquire())
+		{
+			try
+			{
+				if(!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS))
+				{
+					timeoutCount.incrementAndGet();
+					throw new SQLTimeoutException("Nenhuma conexão ficou livre em "+borrowTimeout+" ms (ativas: "+activeCount.get()+", maximo: "+maxSize+").");
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new SQLException("A espera por uma conexão foi interrompida.", e);
+			}
+		}
+
+		recordWait(System.nanoTime() - start);
+
+		try
+		{
+			PooledConnection pooled;
+
+			while((pooled = idle.pollFirst()) != null)
+			{
+				if(!validateOnBorrow || isValid(pooled))
+				{
+					break;
+				}
+
+				destroy(pooled);
+			}
+
+			if(pooled == null)
+			{
+				pooled = create();
+			}
+
+			activeCount.incrementAndGet();
+			borrowCount.incrementAndGet();
+
+			return(pooled.borrow());
+		}
+		catch (SQLException | RuntimeException e)
+		{
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Método que fecha o pool, fechando as conexões ociosas imediatamente e as emprestadas quando forem devolvidas
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		evictor.shutdownNow();
+
+		PooledConnection pooled;
+
+		while((pooled = idle.pollFirst()) != null)
+		{
+			destroy(pooled);
+		}
+	}
+
+	/**
+	 * Método que devolve uma conexão ao pool, fechando os statements esquecidos abertos e restaurando o seu estado padrão
+	 *
+	 * @param pooled A conexão devolvida
+	 * @param statements Os statements abertos pela conexão e ainda não fechados
+	 */
+	private void release(PooledConnection pooled, List<Statement> statements)
+	{
+		activeCount.decrementAndGet();
+
+		try
+		{
+			for (Statement statement : statements)
+			{
+				try
+				{
+					statement.close();
+				}
+				catch (SQLException e)
+				{
+					// O statement será descartado de qualquer forma
+				}
+			}
+
+			if(closed || pooled.connection.isClosed())
+			{
+				destroy(pooled);
+				return;
+			}
+
+			if(!pooled.connection.getAutoCommit())
+			{
+				pooled.connection.rollback();
+			}
+
+			if(pooled.connection.getAutoCommit() != autoCommit)
+			{
+				pooled.connection.setAutoCommit(autoCommit);
+			}
+
+			pooled.lastUsed = System.currentTimeMillis();
+			idle.offerFirst(pooled);
+		}
+		catch (SQLException e)
+		{
+			destroy(pooled);
+		}
+		finally
+		{
+			permits.release();
+		}
+	}
+
+	/**
+	 * Método que fecha as conexões ociosas há mais tempo que o configurado, respeitando o tamanho mínimo, e recompõe o tamanho mínimo do pool
+	 */
+	private void evictIdleConnections()
+	{
+		final long limit = System.currentTimeMillis() - idleTimeout;
+
+		// As conexões menos usadas ficam no final da fila, já que as devolvidas entram no início
+		Iterator<PooledConnection> iterator = idle.descendingIterator();
+
+		while(iterator.hasNext() && totalCount.get() > minSize)
+		{
+			PooledConnection pooled = iterator.next();
+
+			if(pooled.lastUsed < limit && idle.remove(pooled))
+			{
+				destroy(pooled);
+			}
+		}
+
+		try
+		{
+			fillToMinimum();
+		}
+		catch (SQLException e)
+		{
+			// O banco pode estar indisponível no momento, a próxima execução tentará novamente
+		}
+	}
+
+	/**
+	 * Método que abre conexões até o tamanho mínimo do pool
+	 *
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	private void fillToMinimum() throws SQLException
+	{
+		while(!closed && totalCount.get() < minSize && permits.tryAcquire())
+		{
+			try
+			{
+				idle.offerLast(create());
+			}
+			finally
+			{
+				permits.release();
+			}
+		}
+	}
+
+	/**
+	 * Método que abre uma nova conexão física com o banco
+	 *
+	 * @return A nova conexão
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	private PooledConnection create() throws SQLException
+	{
+		Properties properties = new Properties();
+
+		if(info.getUser() != null)
+		{
+			properties.setProperty("user", info.getUser());
+		}
+
+		if(info.getPass() != null)
+		{
+			properties.setProperty("password", info.getPass());
+		}
+
+		Connection connection = DriverManager.getConnection(driver.getConnectionUrl(info), properties);
+		connection.setAutoCommit(autoCommit);
+
+		totalCount.incrementAndGet();
+
+		return(new PooledConnection(connection));
+	}
+
+	/**
+	 * Método que valida uma conexão ociosa antes de entregá-la
+	 *
+	 * @param pooled A conexão a ser validada
+	 *
+	 * @return Se True, a conexão pode ser entregue. Uma conexão cuja validação falhou com erro é considerada inválida
+	 */
+	private static boolean isValid(PooledConnection pooled)
+	{
+		try
+		{
+			return(pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS));
+		}
+		catch (SQLException e)
+		{
+			return(false);
+		}
+	}
+
+	/**
+	 * Método que fecha uma conexão física e a retira da contagem do pool
+	 *
+	 * @param pooled A conexão a ser fechada
+	 */
+	private void destroy(PooledConnection pooled)
+	{
+		totalCount.decrementAndGet();
+
+		try
+		{
+			pooled.connection.close();
+		}
+		catch (SQLException e)
+		{
+			// A conexão já está sendo descartada
+		}
+	}
+
+	/**
+	 * Método que contabiliza o tempo de espera de um empréstimo
+	 *
+	 * @param waitNanos O tempo de espera em nanosegundos
+	 */
+	private void recordWait(long waitNanos)
+	{
+		totalWaitNanos.addAndGet(waitNanos);
+
+		long max;
+
+		while(waitNanos > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, waitNanos))
+		{
+			// Outra thread atualizou o máximo, tenta novamente
+		}
+	}
+
+	/**
+	 * @return A quantidade de conexões emprestadas no momento
+	 */
+	public int getActiveCount()
+	{
+		return activeCount.get();
+	}
+
+	/**
+	 * @return A quantidade de conexões ociosas no momento
+	 */
+	public int getIdleCount()
+	{
+		return idle.size();
+	}
+
+	/**
+	 * @return A quantidade de conexões físicas abertas pelo pool
+	 */
+	public int getTotalCount()
+	{
+		return totalCount.get();
+	}
+
+	/**
+	 * @return A quantidade de empréstimos feitos pelo pool
+	 */
+	public long getBorrowCount()
+	{
+		return borrowCount.get();
+	}
+
+	/**
+	 * @return A quantidade de empréstimos que falharam por tempo de espera
+	 */
+	public long getTimeoutCount()
+	{
+		return timeoutCount.get();
+	}
+
+	/**
+	 * @return O tempo total de espera por conexões, em milissegundos
+	 */
+	public long getTotalWaitMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+	}
+
+	/**
+	 * @return O maior tempo de espera por uma conexão, em milissegundos
+	 */
+	public long getMaxWaitMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+	}
+
+	public JdbcEnum getDriver()
+	{
+		return driver;
+	}
+
+	public int getMinSize()
+	{
+		return minSize;
+	}
+
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	public boolean isClosed()
+	{
+		return closed;
+	}
+
+	/**
+	 * Conexão física controlada pelo pool
+	 */
+	private final class PooledConnection
+	{
+		private final Connection connection;
+		private volatile long lastUsed = System.currentTimeMillis();
+
+		private PooledConnection(Connection connection)
+		{
+			this.connection = connection;
+		}
+
+		/**
+		 * Método que cria o proxy entregue a quem pediu a conexão, válido somente até a sua devolução
+		 *
+		 * @return O proxy da conexão
+		 */
+		private Connection borrow()
+		{
+			return((Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new BorrowedConnectionHandler(this)));
+		}
+	}
+
+	/**
+	 * {@link InvocationHandler} do proxy entregue pelo pool, que devolve a conexão ao pool no {@link Connection#close()}
+	 */
+	private final class BorrowedConnectionHandler implements InvocationHandler
+	{
+		private final PooledConnection pooled;
+		private final AtomicBoolean returned = new AtomicBoolean();
+		private final Set<Statement> statements = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<Statement, Boolean>()));
+
+		private BorrowedConnectionHandler(PooledConnection pooled)
+		{
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			final String name = method.getName();
+
+			if("close".equals(name) && method.getParameterTypes().length == 0)
+			{
+				if(returned.compareAndSet(false, true))
+				{
+					List<Statement> opened;
+
+					synchronized (statements)
+					{
+						opened = new ArrayList<Statement>(statements);
+						statements.clear();
+					}
+
+					release(pooled, opened);
+				}
+
+				return(null);
+			}
+
+			if("isClosed".equals(name) && method.getParameterTypes().length == 0)
+			{
+				return(returned.get() || pooled.connection.isClosed());
+			}
+
+			if("equals".equals(name) && method.getParameterTypes().length == 1)
+			{
+				return(proxy == args[0]);
+			}
+
+			if("hashCode".equals(name) && method.getParameterTypes().length == 0)
+			{
+				return(System.identityHashCode(proxy));
+			}
+
+			if(returned.get())
+			{
+				throw new SQLException("A conexão já foi devolvida ao pool.");
+			}
+
+			if(isUnwrap(method))
+			{
+				return(unwrap(proxy, method, args));
+			}
+
+			Object result;
+
+			try
+			{
+				result = method.invoke(pooled.connection, args);
+			}
+			catch (InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+
+			if(result instanceof Statement)
+			{
+				statements.add((Statement) result);
+				return(wrap(proxy, method.getReturnType(), result, statements, null, null));
+			}
+
+			if(result instanceof DatabaseMetaData)
+			{
+				return(wrap(proxy, method.getReturnType(), result, null, null, null));
+			}
+
+			return(result);
+		}
+	}
+
+	/**
+	 * Método que informa se o método chamado é o {@link java.sql.Wrapper#unwrap(Class)} ou o {@link java.sql.Wrapper#isWrapperFor(Class)}
+	 *
+	 * @param method O método chamado no proxy
+	 *
+	 * @return Se True, o método é tratado pelo próprio proxy
+	 */
+	private static boolean isUnwrap(Method method)
+	{
+		return(("unwrap".equals(method.getName()) || "isWrapperFor".equals(method.getName())) && method.getParameterTypes().length == 1);
+	}
+
+	/**
+	 * Método que responde o {@link java.sql.Wrapper#unwrap(Class)} e o {@link java.sql.Wrapper#isWrapperFor(Class)} de um proxy do pool
+	 * <p>
+	 * Somente o próprio proxy é entregue, os objetos físicos do driver nunca saem do pool, pois através deles seria possível usar ou fechar a
+	 * conexão física depois da sua devolução
+	 *
+	 * @param proxy O proxy chamado
+	 * @param method O método chamado
+	 * @param args Os argumentos do método
+	 *
+	 * @return O proxy ou se ele implementa a interface pedida
+	 * @throws SQLException Caso a interface pedida não seja implementada pelo proxy, uma exceção será lançada
+	 */
+	private static Object unwrap(Object proxy, Method method, Object[] args) throws SQLException
+	{
+		Class<?> iface = (Class<?>) args[0];
+
+		if("isWrapperFor".equals(method.getName()))
+		{
+			return(iface.isInstance(proxy));
+		}
+
+		if(iface.isInstance(proxy))
+		{
+			return(proxy);
+		}
+
+		throw new SQLException("O pool não entrega o objeto do driver para a interface [ "+iface.getName()+" ].");
+	}
+
+	/**
+	 * Método que cria o proxy de um objeto obtido da conexão, para que ele retorne o proxy da conexão em {@code getConnection()}
+	 *
+	 * @param connection O proxy da conexão
+	 * @param type A interface retornada pelo método que criou o objeto
+	 * @param target O objeto criado pelo driver
+	 * @param statements Os statements abertos pela conexão, ou null se o objeto não for um {@link Statement} criado pela conexão
+	 * @param owner O proxy do {@link Statement} que criou o objeto, ou null
+	 * @param ownerTarget O {@link Statement} do driver que criou o objeto, ou null
+	 *
+	 * @return O proxy do objeto
+	 */
+	private static Object wrap(Object connection, Class<?> type, Object target, Set<Statement> statements, Object owner, Object ownerTarget)
+	{
+		return(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new ConnectionChildHandler(connection, target, statements, owner, ownerTarget)));
+	}
+
+	/**
+	 * {@link InvocationHandler} dos {@link Statement}, {@link ResultSet} e do {@link DatabaseMetaData} de uma conexão emprestada
+	 */
+	private static final class ConnectionChildHandler implements InvocationHandler
+	{
+		private final Object connection;
+		private final Object target;
+		private final Set<Statement> statements;
+		private final Object owner;
+		private final Object ownerTarget;
+
+		private ConnectionChildHandler(Object connection, Object target, Set<Statement> statements, Object owner, Object ownerTarget)
+		{
+			this.connection = connection;
+			this.target = target;
+			this.statements = statements;
+			this.owner = owner;
+			this.ownerTarget = ownerTarget;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			final String name = method.getName();
+			final int count = method.getParameterTypes().length;
+
+			if("getConnection".equals(name) && count == 0)
+			{
+				return(connection);
+			}
+
+			if("equals".equals(name) && count == 1)
+			{
+				return(proxy == args[0]);
+			}
+
+			if("hashCode".equals(name) && count == 0)
+			{
+				return(System.identityHashCode(proxy));
+			}
+
+			if(isUnwrap(method))
+			{
+				return(unwrap(proxy, method, args));
+			}
+
+			if(statements != null && "close".equals(name) && count == 0)
+			{
+				statements.remove(target);
+			}
+
+			Object result;
+
+			try
+			{
+				result = method.invoke(target, args);
+			}
+			catch (InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+
+			if(result instanceof ResultSet)
+			{
+				// O ResultSet retorna o proxy do Statement que o criou, e nunca o Statement do driver
+				boolean fromStatement = target instanceof Statement;
+				return(wrap(connection, ResultSet.class, result, null, fromStatement ? proxy : owner, fromStatement ? target : ownerTarget));
+			}
+
+			if(result instanceof Statement)
+			{
+				return(result == ownerTarget ? owner : wrap(connection, Statement.class, result, null, null, null));
+			}
+
+			return(result);
+		}
+	}
+}
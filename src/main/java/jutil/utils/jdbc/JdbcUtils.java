@@ -1,15 +1,23 @@
 package jutil.utils.jdbc;
 
+import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import jutil.data.dtos.JdbcConnectionDTO;
+import jutil.data.dtos.JdbcQueryOptionsDTO;
 import jutil.data.enums.JdbcEnum;
 
 /**
  * Classe utilit�ria para manipula��o de de conex�es JDBC
+ * <p>
+ * Os statements executados são reaproveitados a partir de um {@link PreparedStatementCache}. Enquanto o {@link ResultSet} de uma
+ * consulta estiver aberto o seu statement não é reaproveitado, por isso os {@link ResultSet} devem ser fechados depois de lidos.
  * 
  * @author Diego Steyner
  */
@@ -17,6 +25,9 @@ public class JdbcUtils
 {
 	private Connection connection;
 	private PrepareStamentUtils psutils = new PrepareStamentUtils(); 
+	private PreparedStatementCache statementCache = new PreparedStatementCache();
+	private JdbcQueryOptionsDTO queryOptions = new JdbcQueryOptionsDTO();
+	private JdbcEnum driver;
 	
 	/**
 	 * Método que se conecta com o banco de dados usando usu�rio e senha
@@ -31,6 +42,8 @@ public class JdbcUtils
 	public Connection conectar(JdbcEnum info, String usuarioBd, String senhaBd) throws Exception
     {
         Class.forName(info.getDriver());
+        
+        setDriver(info);
 
         setConnection((Connection) DriverManager.getConnection(info.getConectionString(), usuarioBd, senhaBd));
 
@@ -51,6 +64,7 @@ public class JdbcUtils
 	{
 		Class.forName(driver.getDriver());
 		
+		setDriver(driver);
 		setConnection((Connection) DriverManager.getConnection(driver.getConnectionUrl(info)));
 		
 		getConnection().setAutoCommit(autoCommit);
@@ -58,12 +72,32 @@ public class JdbcUtils
 		return (getConnection() != null);
 	}
 	
+	/**
+	 * Método que obtem a conexão a partir de um {@link JdbcConnectionPool}
+	 * <p>
+	 * Ao chamar {@link #desconectar()}, a conexão é devolvida ao pool ao invés de ser fechada.
+	 * 
+	 * @param pool O pool de onde a conexão será emprestada
+	 * 
+	 * @return Se True, a conexão foi obtida com sucesso
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	public boolean conectar(JdbcConnectionPool pool) throws SQLException
+	{
+		setDriver(pool.getDriver());
+		setConnection(pool.getConnection());
+		
+		return (getConnection() != null);
+	}
+	
 	/**
 	 * Método que desconecta do banco
 	 * @throws SQLException Caso ocorra algum erro uma excess�o ser� lan�ada
 	 */
 	public void desconectar() throws SQLException
 	{
+		statementCache.clear();
+		
 		if(!getConnection().isClosed())
 		{
 			getConnection().close();
@@ -81,7 +115,7 @@ public class JdbcUtils
 	 */
 	public ResultSet executeQuery(String query) throws SQLException
 	{
-		return(getConnection().prepareStatement(query).executeQuery());
+		return(executeQuery(applyQueryOptions(prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), queryOptions, true)));
 	}
 
 	/**
@@ -96,11 +130,13 @@ public class JdbcUtils
 	 */
 	public ResultSet executeQuery(String query, Object... parameters) throws SQLException
 	{
-		return(psutils.configureStatements(getConnection().prepareStatement(query), parameters).executeQuery());
+		return(executeQuery(queryOptions, query, parameters));
 	}
 
 	/**
 	 * Método que executa um SELECT com parametros no banco
+	 * <p>
+	 * O modo streaming das opções de execução só é usado quando o {@link ResultSet} é somente de avanço e leitura.
 	 * 
 	 * @param query O SELECT que se deseja executar
 	 * @param resultSetType O tipo do {@link ResultSet} a ser retornado
@@ -113,9 +149,31 @@ public class JdbcUtils
 	 */
 	public ResultSet executeQuery(String query, int resultSetType, int resultSetConcurrecy, Object... parameters) throws SQLException
 	{
-		return(psutils.configureStatements(getConnection().prepareStatement(query, resultSetType, resultSetConcurrecy), parameters).executeQuery());
+		boolean streamable = resultSetType == ResultSet.TYPE_FORWARD_ONLY && resultSetConcurrecy == ResultSet.CONCUR_READ_ONLY;
+		
+		return(executeQuery(applyQueryOptions(psutils.configureStatements(prepareStatement(query, resultSetType, resultSetConcurrecy), parameters), queryOptions, streamable)));
 	}
 
+	/**
+	 * Método que executa um SELECT com parametros no banco usando opções de execução específicas
+	 * <p>
+	 * No modo streaming o {@link ResultSet} é somente de avanço e leitura, e o fetch size de streaming do {@link JdbcEnum}
+	 * da conexão é usado caso nenhum seja informado. Nos bancos que exigem (ver {@link JdbcEnum#isStreamingRequiresTransaction()}),
+	 * a consulta deve ser feita dentro de uma transação, ou seja, o commit automático deve ser desligado por quem chamou.
+	 * 
+	 * @param options As opções de execução da consulta
+	 * @param query O SELECT que se deseja executar
+	 * @param parameters Os parametros a serem substituidos no SELECT
+	 * 
+	 * @return o {@link ResultSet} da execução
+	 * @throws SQLException Caso ocorra algum erro, ou caso o streaming exija uma transação e a conexão esteja em commit automático, uma excessão será lançada
+	 * @see ResultSetIterator Classe para percorrer o {@link ResultSet} sem acumular as linhas em memória
+	 */
+	public ResultSet executeQuery(JdbcQueryOptionsDTO options, String query, Object... parameters) throws SQLException
+	{
+		return(executeQuery(applyQueryOptions(psutils.configureStatements(prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), parameters), options, true)));
+	}
+	
 	/**
 	 * Método que executa um UPDATE com parametros no banco
 	 * 
@@ -127,7 +185,7 @@ public class JdbcUtils
 	 */
 	public int executeUpdate(String update, Object... parameters) throws SQLException
 	{
-		return(psutils.configureStatements(getConnection().prepareStatement(update), parameters).executeUpdate());
+		return(psutils.configureStatements(prepareStatement(update, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), parameters).executeUpdate());
 	}
 	
 	/**
@@ -143,9 +201,146 @@ public class JdbcUtils
 	 */
 	public int executeUpdate(String update, int resultSetType, int resultSetConcurrecy, Object... parameters) throws SQLException
 	{
-		return(psutils.configureStatements(getConnection().prepareStatement(update, resultSetType, resultSetConcurrecy), parameters).executeUpdate());
+		return(psutils.configureStatements(prepareStatement(update, resultSetType, resultSetConcurrecy), parameters).executeUpdate());
 	}
 
+	/**
+	 * Método que executa um UPDATE/INSERT em lote no banco usando {@link PreparedStatement#addBatch()}
+	 * 
+	 * @param update O UPDATE/INSERT que deseja executar
+	 * @param parameters Os parametros de cada execução, na ordem em que aparecem no comando
+	 * @param batchSize A quantidade de execuções enviadas ao banco em cada lote
+	 * 
+	 * @return A quantidade de linhas afetadas de cada lote enviado
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	public List<int[]> executeBatch(String update, Iterable<Object[]> parameters, int batchSize) throws SQLException
+	{
+		return(executeBatch(update, parameters, batchSize, 0));
+	}
+	
+	/**
+	 * Método que executa um UPDATE/INSERT em lote no banco usando {@link PreparedStatement#addBatch()}
+	 * <p>
+	 * O comando é preparado uma única vez e os parametros são enviados em lotes de batchSize execuções, 
+	 * evitando uma ida ao banco para cada linha.
+	 * 
+	 * @param update O UPDATE/INSERT que deseja executar
+	 * @param parameters Os parametros de cada execução, na ordem em que aparecem no comando
+	 * @param batchSize A quantidade de execuções enviadas ao banco em cada lote
+	 * @param commitInterval A quantidade de lotes entre cada commit, usado somente quando a conexão não faz commit automático. Se 0, o commit fica a cargo de quem chamou.
+	 * 
+	 * @return A quantidade de linhas afetadas de cada lote enviado
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	public List<int[]> executeBatch(String update, Iterable<Object[]> parameters, int batchSize, int commitInterval) throws SQLException
+	{
+		return(executeBatch(update, null, parameters, batchSize, commitInterval));
+	}
+	
+	/**
+	 * Método que executa um UPDATE/INSERT em lote no banco usando {@link PreparedStatement#addBatch()} e uma assinatura de parametros pré-resolvida
+	 * 
+	 * @param update O UPDATE/INSERT que deseja executar
+	 * @param signature A assinatura dos parametros do comando, se null o tipo de cada parametro será resolvido a cada execução
+	 * @param parameters Os parametros de cada execução, na ordem em que aparecem no comando
+	 * @param batchSize A quantidade de execuções enviadas ao banco em cada lote
+	 * @param commitInterval A quantidade de lotes entre cada commit, usado somente quando a conexão não faz commit automático. Se 0, o commit fica a cargo de quem chamou.
+	 * Em caso de erro, o intervalo ainda não confirmado é desfeito com rollback.
+	 * 
+	 * @return A quantidade de linhas afetadas de cada lote enviado
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 * @see ParameterSignature
+	 */
+	public List<int[]> executeBatch(String update, ParameterSignature signature, Iterable<Object[]> parameters, int batchSize, int commitInterval) throws SQLException
+	{
+		if(batchSize < 1)
+		{
+			throw new IllegalArgumentException("O tamanho do lote deve ser maior que zero.");
+		}
+		
+		final boolean commit = commitInterval > 0 && !getConnection().getAutoCommit();
+		
+		ArrayList<int[]> retorno = new ArrayList<>();
+		PreparedStatement statement = prepareStatement(update, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		
+		try
+		{
+			int pending = 0;
+			
+			for (Object[] parameter : parameters)
+			{
+				if(signature == null)
+				{
+					psutils.configureStatements(statement, parameter).addBatch();
+				}
+				else
+				{
+					signature.bind(statement, parameter).addBatch();
+				}
+				
+				if(++pending == batchSize)
+				{
+					retorno.add(statement.executeBatch());
+					pending = 0;
+					
+					if(commit && retorno.size() % commitInterval == 0)
+					{
+						getConnection().commit();
+					}
+				}
+			}
+			
+			if(pending > 0)
+			{
+				retorno.add(statement.executeBatch());
+			}
+			
+			if(commit)
+			{
+				getConnection().commit();
+			}
+		}
+		catch (SQLException | RuntimeException e)
+		{
+			if(commit)
+			{
+				// Desfaz o intervalo ainda não confirmado, os lotes dos commits anteriores permanecem gravados
+				try
+				{
+					getConnection().rollback();
+				}
+				catch (SQLException rollback)
+				{
+					e.addSuppressed(rollback);
+				}
+			}
+			
+			throw e;
+		}
+		finally
+		{
+			try
+			{
+				statement.clearBatch();
+			}
+			catch (SQLException e)
+			{
+				// Um statement com lotes pendentes não pode voltar ao cache, fecha-lo faz com que seja preparado novamente
+				try
+				{
+					statement.close();
+				}
+				catch (SQLException close)
+				{
+					// A exceção original, caso exista, é mais relevante
+				}
+			}
+		}
+		
+		return(retorno);
+	}
+	
 	/**
 	 * Método que chama uma Store Procedure no banco
 	 * 
@@ -156,7 +351,7 @@ public class JdbcUtils
 	 */
 	public boolean executeCallProcedure(String spFunctionCall) throws SQLException
 	{
-		return(getConnection().prepareCall("{call "+spFunctionCall+"}").execute());
+		return(prepareCall("{call "+spFunctionCall+"}", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY).execute());
 	}
 
 	/**
@@ -170,7 +365,7 @@ public class JdbcUtils
 	 */
 	public boolean executeCallProcedure(String spFunctionCall, Object... parameters) throws SQLException
 	{
-		return(psutils.configureStatements(getConnection().prepareCall("{call "+spFunctionCall+"}"), parameters).execute());
+		return(psutils.configureStatements(prepareCall("{call "+spFunctionCall+"}", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), parameters).execute());
 	}
 
 	/**
@@ -186,7 +381,91 @@ public class JdbcUtils
 	 */
 	public boolean executeCallProcedure(String spFunctionCall, int resultSetType, int resultSetConcurrecy, Object... parameters) throws SQLException
 	{
-		return(psutils.configureStatements(getConnection().prepareCall("{call "+spFunctionCall+"}", resultSetType, resultSetConcurrecy), parameters).execute());
+		return(psutils.configureStatements(prepareCall("{call "+spFunctionCall+"}", resultSetType, resultSetConcurrecy), parameters).execute());
+	}
+	
+	/**
+	 * Método que configura as opções de execução no {@link PreparedStatement}
+	 * <p>
+	 * Todas as opções são configuradas em toda execução, já que o {@link PreparedStatement} pode vir do cache com as opções de uma execução anterior.
+	 * O commit automático da conexão nunca é alterado aqui, já que desligá-lo sem religar faria a conexão, ou o pool de onde ela veio,
+	 * perder as alterações seguintes que não forem confirmadas.
+	 * 
+	 * @param statement O {@link PreparedStatement} a ser configurado
+	 * @param options As opções de execução
+	 * @param streamable Se False, o {@link ResultSet} não é somente de avanço e leitura e o modo streaming é ignorado
+	 * 
+	 * @return O {@link PreparedStatement} configurado
+	 * @throws SQLException Caso o streaming exija uma transação e a conexão esteja em commit automático, ou ocorra algum erro, uma excessão será lançada
+	 */
+	private PreparedStatement applyQueryOptions(PreparedStatement statement, JdbcQueryOptionsDTO options, boolean streamable) throws SQLException
+	{
+		int fetchSize = options.getFetchSize();
+		
+		if(options.isStreaming() && streamable)
+		{
+			if(fetchSize == 0)
+			{
+				fetchSize = (driver == null) ? JdbcEnum.DEFAULT_STREAMING_FETCH_SIZE : driver.getStreamingFetchSize();
+			}
+			
+			if(driver != null && driver.isStreamingRequiresTransaction() && getConnection().getAutoCommit())
+			{
+				throw new SQLException("O banco "+driver+" só faz streaming dentro de uma transação, desligue o commit automático da conexão antes da consulta.");
+			}
+		}
+		
+		statement.setFetchSize(fetchSize);
+		statement.setMaxRows(options.getMaxRows());
+		statement.setQueryTimeout(options.getQueryTimeout());
+		
+		return(statement);
+	}
+	
+	/**
+	 * Método que executa a consulta e registra o {@link ResultSet} no cache, para que o statement não seja reaproveitado enquanto ele
+	 * estiver aberto
+	 * 
+	 * @param statement O {@link PreparedStatement} configurado
+	 * 
+	 * @return o {@link ResultSet} da execução
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	private ResultSet executeQuery(PreparedStatement statement) throws SQLException
+	{
+		return(statementCache.register(statement, statement.executeQuery()));
+	}
+	
+	/**
+	 * Método que retorna o {@link PreparedStatement} da SQL a partir do cache de statements da conexão
+	 * 
+	 * @param sql A SQL a ser preparada
+	 * @param resultSetType O tipo do {@link ResultSet} a ser retornado
+	 * @param resultSetConcurrecy O tipo de concorrencia do {@link ResultSet} a ser retornado
+	 * 
+	 * @return O {@link PreparedStatement} da SQL
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 * @see PreparedStatementCache
+	 */
+	private PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrecy) throws SQLException
+	{
+		return(statementCache.prepareStatement(getConnection(), sql, resultSetType, resultSetConcurrecy));
+	}
+	
+	/**
+	 * Método que retorna o {@link CallableStatement} da chamada a partir do cache de statements da conexão
+	 * 
+	 * @param sql A chamada a ser preparada
+	 * @param resultSetType O tipo do {@link ResultSet} a ser retornado
+	 * @param resultSetConcurrecy O tipo de concorrencia do {@link ResultSet} a ser retornado
+	 * 
+	 * @return O {@link CallableStatement} da chamada
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 * @see PreparedStatementCache
+	 */
+	private CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrecy) throws SQLException
+	{
+		return(statementCache.prepareCall(getConnection(), sql, resultSetType, resultSetConcurrecy));
 	}
 	
 	public Connection getConnection() {
@@ -194,6 +473,11 @@ public class JdbcUtils
 	}
 
 	public void setConnection(Connection connection) {
+		if(this.connection != connection)
+		{
+			statementCache.clear();
+		}
+		
 		this.connection = connection;
 	}
 
@@ -204,4 +488,44 @@ public class JdbcUtils
 	public void setPsutils(PrepareStamentUtils psutils) {
 		this.psutils = psutils;
 	}
+
+	public JdbcQueryOptionsDTO getQueryOptions() {
+		return queryOptions;
+	}
+
+	/**
+	 * Configura as opções de execução usadas pelos métodos executeQuery que não recebem opções
+	 * 
+	 * @param queryOptions As opções de execução padrão
+	 */
+	public void setQueryOptions(JdbcQueryOptionsDTO queryOptions) {
+		this.queryOptions = queryOptions;
+	}
+
+	public JdbcEnum getDriver() {
+		return driver;
+	}
+
+	/**
+	 * Configura o {@link JdbcEnum} da conexão, usado para as opções de streaming. Configurado automaticamente pelos métodos conectar.
+	 * 
+	 * @param driver O {@link JdbcEnum} do banco conectado
+	 */
+	public void setDriver(JdbcEnum driver) {
+		this.driver = driver;
+	}
+
+	public PreparedStatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	/**
+	 * Troca o cache de statements, fechando os statements do cache anterior
+	 * 
+	 * @param statementCache O novo cache de statements
+	 */
+	public void setStatementCache(PreparedStatementCache statementCache) {
+		this.statementCache.clear();
+		this.statementCache = statementCache;
+	}
 }
@@ -0,0 +1,524 @@
+package jutil.utils.jdbc;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+
+/**
+ * Classe de constantes com a forma de configurar cada tipo de parametro em um {@link PreparedStatement}
+ * <p>
+ * O {@link ParameterBinder} de cada classe é resolvido uma única vez e fica em cache em um {@link ClassValue},
+ * evitando a cadeia de instanceof a cada parametro configurado.
+ *
+ * @author Diego Steyner
+ */
+public enum ParameterBinder
+{
+	NULL(java.sql.Types.VARCHAR)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			bindNull(prstatement, index);
+		}
+	},
+	STRING(java.sql.Types.VARCHAR)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			final String str = (String) value;
+
+			if(str.length() > 32766)
+			{
+				prstatement.setCharacterStream(index, new StringReader(str), str.length());
+			}
+			else
+			{
+				prstatement.setString(index, str);
+			}
+		}
+	},
+	UTIL_DATE(java.sql.Types.DATE)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setDate(index, new java.sql.Date(((java.util.Date) value).getTime()));
+		}
+	},
+	SQL_DATE(java.sql.Types.DATE)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setDate(index, (java.sql.Date) value);
+		}
+	},
+	TIME(java.sql.Types.TIME)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setTime(index, (Time) value);
+		}
+	},
+	TIMESTAMP(java.sql.Types.TIMESTAMP)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setTimestamp(index, (Timestamp) value);
+		}
+	},
+	LOCAL_DATE(java.sql.Types.DATE)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setDate(index, java.sql.Date.valueOf((LocalDate) value));
+		}
+	},
+	LOCAL_TIME(java.sql.Types.TIME)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setTime(index, Time.valueOf((LocalTime) value));
+		}
+	},
+	LOCAL_DATE_TIME(java.sql.Types.TIMESTAMP)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setTimestamp(index, Timestamp.valueOf((LocalDateTime) value));
+		}
+	},
+	INSTANT(java.sql.Types.TIMESTAMP)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setTimestamp(index, Timestamp.from((Instant) value));
+		}
+	},
+	OFFSET_DATE_TIME(java.sql.Types.TIMESTAMP)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setTimestamp(index, Timestamp.from(((OffsetDateTime) value).toInstant()));
+		}
+	},
+	ZONED_DATE_TIME(java.sql.Types.TIMESTAMP)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setTimestamp(index, Timestamp.from(((ZonedDateTime) value).toInstant()));
+		}
+	},
+	LONG(java.sql.Types.BIGINT)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setLong(index, ((Long) value).longValue());
+		}
+	},
+	INTEGER(java.sql.Types.INTEGER)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setInt(index, ((Integer) value).intValue());
+		}
+	},
+	BIG_DECIMAL(java.sql.Types.DECIMAL)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setBigDecimal(index, (BigDecimal) value);
+		}
+	},
+	DOUBLE(java.sql.Types.DOUBLE)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setDouble(index, ((Double) value).doubleValue());
+		}
+	},
+	FLOAT(java.sql.Types.REAL)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setFloat(index, ((Float) value).floatValue());
+		}
+	},
+	SHORT(java.sql.Types.SMALLINT)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setShort(index, ((Short) value).shortValue());
+		}
+	},
+	ARRAY(java.sql.Types.ARRAY)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setArray(index, (Array) value);
+		}
+	},
+	BOOLEAN(java.sql.Types.BOOLEAN)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setBoolean(index, ((Boolean) value).booleanValue());
+		}
+	},
+	URL(java.sql.Types.DATALINK)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setURL(index, (java.net.URL) value);
+		}
+	},
+	REF(java.sql.Types.REF)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setRef(index, (Ref) value);
+		}
+	},
+	BYTES(java.sql.Types.VARBINARY)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setBytes(index, (byte[]) value);
+		}
+	},
+	BLOB(java.sql.Types.BLOB)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setBlob(index, (Blob) value);
+		}
+	},
+	CLOB(java.sql.Types.CLOB)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setClob(index, (Clob) value);
+		}
+	},
+	STREAM(java.sql.Types.LONGVARBINARY)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			throw new SQLException("Parametros do tipo INPUT_STREAM, UNICODE_STREAM, BINARY_STREAM e CHARACTER_STREAM ainda não foram implementados!");
+		}
+	},
+	OBJECT(java.sql.Types.VARCHAR)
+	{
+		@Override
+		public void bind(PreparedStatement prstatement, int index, Object value) throws SQLException
+		{
+			prstatement.setObject(index, value);
+		}
+	};
+
+	private static final ClassValue<ParameterBinder> BINDERS = new ClassValue<ParameterBinder>()
+	{
+		@Override
+		protected ParameterBinder computeValue(Class<?> type)
+		{
+			return(resolve(type.isPrimitive() ? wrap(type) : type));
+		}
+	};
+
+	private final int sqlType;
+
+	/**
+	 * Construtor
+	 *
+	 * @param sqlType O tipo do {@link java.sql.Types} usado ao configurar um valor null
+	 */
+	private ParameterBinder(int sqlType)
+	{
+		this.sqlType = sqlType;
+	}
+
+	/**
+	 * Método que configura o valor no {@link PreparedStatement}
+	 *
+	 * @param prstatement O {@link PreparedStatement}
+	 * @param index A posição do parametro, começando em 1
+	 * @param value O valor a ser configurado
+	 *
+	 * @throws SQLException Caso algum erro, uma exceção será lançada.
+	 */
+	public abstract void bind(PreparedStatement prstatement, int index, Object value) throws SQLException;
+
+	/**
+	 * Método que configura um valor null no {@link PreparedStatement} com o tipo SQL deste {@link ParameterBinder}, já que alguns drivers
+	 * recusam um null do tipo VARCHAR em parametros numéricos ou de data
+	 *
+	 * @param prstatement O {@link PreparedStatement}
+	 * @param index A posição do parametro, começando em 1
+	 *
+	 * @throws SQLException Caso algum erro, uma exceção será lançada.
+	 */
+	public void bindNull(PreparedStatement prstatement, int index) throws SQLException
+	{
+		prstatement.setNull(index, sqlType);
+	}
+
+	/**
+	 * @return O tipo do {@link java.sql.Types} usado ao configurar um valor null
+	 */
+	public int getSqlType()
+	{
+		return(sqlType);
+	}
+
+	/**
+	 * Método que retorna o {@link ParameterBinder} de uma classe a partir do cache. Os tipos primitivos usam o {@link ParameterBinder} da
+	 * classe correspondente, por exemplo int usa o de {@link Integer}
+	 *
+	 * @param type A classe do parametro
+	 *
+	 * @return O {@link ParameterBinder} da classe
+	 */
+	public static ParameterBinder of(Class<?> type)
+	{
+		return(type == null ? NULL : BINDERS.get(type));
+	}
+
+	/**
+	 * Método que retorna o {@link ParameterBinder} do valor
+	 *
+	 * @param value O valor do parametro
+	 *
+	 * @return O {@link ParameterBinder} do valor
+	 */
+	public static ParameterBinder forValue(Object value)
+	{
+		return(value == null ? NULL : BINDERS.get(value.getClass()));
+	}
+
+	/**
+	 * Método que retorna a classe correspondente a um tipo primitivo
+	 *
+	 * @param type O tipo primitivo
+	 *
+	 * @return A classe correspondente
+	 */
+	private static Class<?> wrap(Class<?> type)
+	{
+		if(int.class == type)
+		{
+			return(Integer.class);
+		}
+
+		if(long.class == type)
+		{
+			return(Long.class);
+		}
+
+		if(double.class == type)
+		{
+			return(Double.class);
+		}
+
+		if(float.class == type)
+		{
+			return(Float.class);
+		}
+
+		if(short.class == type)
+		{
+			return(Short.class);
+		}
+
+		if(boolean.class == type)
+		{
+			return(Boolean.class);
+		}
+
+		if(byte.class == type)
+		{
+			return(Byte.class);
+		}
+
+		return(char.class == type ? Character.class : Void.class);
+	}
+
+	/**
+	 * Método que resolve o {@link ParameterBinder} de uma classe, do tipo mais específico para o mais genérico
+	 *
+	 * @param type A classe do parametro
+	 *
+	 * @return O {@link ParameterBinder} da classe
+	 */
+	private static ParameterBinder resolve(Class<?> type)
+	{
+		if(String.class == type)
+		{
+			return(STRING);
+		}
+
+		if(Timestamp.class.isAssignableFrom(type))
+		{
+			return(TIMESTAMP);
+		}
+
+		if(Time.class.isAssignableFrom(type))
+		{
+			return(TIME);
+		}
+
+		if(java.sql.Date.class.isAssignableFrom(type))
+		{
+			return(SQL_DATE);
+		}
+
+		if(java.util.Date.class.isAssignableFrom(type))
+		{
+			return(UTIL_DATE);
+		}
+
+		if(LocalDate.class == type)
+		{
+			return(LOCAL_DATE);
+		}
+
+		if(LocalTime.class == type)
+		{
+			return(LOCAL_TIME);
+		}
+
+		if(LocalDateTime.class == type)
+		{
+			return(LOCAL_DATE_TIME);
+		}
+
+		if(Instant.class == type)
+		{
+			return(INSTANT);
+		}
+
+		if(OffsetDateTime.class == type)
+		{
+			return(OFFSET_DATE_TIME);
+		}
+
+		if(ZonedDateTime.class == type)
+		{
+			return(ZONED_DATE_TIME);
+		}
+
+		if(Long.class == type)
+		{
+			return(LONG);
+		}
+
+		if(Integer.class == type)
+		{
+			return(INTEGER);
+		}
+
+		if(BigDecimal.class.isAssignableFrom(type))
+		{
+			return(BIG_DECIMAL);
+		}
+
+		if(Double.class == type)
+		{
+			return(DOUBLE);
+		}
+
+		if(Float.class == type)
+		{
+			return(FLOAT);
+		}
+
+		if(Short.class == type)
+		{
+			return(SHORT);
+		}
+
+		if(Array.class.isAssignableFrom(type))
+		{
+			return(ARRAY);
+		}
+
+		if(Boolean.class == type)
+		{
+			return(BOOLEAN);
+		}
+
+		if(java.net.URL.class == type)
+		{
+			return(URL);
+		}
+
+		if(Ref.class.isAssignableFrom(type))
+		{
+			return(REF);
+		}
+
+		if(byte[].class == type)
+		{
+			return(BYTES);
+		}
+
+		if(type.isArray())
+		{
+			return(ARRAY);
+		}
+
+		if(Blob.class.isAssignableFrom(type))
+		{
+			return(BLOB);
+		}
+
+		if(Clob.class.isAssignableFrom(type))
+		{
+			return(CLOB);
+		}
+
+		if(InputStream.class.isAssignableFrom(type))
+		{
+			return(STREAM);
+		}
+
+		return(OBJECT);
+	}
+}
@@ -0,0 +1,98 @@
+package jutil.utils.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Classe que representa a assinatura pré-resolvida dos parametros de um {@link PreparedStatement}
+ * <p>
+ * Os {@link ParameterBinder} de cada posição são resolvidos na criação da assinatura, de forma que as execuções
+ * repetidas do mesmo comando não fazem nenhuma busca pelo tipo dos parametros. Os valores passados devem ser do tipo
+ * declarado na posição ou null, e os valores null são configurados com o tipo SQL da posição. As posições sem tipo são
+ * resolvidas pelo valor a cada execução.
+ *
+ * @author Diego Steyner
+ */
+public final class ParameterSignature
+{
+	private final ParameterBinder[] binders;
+
+	/**
+	 * Construtor
+	 *
+	 * @param types As classes dos parametros, na ordem em que aparecem no comando. Os tipos primitivos são aceitos, e uma posição
+	 *        null é resolvida pelo valor a cada execução
+	 */
+	public ParameterSignature(Class<?>... types)
+	{
+		binders = new ParameterBinder[types.length];
+
+		for (int i = 0; i < types.length; i++)
+		{
+			binders[i] = types[i] == null ? null : ParameterBinder.of(types[i]);
+		}
+	}
+
+	/**
+	 * Método que cria a assinatura a partir das classes de parametros de exemplo
+	 * <p>
+	 * Uma posição cujo exemplo é null não tem o tipo conhecido e é resolvida pelo valor a cada execução. Quando o tipo for conhecido,
+	 * prefira o construtor com as classes dos parametros.
+	 *
+	 * @param parameters Os parametros de exemplo
+	 *
+	 * @return A assinatura dos parametros
+	 */
+	public static ParameterSignature of(Object... parameters)
+	{
+		Class<?> types[] = new Class<?>[parameters.length];
+
+		for (int i = 0; i < parameters.length; i++)
+		{
+			types[i] = parameters[i] == null ? null : parameters[i].getClass();
+		}
+
+		return(new ParameterSignature(types));
+	}
+
+	/**
+	 * Método que configura os parametros no {@link PreparedStatement} usando os {@link ParameterBinder} pré-resolvidos
+	 *
+	 * @param prstatement O {@link PreparedStatement} com os parametros
+	 * @param parameters Os parametros a serem configurados
+	 *
+	 * @return O {@link PreparedStatement} com os parametros configurados
+	 * @throws SQLException Caso algum erro, uma exceção será lançada.
+	 */
+	public PreparedStatement bind(PreparedStatement prstatement, Object... parameters) throws SQLException
+	{
+		if(parameters.length != binders.length)
+		{
+			throw new SQLException("A assinatura possui "+binders.length+" parametros, mas foram informados "+parameters.length+".");
+		}
+
+		for (int i = 0; i < binders.length; i++)
+		{
+			ParameterBinder binder = binders[i] == null ? ParameterBinder.forValue(parameters[i]) : binders[i];
+
+			if(parameters[i] == null)
+			{
+				binder.bindNull(prstatement, i+1);
+			}
+			else
+			{
+				binder.bind(prstatement, i+1, parameters[i]);
+			}
+		}
+
+		return(prstatement);
+	}
+
+	/**
+	 * @return A quantidade de parametros da assinatura
+	 */
+	public int size()
+	{
+		return(binders.length);
+	}
+}
@@ -0,0 +1,485 @@
+package jutil.utils.jdbc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jutil.annotation.JdbcColumnOf;
+import jutil.data.dtos.JdbcQueryOptionsDTO;
+import jutil.data.enums.JdbcEnum;
+import jutil.data.enums.RowMapperEnum;
+
+/**
+ * Classe que executa uma consulta em paralelo, dividindo-a em faixas de uma coluna numérica inteira
+ * <p>
+ * Os valores mínimo e máximo da coluna são consultados primeiro e a faixa é dividida em partições de mesmo tamanho.
+ * Cada partição usa as opções de execução configuradas, por padrão em modo streaming, para não carregar a partição inteira em memória.
+ * Cada partição é executada em uma conexão do {@link JdbcConnectionPool} e as linhas são transformadas em objetos com
+ * campos anotados com {@link JdbcColumnOf}. As linhas de todas as partições são entregues em uma única fila limitada,
+ * de forma que as partições esperam quando quem consome não acompanha a leitura. A ordem das linhas entre partições não é garantida.
+ *
+ * @author Diego Steyner
+ */
+public class PartitionedQueryExecutor implements AutoCloseable
+{
+	/**
+	 * Capacidade padrão da fila de linhas entre as partições e quem consome
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+	private static final Object END_OF_PARTITION = new Object();
+
+	private final JdbcConnectionPool pool;
+	private final ExecutorService executor;
+	private final int queueCapacity;
+	private final PrepareStamentUtils psutils = new PrepareStamentUtils();
+	private JdbcQueryOptionsDTO queryOptions = new JdbcQueryOptionsDTO(0, 0, 0, true);
+
+	/**
+	 * Construtor que usa a capacidade padrão da fila
+	 *
+	 * @param pool O pool de onde as conexões de cada partição serão emprestadas
+	 * @param parallelism A quantidade de partições executadas ao mesmo tempo
+	 */
+	public PartitionedQueryExecutor(JdbcConnectionPool pool, int parallelism)
+	{
+		this(pool, parallelism, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Construtor
+	 *
+	 * @param pool O pool de onde as conexões de cada partição serão emprestadas
+	 * @param parallelism A quantidade de partições executadas ao mesmo tempo
+	 * @param queueCapacity A quantidade máxima de linhas lidas e ainda não consumidas
+	 */
+	public PartitionedQueryExecutor(JdbcConnectionPool pool, int parallelism, int queueCapacity)
+	{
+		if(parallelism < 1 || queueCapacity < 1)
+		{
+			throw new IllegalArgumentException("O paralelismo e a capacidade da fila devem ser maiores que zero.");
+		}
+
+		this.pool = pool;
+		this.queueCapacity = queueCapacity;
+		this.executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory()
+		{
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "PartitionedQueryExecutor-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return(thread);
+			}
+		});
+	}
+
+	/**
+	 * Método que executa a consulta em partições e retorna um iterador sobre as linhas de todas as partições
+	 * <p>
+	 * O iterador deve ser consumido até o final ou fechado, para liberar as conexões das partições.
+	 *
+	 * @param query O SELECT que se deseja executar, sem ORDER BY
+	 * @param keyColumn A coluna numérica inteira usada para dividir a consulta
+	 * @param partitions A quantidade de partições
+	 * @param klass A classe para o qual as linhas deverão ser convertidas
+	 * @param parameters Os parametros a serem substituidos no SELECT
+	 *
+	 * @return O iterador sobre as linhas de todas as partições
+	 * @throws SQLException Caso a coluna não seja inteira, ou ocorra algum erro, uma excessão será lançada
+	 */
+	public <T> PartitionIterator<T> executeQuery(String query, String keyColumn, int partitions, Class<T> klass, Object... parameters) throws SQLException
+	{
+		if(partitions < 1)
+		{
+			throw new IllegalArgumentException("A quantidade de partições deve ser maior que zero.");
+		}
+
+		long[] bounds = findBounds(query, keyColumn, parameters);
+
+		if(bounds == null)
+		{
+			return(new PartitionIterator<T>(new ArrayBlockingQueue<Object>(1), new ArrayList<Future<?>>(), 0));
+		}
+
+		// As faixas são calculadas com BigInteger, já que max - min e max + 1 podem passar do limite do long
+		final BigInteger max = BigInteger.valueOf(bounds[1]);
+		final BigInteger count = BigInteger.valueOf(partitions);
+		final BigInteger span = max.subtract(BigInteger.valueOf(bounds[0])).add(BigInteger.ONE);
+		final BigInteger step = span.add(count).subtract(BigInteger.ONE).divide(count);
+		final String partitionQuery = "SELECT * FROM (" + query + ") jutil_partition WHERE " + keyColumn + " >= ? AND " + keyColumn + " <= ?";
+
+		BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+		ArrayList<Future<?>> futures = new ArrayList<>();
+
+		for (BigInteger lower = BigInteger.valueOf(bounds[0]); lower.compareTo(max) <= 0; lower = lower.add(step))
+		{
+			final BigInteger upper = lower.add(step).subtract(BigInteger.ONE).min(max);
+
+			futures.add(executor.submit(new PartitionTask<T>(partitionQuery, lower.longValue(), upper.longValue(), klass, parameters, queue, queryOptions)));
+		}
+
+		return(new PartitionIterator<T>(queue, futures, futures.size()));
+	}
+
+	/**
+	 * Método que executa a consulta em partições e transforma todas as linhas em uma lista de objetos
+	 *
+	 * @param query O SELECT que se deseja executar, sem ORDER BY
+	 * @param keyColumn A coluna numérica inteira usada para dividir a consulta
+	 * @param partitions A quantidade de partições
+	 * @param klass A classe para o qual as linhas deverão ser convertidas
+	 * @param parameters Os parametros a serem substituidos no SELECT
+	 *
+	 * @return A lista de objetos de todas as partições
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	public <T> ArrayList<T> transformResultSetRows(String query, String keyColumn, int partitions, Class<T> klass, Object... parameters) throws SQLException
+	{
+		ArrayList<T> retorno = new ArrayList<>();
+
+		try (PartitionIterator<T> iterator = executeQuery(query, keyColumn, partitions, klass, parameters))
+		{
+			while(iterator.hasNext())
+			{
+				retorno.add(iterator.next());
+			}
+		}
+
+		return(retorno);
+	}
+
+	/**
+	 * Método que encerra as threads do executor, interrompendo as partições em execução
+	 */
+	@Override
+	public void close()
+	{
+		executor.shutdownNow();
+	}
+
+	public JdbcQueryOptionsDTO getQueryOptions()
+	{
+		return queryOptions;
+	}
+
+	/**
+	 * Configura as opções de execução usadas na consulta de cada partição. O limite de linhas, caso informado, vale para cada partição.
+	 * <p>
+	 * Nos bancos que só fazem streaming dentro de uma transação, o commit automático da conexão da partição é desligado,
+	 * e o {@link JdbcConnectionPool} o restaura quando a conexão é devolvida.
+	 *
+	 * @param queryOptions As opções de execução das partições
+	 */
+	public void setQueryOptions(JdbcQueryOptionsDTO queryOptions)
+	{
+		this.queryOptions = queryOptions;
+	}
+
+	/**
+	 * Método que consulta os valores mínimo e máximo da coluna de partição
+	 * <p>
+	 * Colunas de ponto flutuante ou decimais com casas depois da vírgula são rejeitadas, já que as faixas inteiras perderiam linhas.
+	 *
+	 * @param query O SELECT original
+	 * @param keyColumn A coluna numérica inteira usada para dividir a consulta
+	 * @param parameters Os parametros a serem substituidos no SELECT
+	 *
+	 * @return Um array com o mínimo e o máximo, ou null caso a consulta não retorne linhas
+	 * @throws SQLException Caso a coluna não seja inteira, ou ocorra algum erro, uma excessão será lançada
+	 */
+	private long[] findBounds(String query, String keyColumn, Object... parameters) throws SQLException
+	{
+		try (Connection connection = pool.getConnection();
+			 PreparedStatement statement = psutils.configureStatements(connection.prepareStatement("SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + ") FROM (" + query + ") jutil_partition"), parameters);
+			 ResultSet result = statement.executeQuery())
+		{
+			checkIntegralColumn(result.getMetaData(), keyColumn);
+
+			if(!result.next())
+			{
+				return(null);
+			}
+
+			BigDecimal min = result.getBigDecimal(1);
+			BigDecimal max = result.getBigDecimal(2);
+
+			if(min == null || max == null)
+			{
+				return(null);
+			}
+
+			try
+			{
+				return(new long[]{min.longValueExact(), max.longValueExact()});
+			}
+			catch (ArithmeticException e)
+			{
+				throw new SQLException("A coluna " + keyColumn + " possui valores que não são inteiros ou não cabem em um long (" + min + ", " + max + ").", e);
+			}
+		}
+	}
+
+	/**
+	 * Método que verifica se a coluna de partição é inteira
+	 *
+	 * @param metaData Os metadados da consulta dos valores mínimo e máximo
+	 * @param keyColumn A coluna usada para dividir a consulta
+	 *
+	 * @throws SQLException Caso a coluna não seja inteira uma excessão será lançada
+	 */
+	private void checkIntegralColumn(ResultSetMetaData metaData, String keyColumn) throws SQLException
+	{
+		switch (metaData.getColumnType(1))
+		{
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+				return;
+
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				if(metaData.getScale(1) <= 0)
+				{
+					return;
+				}
+				break;
+
+			default:
+				break;
+		}
+
+		throw new SQLException("A coluna " + keyColumn + " deve ser inteira para dividir a consulta, mas é do tipo " + metaData.getColumnTypeName(1) + ".");
+	}
+
+	/**
+	 * Tarefa que executa uma partição e envia as linhas transformadas para a fila
+	 */
+	private final class PartitionTask<T> implements Runnable
+	{
+		private final String query;
+		private final Object[] parameters;
+		private final Class<T> klass;
+		private final BlockingQueue<Object> queue;
+		private final JdbcQueryOptionsDTO options;
+
+		private PartitionTask(String query, long lower, long upper, Class<T> klass, Object[] parameters, BlockingQueue<Object> queue, JdbcQueryOptionsDTO options)
+		{
+			this.query = query;
+			this.klass = klass;
+			this.queue = queue;
+			this.options = options;
+			this.parameters = Arrays.copyOf(parameters, parameters.length + 2);
+			this.parameters[parameters.length] = Long.valueOf(lower);
+			this.parameters[parameters.length + 1] = Long.valueOf(upper);
+		}
+
+		@Override
+		public void run()
+		{
+			Object end = END_OF_PARTITION;
+
+			try (Connection connection = pool.getConnection();
+				 PreparedStatement statement = configure(connection, psutils.configureStatements(connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), parameters));
+				 ResultSet result = statement.executeQuery())
+			{
+				ResultSetRowMapper<T> mapper = ResultSetRowMapper.getMapper(result, klass);
+
+				while(result.next())
+				{
+					queue.put(mapper.mapRow(result, RowMapperEnum.METHOD_HANDLE));
+				}
+			}
+			catch (InterruptedException e)
+			{
+				// A iteração foi fechada, ninguém mais consome a fila
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (Exception e)
+			{
+				end = new PartitionFailure(e);
+			}
+
+			try
+			{
+				queue.put(end);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Método que configura as opções de execução no statement da partição
+		 *
+		 * @param connection A conexão emprestada para a partição
+		 * @param statement O statement da partição
+		 *
+		 * @return O statement configurado
+		 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+		 */
+		private PreparedStatement configure(Connection connection, PreparedStatement statement) throws SQLException
+		{
+			final JdbcEnum driver = pool.getDriver();
+			int fetchSize = options.getFetchSize();
+
+			if(options.isStreaming())
+			{
+				if(fetchSize == 0)
+				{
+					fetchSize = driver.getStreamingFetchSize();
+				}
+
+				// A conexão é somente desta partição e o pool restaura o commit automático na devolução
+				if(driver.isStreamingRequiresTransaction() && connection.getAutoCommit())
+				{
+					connection.setAutoCommit(false);
+				}
+			}
+
+			statement.setFetchSize(fetchSize);
+			statement.setMaxRows(options.getMaxRows());
+			statement.setQueryTimeout(options.getQueryTimeout());
+
+			return(statement);
+		}
+	}
+
+	/**
+	 * Marcador de falha de uma partição
+	 */
+	private static final class PartitionFailure
+	{
+		private final Exception cause;
+
+		private PartitionFailure(Exception cause)
+		{
+			this.cause = cause;
+		}
+	}
+
+	/**
+	 * Iterador sobre as linhas de todas as partições de uma consulta
+	 */
+	public static final class PartitionIterator<T> implements Iterator<T>, Iterable<T>, AutoCloseable
+	{
+		private final BlockingQueue<Object> queue;
+		private final List<Future<?>> futures;
+		private int remaining;
+		private Object next;
+		private boolean closed;
+
+		private PartitionIterator(BlockingQueue<Object> queue, List<Future<?>> futures, int partitions)
+		{
+			this.queue = queue;
+			this.futures = futures;
+			this.remaining = partitions;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while(next == null && remaining > 0 && !closed)
+			{
+				Object item;
+
+				try
+				{
+					item = queue.take();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					close();
+					throw new IllegalStateException("A leitura das partições foi interrompida.", e);
+				}
+
+				if(item == END_OF_PARTITION)
+				{
+					remaining--;
+				}
+				else if(item instanceof PartitionFailure)
+				{
+					close();
+					throw new IllegalStateException("Erro ao executar uma partição da consulta.", ((PartitionFailure) item).cause);
+				}
+				else
+				{
+					next = item;
+				}
+			}
+
+			return(next != null);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next()
+		{
+			if(!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+
+			T retorno = (T) next;
+			next = null;
+
+			return(retorno);
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException("O PartitionIterator não suporta remoção de linhas.");
+		}
+
+		@Override
+		public Iterator<T> iterator()
+		{
+			return(this);
+		}
+
+		/**
+		 * Método que cancela as partições ainda em execução e descarta as linhas não consumidas
+		 */
+		@Override
+		public void close()
+		{
+			if(closed)
+			{
+				return;
+			}
+
+			closed = true;
+
+			for (Future<?> future : futures)
+			{
+				future.cancel(true);
+			}
+
+			queue.clear();
+		}
+	}
+}
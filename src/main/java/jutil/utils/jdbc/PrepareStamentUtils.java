@@ -1,13 +1,6 @@
 package jutil.utils.jdbc;
 
-import java.io.InputStream;
-import java.io.StringReader;
-import java.math.BigDecimal;
-import java.sql.Array;
-import java.sql.Blob;
-import java.sql.Clob;
 import java.sql.PreparedStatement;
-import java.sql.Ref;
 import java.sql.SQLException;
 import java.util.HashMap;
 
@@ -43,6 +36,9 @@ public class PrepareStamentUtils
 	
 	/**
 	 * M�todo que configura faz o set dos parametros de um {@link PreparedStatement}
+	 * <p>
+	 * A forma de configurar cada tipo de parametro é resolvida uma única vez por classe, veja {@link ParameterBinder}.
+	 * Tipos do java.time são convertidos para os tipos equivalentes do java.sql.
 	 *  
 	 * @param prstatement O {@link PreparedStatement} com os parametros
 	 * @param parameters Os parametros a serem configurados
@@ -54,197 +50,26 @@ public class PrepareStamentUtils
 	{
 		for (int i = 0; i < parameters.length; i++) 
 		{
-			if(hasStringConfigured(prstatement, i, parameters))
-			{
-				continue;
-			}
-			else if(hasDateConfigured(prstatement, i, parameters))
-			{
-				continue;
-			}
-			else if(hasIntegerConfigured(prstatement, i, parameters))
-			{
-				continue;
-			}
-			else if(hasOtherConfigured(prstatement, i, parameters))
-			{
-				continue;
-			}
+			ParameterBinder.forValue(parameters[i]).bind(prstatement, i+1, parameters[i]);
 		}
 		
 		return(prstatement);
 	}
 	
 	/**
-	 * M�todo que configura os parametros do tipo String no {@link PreparedStatement}
-	 * 
-	 * @param prstatement O {@link PreparedStatement}
-	 * @param index O index da posi��o atual
-	 * @param parameters Os parametros a serem configurados
-	 * 
-	 * @return Se True, houve parametros do tipo String configurado
-	 * @throws SQLException Caso algum erro, uma exce��o ser� lan�ada.
-	 */
-	private boolean hasStringConfigured(PreparedStatement prstatement, int index, Object... parameters) throws SQLException 
-	{
-		if(parameters[index] == null)
-		{
-			prstatement.setNull(index+1, java.sql.Types.VARCHAR);
-		}
-		else if(parameters[index] instanceof java.lang.String)
-		{
-			final String str = parameters[index].toString();
-			
-			if(str.length() > 32766)
-			{
-				prstatement.setCharacterStream(index+1, new StringReader(str), str.length());
-			}
-			else
-			{
-				prstatement.setString(index+1, parameters[index].toString());
-			}
-		}
-		else
-		{
-			return(false);
-		}
-		
-		return(true);
-	}
-
-	/**
-	 * M�todo que configura os parametros do tipo Date no {@link PreparedStatement}
-	 * 
-	 * @param prstatement O {@link PreparedStatement}
-	 * @param index O index da posi��o atual
-	 * @param parameters Os parametros a serem configurados
-	 * 
-	 * @return Se True, houve parametros do tipo Date configurado
-	 * @throws SQLException Caso algum erro, uma exce��o ser� lan�ada.
-	 */
-	private boolean hasDateConfigured(PreparedStatement prstatement, int index, Object... parameters) throws SQLException 
-	{
-		if(parameters[index] instanceof java.util.Date)
-		{
-			prstatement.setDate(index+1, new java.sql.Date(((java.util.Date) parameters[index]).getTime()));
-		}
-		else if(parameters[index] instanceof java.sql.Time)
-		{
-			prstatement.setTime(index+1, ((java.sql.Time) parameters[index]));
-		}
-		else if(parameters[index] instanceof java.sql.Timestamp)
-		{
-			prstatement.setTimestamp(index+1, ((java.sql.Timestamp) parameters[index]));
-		}
-		else
-		{
-			return(false);
-		}
-		
-		return(true);
-	}
-	
-	/**
-	 * M�todo que configura os parametros do tipo Integer no {@link PreparedStatement}
-	 * 
-	 * @param prstatement O {@link PreparedStatement}
-	 * @param index O index da posi��o atual
-	 * @param parameters Os parametros a serem configurados
-	 * 
-	 * @return Se True, houve parametros do tipo Integer configurado
-	 * @throws SQLException Caso algum erro, uma exce��o ser� lan�ada.
-	 */
-	private boolean hasIntegerConfigured(PreparedStatement prstatement, int index, Object... parameters) throws SQLException
-	{
-		if(parameters[index] instanceof Long)
-		{
-			prstatement.setLong(index+1,((Long) parameters[index]).longValue());
-		}
-		else if(parameters[index] instanceof Integer)
-		{
-			prstatement.setInt(index+1,((Integer) parameters[index]).intValue());
-		}
-		else if(parameters[index] instanceof BigDecimal)
-		{
-			prstatement.setBigDecimal(index+1,(BigDecimal) parameters[index]);
-		}
-		else if(parameters[index] instanceof Double)
-		{
-			prstatement.setDouble(index+1,((Double) parameters[index]).doubleValue());
-		}
-		else if(parameters[index] instanceof Float)
-		{
-			prstatement.setFloat(index+1,((Float) parameters[index]).floatValue());
-		}
-		else if(parameters[index] instanceof Short)
-		{
-			prstatement.setShort(index+1,((Short) parameters[index]).shortValue());
-		}
-		else
-		{
-			return(false);
-		}
-		
-		return(true);
-	}
-	
-	/**
-	 * M�todo que configura os parametros do tipo Boolean no {@link PreparedStatement}
-	 * 
-	 * @param prstatement O {@link PreparedStatement}
-	 * @param index O index da posi��o atual
+	 * Método que faz o set dos parametros de um {@link PreparedStatement} usando uma assinatura pré-resolvida
+	 * <p>
+	 * Indicado para comandos executados repetidas vezes com os mesmos tipos de parametros, já que nenhuma busca pelo tipo é feita.
+	 *  
+	 * @param prstatement O {@link PreparedStatement} com os parametros
+	 * @param signature A assinatura dos parametros do comando
 	 * @param parameters Os parametros a serem configurados
 	 * 
-	 * @return Se True, houve parametros do tipo Boolean configurado
-	 * @throws SQLException Caso algum erro, uma exce��o ser� lan�ada.
+	 * @return Um {@link PreparedStatement} com os parametros configurados
+	 * @throws SQLException Caso algum erro, uma exceção será lançada.
 	 */
-	private boolean hasOtherConfigured(PreparedStatement prstatement, int index, Object... parameters) throws SQLException
+	public PreparedStatement configureStatements(PreparedStatement prstatement, ParameterSignature signature, Object... parameters) throws SQLException
 	{
-		if(parameters[index] instanceof java.sql.Array)
-		{
-			prstatement.setArray(index+1,(java.sql.Array) parameters[index]);
-		}
-		else if(parameters[index] instanceof Boolean)
-		{
-			prstatement.setBoolean(index+1,((Boolean) parameters[index]).booleanValue());
-		}
-		else if(parameters[index] instanceof java.net.URL)
-		{
-			prstatement.setURL(index+1,(java.net.URL) parameters[index]);
-		}
-		else if(parameters[index] instanceof Ref)
-		{
-			prstatement.setRef(index+1,(Ref) parameters[index]);
-		}
-		else if(parameters[index] instanceof byte[])
-		{
-			prstatement.setBytes(index+1,(byte[]) parameters[index]);
-		}
-		else if(parameters[index].getClass().isArray())
-		{
-			prstatement.setArray(index+1, (Array) parameters[index]);
-		}
-		else if(parameters[index] instanceof Blob)
-		{
-			prstatement.setBlob(index+1, (Blob)parameters[index]);
-		}
-		else if(parameters[index] instanceof Clob)
-		{
-			prstatement.setClob(index+1, (Clob)parameters[index]);
-		}
-		else if(parameters[index] instanceof InputStream)
-		{
-			throw new SQLException("Parametros do tipo INPUT_STREAM, UNICODE_STREAM, BINARY_STREAM e CHARACTER_STREAM ainda n\u00E3o foram implementados!");
-		}
-		else if(parameters[index] instanceof Object)
-		{
-			 prstatement.setObject(index+1, parameters[index]);
-		}
-		else 
-		{
-			return(false);
-		}
-		
-		return(true);
+		return(signature.bind(prstatement, parameters));
 	}
 }
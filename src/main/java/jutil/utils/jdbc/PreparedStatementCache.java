@@ -0,0 +1,304 @@
+package jutil.utils.jdbc;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Classe que mantém um cache LRU de {@link PreparedStatement} de uma conexão, indexado pelo texto da SQL, tipo e concorrência do {@link ResultSet}
+ * <p>
+ * Quando o cache atinge o tamanho máximo, o {@link PreparedStatement} usado há mais tempo é fechado e removido.
+ * <p>
+ * Os {@link ResultSet} retornados pelos statements do cache devem ser informados em {@link #register(PreparedStatement, ResultSet)}.
+ * Um statement cujo {@link ResultSet} ainda está aberto nunca é reaproveitado nem fechado pelo cache: uma nova execução da mesma SQL
+ * prepara outro statement, e o anterior sai do cache com {@link java.sql.Statement#closeOnCompletion()}, sendo fechado pelo driver quando
+ * o seu {@link ResultSet} for fechado. O mesmo ocorre quando ele é o mais antigo do cache.
+ *
+ * @author Diego Steyner
+ */
+public class PreparedStatementCache
+{
+	/**
+	 * Tamanho padrão do cache
+	 */
+	public static final int DEFAULT_MAX_SIZE = 64;
+
+	private final LinkedHashMap<String, PreparedStatement> statements;
+	private final IdentityHashMap<PreparedStatement, ResultSet> results = new IdentityHashMap<PreparedStatement, ResultSet>();
+	private final int maxSize;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Construtor que cria um cache com o tamanho padrão
+	 */
+	public PreparedStatementCache()
+	{
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Construtor
+	 *
+	 * @param maxSize A quantidade máxima de {@link PreparedStatement} mantidos abertos
+	 */
+	public PreparedStatementCache(int maxSize)
+	{
+		if(maxSize < 1)
+		{
+			throw new IllegalArgumentException("O tamanho do cache deve ser maior que zero.");
+		}
+
+		this.maxSize = maxSize;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest)
+			{
+				if(size() > PreparedStatementCache.this.maxSize)
+				{
+					evictions++;
+					release(eldest.getValue());
+					return(true);
+				}
+
+				return(false);
+			}
+		};
+	}
+
+	/**
+	 * Método que retorna o {@link PreparedStatement} da SQL, preparando-o na conexão caso ainda não exista no cache
+	 *
+	 * @param connection A conexão dona do cache
+	 * @param sql A SQL a ser preparada
+	 * @param resultSetType O tipo do {@link ResultSet} a ser retornado
+	 * @param resultSetConcurrecy O tipo de concorrencia do {@link ResultSet} a ser retornado
+	 *
+	 * @return O {@link PreparedStatement} da SQL
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	public synchronized PreparedStatement prepareStatement(Connection connection, String sql, int resultSetType, int resultSetConcurrecy) throws SQLException
+	{
+		String key = createKey('S', sql, resultSetType, resultSetConcurrecy);
+		PreparedStatement statement = getOpenStatement(key);
+
+		if(statement == null)
+		{
+			statement = connection.prepareStatement(sql, resultSetType, resultSetConcurrecy);
+			results.put(statement, null);
+			statements.put(key, statement);
+		}
+
+		return(statement);
+	}
+
+	/**
+	 * Método que retorna o {@link CallableStatement} da chamada, preparando-o na conexão caso ainda não exista no cache
+	 *
+	 * @param connection A conexão dona do cache
+	 * @param sql A chamada a ser preparada
+	 * @param resultSetType O tipo do {@link ResultSet} a ser retornado
+	 * @param resultSetConcurrecy O tipo de concorrencia do {@link ResultSet} a ser retornado
+	 *
+	 * @return O {@link CallableStatement} da chamada
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	public synchronized CallableStatement prepareCall(Connection connection, String sql, int resultSetType, int resultSetConcurrecy) throws SQLException
+	{
+		String key = createKey('C', sql, resultSetType, resultSetConcurrecy);
+		PreparedStatement statement = getOpenStatement(key);
+
+		if(statement == null)
+		{
+			statement = connection.prepareCall(sql, resultSetType, resultSetConcurrecy);
+			results.put(statement, null);
+			statements.put(key, statement);
+		}
+
+		return((CallableStatement) statement);
+	}
+
+	/**
+	 * Método que registra o {@link ResultSet} retornado por um {@link PreparedStatement} do cache, impedindo que o statement seja
+	 * reaproveitado ou fechado pelo cache enquanto o {@link ResultSet} estiver aberto
+	 *
+	 * @param statement O {@link PreparedStatement} que foi executado
+	 * @param result O {@link ResultSet} retornado pela execução
+	 *
+	 * @return O próprio {@link ResultSet}
+	 */
+	public synchronized ResultSet register(PreparedStatement statement, ResultSet result)
+	{
+		if(results.containsKey(statement))
+		{
+			results.put(statement, result);
+		}
+
+		return(result);
+	}
+
+	/**
+	 * Método que fecha e remove todos os {@link PreparedStatement} do cache, inclusive os que possuem um {@link ResultSet} aberto
+	 */
+	public synchronized void clear()
+	{
+		for (PreparedStatement statement : statements.values())
+		{
+			closeQuietly(statement);
+		}
+
+		statements.clear();
+		results.clear();
+	}
+
+	/**
+	 * Método que retorna um {@link PreparedStatement} ainda aberto do cache, contabilizando o acerto ou a falha
+	 *
+	 * @param key A chave do {@link PreparedStatement}
+	 *
+	 * @return O {@link PreparedStatement} ou null caso não exista ou tenha sido fechado fora do cache
+	 * @throws SQLException Caso ocorra algum erro uma excessão será lançada
+	 */
+	private PreparedStatement getOpenStatement(String key) throws SQLException
+	{
+		PreparedStatement statement = statements.get(key);
+
+		if(statement != null && (statement.isClosed() || isBusy(statement)))
+		{
+			statements.remove(key);
+			release(statement);
+			statement = null;
+		}
+
+		if(statement == null)
+		{
+			misses++;
+		}
+		else
+		{
+			hits++;
+		}
+
+		return(statement);
+	}
+
+	/**
+	 * Método que cria a chave do cache
+	 *
+	 * @param kind O tipo do comando, 'S' para {@link PreparedStatement} e 'C' para {@link CallableStatement}
+	 * @param sql A SQL
+	 * @param resultSetType O tipo do {@link ResultSet}
+	 * @param resultSetConcurrecy O tipo de concorrencia do {@link ResultSet}
+	 *
+	 * @return A chave do cache
+	 */
+	private static String createKey(char kind, String sql, int resultSetType, int resultSetConcurrecy)
+	{
+		return(new StringBuilder(sql.length() + 16).append(kind).append(resultSetType).append(':').append(resultSetConcurrecy).append(':').append(sql).toString());
+	}
+
+	/**
+	 * Método que informa se o {@link ResultSet} registrado para o statement ainda está aberto
+	 *
+	 * @param statement O {@link PreparedStatement}
+	 *
+	 * @return Se True, o statement não pode ser reaproveitado nem fechado
+	 */
+	private boolean isBusy(PreparedStatement statement)
+	{
+		ResultSet result = results.get(statement);
+
+		try
+		{
+			return(result != null && !result.isClosed());
+		}
+		catch (SQLException e)
+		{
+			// Sem saber se o ResultSet ainda é usado, o statement é tratado como ocupado
+			return(true);
+		}
+	}
+
+	/**
+	 * Método que tira um {@link PreparedStatement} do controle do cache, fechando-o ou, caso o seu {@link ResultSet} ainda esteja aberto,
+	 * deixando-o para ser fechado pelo driver junto com o {@link ResultSet}
+	 *
+	 * @param statement O {@link PreparedStatement} removido do cache
+	 */
+	private void release(PreparedStatement statement)
+	{
+		boolean busy = isBusy(statement);
+
+		results.remove(statement);
+
+		if(!busy)
+		{
+			closeQuietly(statement);
+			return;
+		}
+
+		try
+		{
+			statement.closeOnCompletion();
+		}
+		catch (SQLException e)
+		{
+			// O driver não suporta, o statement fica aberto até a conexão ser fechada para não fechar o ResultSet em uso
+		}
+	}
+
+	/**
+	 * Método que fecha um {@link PreparedStatement} ignorando erros
+	 *
+	 * @param statement O {@link PreparedStatement} a ser fechado
+	 */
+	private static void closeQuietly(PreparedStatement statement)
+	{
+		try
+		{
+			statement.close();
+		}
+		catch (SQLException e)
+		{
+			// O statement já não é mais usado pelo cache
+		}
+	}
+
+	/**
+	 * @return A quantidade de {@link PreparedStatement} no cache
+	 */
+	public synchronized int size()
+	{
+		return(statements.size());
+	}
+
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+}
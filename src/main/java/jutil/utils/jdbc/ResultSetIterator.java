@@ -0,0 +1,191 @@
+package jutil.utils.jdbc;
+
+import java.beans.IntrospectionException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import jutil.annotation.JdbcColumnOf;
+import jutil.data.enums.RowMapperEnum;
+
+/**
+ * Classe que percorre um {@link ResultSet} de forma preguiçosa, transformando uma linha por vez em um objeto com campos anotados com {@link JdbcColumnOf}
+ * <p>
+ * Nenhuma linha é mantida em memória pelo iterador, o que permite processar consultas de qualquer tamanho com consumo de memória constante.
+ * Ao chegar ao fim do {@link ResultSet} ou ao chamar {@link #close()}, o {@link ResultSet} e o {@link Statement} que o criou são fechados.
+ *
+ * @author Diego Steyner
+ */
+public class ResultSetIterator<T> implements Iterator<T>, Iterable<T>, AutoCloseable
+{
+	private final ResultSet result;
+	private final Class<T> klass;
+	private final RowMapperEnum engine;
+	private final boolean closeStatement;
+
+	private ResultSetRowMapper<T> mapper;
+	private boolean hasNextRow;
+	private boolean nextLoaded;
+	private boolean closed;
+
+	/**
+	 * Construtor que cria um iterador que fecha o {@link ResultSet} e o seu {@link Statement} ao final
+	 *
+	 * @param result O {@link ResultSet} a ser percorrido
+	 * @param klass A classe para o qual as linhas deverão ser convertidas
+	 * @param engine O motor de mapeamento a ser usado
+	 */
+	public ResultSetIterator(ResultSet result, Class<T> klass, RowMapperEnum engine)
+	{
+		this(result, klass, engine, true);
+	}
+
+	/**
+	 * Construtor
+	 *
+	 * @param result O {@link ResultSet} a ser percorrido
+	 * @param klass A classe para o qual as linhas deverão ser convertidas
+	 * @param engine O motor de mapeamento a ser usado
+	 * @param closeStatement Se True, o {@link Statement} que criou o {@link ResultSet} também será fechado ao final
+	 */
+	public ResultSetIterator(ResultSet result, Class<T> klass, RowMapperEnum engine, boolean closeStatement)
+	{
+		this.result = result;
+		this.klass = klass;
+		this.engine = engine;
+		this.closeStatement = closeStatement;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		if(!nextLoaded && !closed)
+		{
+			try
+			{
+				hasNextRow = result.next();
+				nextLoaded = true;
+
+				if(!hasNextRow)
+				{
+					close();
+				}
+			}
+			catch (SQLException e)
+			{
+				closeQuietly();
+				throw new IllegalStateException("Erro ao avançar o ResultSet.", e);
+			}
+		}
+
+		return(nextLoaded && hasNextRow);
+	}
+
+	@Override
+	public T next()
+	{
+		if(!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+
+		nextLoaded = false;
+
+		try
+		{
+			if(mapper == null)
+			{
+				mapper = ResultSetRowMapper.getMapper(result, klass);
+			}
+
+			return(mapper.mapRow(result, engine));
+		}
+		catch (SQLException | ReflectiveOperationException | IntrospectionException e)
+		{
+			closeQuietly();
+			throw new IllegalStateException("Erro ao transformar a linha do ResultSet em [ "+klass.getName()+" ].", e);
+		}
+	}
+
+	@Override
+	public void remove()
+	{
+		throw new UnsupportedOperationException("O ResultSetIterator não suporta remoção de linhas.");
+	}
+
+	@Override
+	public Iterator<T> iterator()
+	{
+		return(this);
+	}
+
+	/**
+	 * Método que retorna um {@link Stream} sequencial sobre as linhas restantes do {@link ResultSet}
+	 * <p>
+	 * O {@link Stream} deve ser fechado caso não seja consumido até o final, para liberar o {@link ResultSet}
+	 *
+	 * @return O {@link Stream} das linhas transformadas
+	 */
+	public Stream<T> stream()
+	{
+		return(StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				closeQuietly();
+			}
+		}));
+	}
+
+	/**
+	 * Método que fecha o {@link ResultSet} e, se configurado, o {@link Statement} que o criou
+	 *
+	 * @throws SQLException Caso ocorra algum erro uma exceção será lançada
+	 */
+	@Override
+	public void close() throws SQLException
+	{
+		if(closed)
+		{
+			return;
+		}
+
+		closed = true;
+
+		Statement statement = closeStatement ? result.getStatement() : null;
+
+		try
+		{
+			result.close();
+		}
+		finally
+		{
+			if(statement != null)
+			{
+				statement.close();
+			}
+		}
+	}
+
+	/**
+	 * Método que fecha o iterador ignorando erros, usado quando já existe uma exceção sendo propagada
+	 */
+	private void closeQuietly()
+	{
+		try
+		{
+			close();
+		}
+		catch (SQLException e)
+		{
+			// A exceção original é mais relevante do que o erro ao fechar
+		}
+	}
+}
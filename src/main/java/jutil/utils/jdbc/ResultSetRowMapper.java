@@ -0,0 +1,535 @@
+package jutil.utils.jdbc;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jutil.annotation.JdbcColumnOf;
+import jutil.data.enums.RowMapperEnum;
+
+/**
+ * Classe que representa o mapeamento compilado de um {@link ResultSet} para uma classe com campos anotados com {@link JdbcColumnOf}
+ * <p>
+ * Toda a introspecção (campos anotados, índice das colunas e tipo de conversão) é resolvida uma única vez para cada
+ * combinação de classe e formato do {@link ResultSetMetaData} e fica em cache, de forma que o preenchimento de cada linha
+ * não faz nenhuma busca por reflection.
+ * <p>
+ * O preenchimento pode ser feito via {@link Method#invoke(Object, Object...)} ou via {@link MethodHandle} com assinatura exata
+ * (veja {@link RowMapperEnum}), sendo que o segundo não faz boxing dos tipos primitivos.
+ *
+ * @author Diego Steyner
+ */
+public final class ResultSetRowMapper<T>
+{
+	private static final int STRING = 0;
+	private static final int INT = 1;
+	private static final int LONG = 2;
+	private static final int BIG_DECIMAL = 3;
+	private static final int DOUBLE = 4;
+	private static final int FLOAT = 5;
+	private static final int BOOLEAN = 6;
+	private static final int BLOB = 7;
+	private static final int CLOB = 8;
+	private static final int UTIL_DATE = 9;
+	private static final int SQL_DATE = 10;
+	private static final int BYTES = 11;
+
+	private static final Class<?>[] PARAMETER_TYPES = {String.class, int.class, long.class, BigDecimal.class, double.class, float.class, boolean.class, Blob.class, Clob.class, Date.class, java.sql.Date.class, byte[].class};
+
+	private static final ConcurrentHashMap<MapperKey, ResultSetRowMapper<?>> CACHE = new ConcurrentHashMap<MapperKey, ResultSetRowMapper<?>>();
+
+	private final Class<T> klass;
+	private final Method[] setters;
+	private final int[] columnIndexes;
+	private final int[] kinds;
+
+	private volatile MethodHandle[] handles;
+	private MethodHandle constructorHandle;
+
+	private ResultSetRowMapper(Class<T> klass, Method[] setters, int[] columnIndexes, int[] kinds)
+	{
+		this.klass = klass;
+		this.setters = setters;
+		this.columnIndexes = columnIndexes;
+		this.kinds = kinds;
+	}
+
+	/**
+	 * Método que retorna o mapeamento compilado de uma classe para o formato do {@link ResultSet}, criando-o caso ainda não exista no cache
+	 *
+	 * @param result O {@link ResultSet} que será transformado
+	 * @param klass A classe para o qual o {@link ResultSet} deverá ser convertido
+	 *
+	 * @return O {@link ResultSetRowMapper} da classe
+	 * @throws NoSuchFieldException Caso algum campo anotado seja incompatível com a coluna, uma exceção será lançada
+	 * @throws SQLException Caso ocorra algum erro com o {@link ResultSet} uma exceção será lançada
+	 * @throws IntrospectionException Caso ocorra algum erro na introspecção da classe, uma exceção será lançada
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ResultSetRowMapper<T> getMapper(ResultSet result, Class<T> klass) throws NoSuchFieldException, SQLException, IntrospectionException
+	{
+		MapperKey key = new MapperKey(klass, result.getMetaData());
+		ResultSetRowMapper<?> mapper = CACHE.get(key);
+
+		if(mapper == null)
+		{
+			mapper = compile(result, klass);
+
+			ResultSetRowMapper<?> previous = CACHE.putIfAbsent(key, mapper);
+
+			if(previous != null)
+			{
+				mapper = previous;
+			}
+		}
+
+		return((ResultSetRowMapper<T>) mapper);
+	}
+
+	/**
+	 * Método que remove todos os mapeamentos compilados do cache
+	 */
+	public static void clearCache()
+	{
+		CACHE.clear();
+	}
+
+	/**
+	 * Método que cria uma instância da classe a partir da linha atual do {@link ResultSet}
+	 *
+	 * @param result O {@link ResultSet} posicionado na linha a ser transformada
+	 *
+	 * @return Um objeto do tipo mapeado
+	 * @throws InstantiationException Caso ocorra algum erro de instanciação, uma exceção será lançada
+	 * @throws IllegalAccessException Caso ocorra algum erro de violação de acesso, uma exceção será lançada
+	 * @throws InvocationTargetException Caso ocorra algum erro com a chamada a classe, uma exceção será lançada
+	 * @throws SQLException Caso ocorra algum erro com o {@link ResultSet} uma exceção será lançada
+	 */
+	public T mapRow(ResultSet result) throws InstantiationException, IllegalAccessException, InvocationTargetException, SQLException
+	{
+		T instance = klass.newInstance();
+
+		for (int i = 0; i < kinds.length; i++)
+		{
+			final int colIndex = columnIndexes[i];
+
+			switch (kinds[i])
+			{
+				case STRING:
+					setters[i].invoke(instance, result.getString(colIndex));
+					break;
+				case INT:
+					setters[i].invoke(instance, result.getInt(colIndex));
+					break;
+				case LONG:
+					setters[i].invoke(instance, result.getLong(colIndex));
+					break;
+				case BIG_DECIMAL:
+					setters[i].invoke(instance, result.getBigDecimal(colIndex));
+					break;
+				case DOUBLE:
+					setters[i].invoke(instance, result.getDouble(colIndex));
+					break;
+				case FLOAT:
+					setters[i].invoke(instance, result.getFloat(colIndex));
+					break;
+				case BOOLEAN:
+					setters[i].invoke(instance, result.getBoolean(colIndex));
+					break;
+				case BLOB:
+					setters[i].invoke(instance, result.getBlob(colIndex));
+					break;
+				case CLOB:
+					setters[i].invoke(instance, result.getClob(colIndex));
+					break;
+				case UTIL_DATE:
+					setters[i].invoke(instance, new Date(result.getDate(colIndex).getTime()));
+					break;
+				case SQL_DATE:
+					setters[i].invoke(instance, result.getDate(colIndex));
+					break;
+				case BYTES:
+					setters[i].invoke(instance, (Object) result.getBytes(colIndex));
+					break;
+			}
+		}
+
+		return(instance);
+	}
+
+	/**
+	 * Método que cria uma instância da classe a partir da linha atual do {@link ResultSet} usando o motor de mapeamento informado
+	 *
+	 * @param result O {@link ResultSet} posicionado na linha a ser transformada
+	 * @param engine O motor de mapeamento a ser usado
+	 *
+	 * @return Um objeto do tipo mapeado
+	 * @throws InstantiationException Caso ocorra algum erro de instanciação, uma exceção será lançada
+	 * @throws IllegalAccessException Caso ocorra algum erro de violação de acesso, uma exceção será lançada
+	 * @throws InvocationTargetException Caso ocorra algum erro com a chamada a classe, uma exceção será lançada
+	 * @throws SQLException Caso ocorra algum erro com o {@link ResultSet} uma exceção será lançada
+	 */
+	public T mapRow(ResultSet result, RowMapperEnum engine) throws InstantiationException, IllegalAccessException, InvocationTargetException, SQLException
+	{
+		if(RowMapperEnum.METHOD_HANDLE == engine)
+		{
+			return(mapRowByHandles(result));
+		}
+
+		return(mapRow(result));
+	}
+
+	/**
+	 * Método que cria uma instância da classe a partir da linha atual do {@link ResultSet} usando {@link MethodHandle}
+	 *
+	 * @param result O {@link ResultSet} posicionado na linha a ser transformada
+	 *
+	 * @return Um objeto do tipo mapeado
+	 * @throws IllegalAccessException Caso ocorra algum erro de violação de acesso, uma exceção será lançada
+	 * @throws InvocationTargetException Caso ocorra algum erro com a chamada a classe, uma exceção será lançada
+	 * @throws SQLException Caso ocorra algum erro com o {@link ResultSet} uma exceção será lançada
+	 */
+	private T mapRowByHandles(ResultSet result) throws IllegalAccessException, InvocationTargetException, SQLException
+	{
+		MethodHandle[] vhandles = handles;
+
+		if(vhandles == null)
+		{
+			vhandles = createHandles();
+		}
+
+		try
+		{
+			Object instance = (Object) constructorHandle.invokeExact();
+
+			for (int i = 0; i < kinds.length; i++)
+			{
+				final int colIndex = columnIndexes[i];
+
+				switch (kinds[i])
+				{
+					case STRING:
+						vhandles[i].invokeExact(instance, result.getString(colIndex));
+						break;
+					case INT:
+						vhandles[i].invokeExact(instance, result.getInt(colIndex));
+						break;
+					case LONG:
+						vhandles[i].invokeExact(instance, result.getLong(colIndex));
+						break;
+					case BIG_DECIMAL:
+						vhandles[i].invokeExact(instance, result.getBigDecimal(colIndex));
+						break;
+					case DOUBLE:
+						vhandles[i].invokeExact(instance, result.getDouble(colIndex));
+						break;
+					case FLOAT:
+						vhandles[i].invokeExact(instance, result.getFloat(colIndex));
+						break;
+					case BOOLEAN:
+						vhandles[i].invokeExact(instance, result.getBoolean(colIndex));
+						break;
+					case BLOB:
+						vhandles[i].invokeExact(instance, result.getBlob(colIndex));
+						break;
+					case CLOB:
+						vhandles[i].invokeExact(instance, result.getClob(colIndex));
+						break;
+					case UTIL_DATE:
+						vhandles[i].invokeExact(instance, new Date(result.getDate(colIndex).getTime()));
+						break;
+					case SQL_DATE:
+						vhandles[i].invokeExact(instance, result.getDate(colIndex));
+						break;
+					case BYTES:
+						vhandles[i].invokeExact(instance, result.getBytes(colIndex));
+						break;
+				}
+			}
+
+			return(klass.cast(instance));
+		}
+		catch (SQLException | RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable e)
+		{
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	/**
+	 * Método que cria os {@link MethodHandle} do construtor e dos métodos set, já adaptados para a assinatura exata de cada conversão
+	 *
+	 * @return Os {@link MethodHandle} dos métodos set
+	 * @throws IllegalAccessException Caso a classe ou algum método não seja acessível, uma exceção será lançada
+	 */
+	private MethodHandle[] createHandles() throws IllegalAccessException
+	{
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle[] vhandles = new MethodHandle[kinds.length];
+
+		try
+		{
+			constructorHandle = lookup.findConstructor(klass, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
+		}
+		catch (NoSuchMethodException e)
+		{
+			throw new IllegalAccessException("A classe [ "+klass.getName()+" ] não possui um construtor público sem parametros.");
+		}
+
+		for (int i = 0; i < vhandles.length; i++)
+		{
+			vhandles[i] = lookup.unreflect(setters[i]).asType(MethodType.methodType(void.class, Object.class, PARAMETER_TYPES[kinds[i]]));
+		}
+
+		handles = vhandles;
+
+		return(vhandles);
+	}
+
+	/**
+	 * Método que faz a introspecção da classe e resolve as colunas e conversões de cada campo anotado
+	 *
+	 * @param result O {@link ResultSet} que será transformado
+	 * @param klass A classe para o qual o {@link ResultSet} deverá ser convertido
+	 *
+	 * @return O mapeamento compilado
+	 * @throws NoSuchFieldException Caso algum campo anotado seja incompatível com a coluna, uma exceção será lançada
+	 * @throws SQLException Caso ocorra algum erro com o {@link ResultSet} uma exceção será lançada
+	 * @throws IntrospectionException Caso ocorra algum erro na introspecção da classe, uma exceção será lançada
+	 */
+	private static <T> ResultSetRowMapper<T> compile(ResultSet result, Class<T> klass) throws NoSuchFieldException, SQLException, IntrospectionException
+	{
+		ResultSetMetaData metaData = result.getMetaData();
+
+		ArrayList<Method> setters = new ArrayList<>();
+		ArrayList<Integer> indexes = new ArrayList<>();
+		ArrayList<Integer> kinds = new ArrayList<>();
+
+		Field field;
+		int kind;
+		int colIndex;
+		String columnName;
+
+		for(PropertyDescriptor i : Introspector.getBeanInfo(klass).getPropertyDescriptors())
+		{
+			if(!i.getName().equalsIgnoreCase("class"))
+			{
+				if((field = klass.getDeclaredField(i.getName())).isAnnotationPresent(JdbcColumnOf.class))
+				{
+					columnName = field.getAnnotation(JdbcColumnOf.class).columnName();
+					colIndex = result.findColumn(columnName);
+					kind = resolveKind(field, columnName, metaData.getColumnType(colIndex), metaData.getColumnTypeName(colIndex));
+
+					if(kind < 0)
+					{
+						continue;
+					}
+
+					if(i.getWriteMethod() == null)
+					{
+						throw new NoSuchFieldException("O campo [ "+field.getName()+" ] não possui um método set público.");
+					}
+
+					setters.add(i.getWriteMethod());
+					indexes.add(colIndex);
+					kinds.add(kind);
+				}
+			}
+		}
+
+		int vindexes[] = new int[indexes.size()];
+		int vkinds[] = new int[kinds.size()];
+
+		for (int i = 0; i < vkinds.length; i++)
+		{
+			vindexes[i] = indexes.get(i);
+			vkinds[i] = kinds.get(i);
+		}
+
+		return(new ResultSetRowMapper<T>(klass, setters.toArray(new Method[setters.size()]), vindexes, vkinds));
+	}
+
+	/**
+	 * Método que resolve qual conversão deve ser usada entre a coluna e o campo
+	 *
+	 * @param field A variável que receberá o valor
+	 * @param columnName O nome da coluna
+	 * @param colType O tipo da coluna retornado pelo SQL
+	 * @param colTypeName O nome do tipo da coluna retornado pelo SQL
+	 *
+	 * @return O tipo de conversão ou -1 caso a coluna não tenha conversão suportada
+	 * @throws NoSuchFieldException Caso o campo seja incompatível com a coluna, uma exceção será lançada
+	 */
+	private static int resolveKind(Field field, String columnName, int colType, String colTypeName) throws NoSuchFieldException
+	{
+		if(java.sql.Types.CHAR == colType || java.sql.Types.LONGNVARCHAR == colType || java.sql.Types.LONGVARCHAR == colType || java.sql.Types.NCHAR == colType || java.sql.Types.NVARCHAR == colType || java.sql.Types.VARCHAR == colType)
+		{
+			fieldsOfType(field, String.class, columnName, colTypeName);
+			return(STRING);
+		}
+
+		if(java.sql.Types.NUMERIC == colType || java.sql.Types.DECIMAL == colType || java.sql.Types.DOUBLE == colType || java.sql.Types.FLOAT == colType || java.sql.Types.INTEGER == colType || java.sql.Types.BIGINT == colType || java.sql.Types.REAL == colType || java.sql.Types.ROWID == colType || java.sql.Types.SMALLINT == colType || java.sql.Types.TINYINT == colType)
+		{
+			if(field.getType() == int.class)
+			{
+				return(INT);
+			}
+			else if(field.getType() == long.class)
+			{
+				return(LONG);
+			}
+			else if(field.getType() == BigDecimal.class)
+			{
+				return(BIG_DECIMAL);
+			}
+			else if(field.getType() == double.class)
+			{
+				return(DOUBLE);
+			}
+			else if(field.getType() == float.class)
+			{
+				return(FLOAT);
+			}
+
+			throw incompatibleField(field, columnName, colTypeName);
+		}
+
+		if(java.sql.Types.BIT == colType || java.sql.Types.BOOLEAN == colType)
+		{
+			fieldsOfType(field, boolean.class, columnName, colTypeName);
+			return(BOOLEAN);
+		}
+
+		if(java.sql.Types.BLOB == colType)
+		{
+			fieldsOfType(field, Blob.class, columnName, colTypeName);
+			return(BLOB);
+		}
+
+		if(java.sql.Types.CLOB == colType)
+		{
+			fieldsOfType(field, Clob.class, columnName, colTypeName);
+			return(CLOB);
+		}
+
+		if(java.sql.Types.DATE == colType || java.sql.Types.TIME == colType || java.sql.Types.TIMESTAMP == colType || java.sql.Types.TIME_WITH_TIMEZONE == colType || java.sql.Types.TIMESTAMP_WITH_TIMEZONE == colType)
+		{
+			if(field.getType() == Date.class)
+			{
+				return(UTIL_DATE);
+			}
+			else if(field.getType() == java.sql.Date.class)
+			{
+				return(SQL_DATE);
+			}
+
+			throw incompatibleField(field, columnName, colTypeName);
+		}
+
+		if(java.sql.Types.BINARY == colType || java.sql.Types.LONGVARBINARY == colType || java.sql.Types.VARBINARY == colType)
+		{
+			fieldsOfType(field, byte[].class, columnName, colTypeName);
+			return(BYTES);
+		}
+
+		return(-1);
+	}
+
+	/**
+	 * Método que verifica se o campo da SQL é do mesmo tipo do campo a ser configurado
+	 *
+	 * @param field A variável que receberá o valor
+	 * @param type A classe que será o destino
+	 * @param columnName O nome da coluna retornado pela SQL
+	 * @param colTypeName O tipo da coluna retornado pelo SQL
+	 *
+	 * @throws NoSuchFieldException Caso o campo seja incompatível com a coluna, uma exceção será lançada
+	 */
+	private static void fieldsOfType(Field field, Class<?> type, String columnName, String colTypeName) throws NoSuchFieldException
+	{
+		if(field.getType() != type)
+		{
+			throw incompatibleField(field, columnName, colTypeName);
+		}
+	}
+
+	/**
+	 * Método que cria a exceção de campo incompatível com a coluna
+	 *
+	 * @param field A variável que receberia o valor
+	 * @param columnName O nome da coluna retornado pela SQL
+	 * @param colTypeName O tipo da coluna retornado pelo SQL
+	 *
+	 * @return A exceção a ser lançada
+	 */
+	private static NoSuchFieldException incompatibleField(Field field, String columnName, String colTypeName)
+	{
+		return(new NoSuchFieldException("O campo [ "+field.getName()+" ] foi declarado como [ "+field.getType().getName()+" ] que é um tipo incompativel com a coluna [ "+columnName+" ] que é do tipo [ "+colTypeName+" ]."));
+	}
+
+	/**
+	 * Chave do cache de mapeamentos, formada pela classe e pelo formato (nomes e tipos das colunas) do {@link ResultSetMetaData}
+	 */
+	private static final class MapperKey
+	{
+		private final Class<?> klass;
+		private final String shape;
+		private final int hash;
+
+		private MapperKey(Class<?> klass, ResultSetMetaData metaData) throws SQLException
+		{
+			StringBuilder builder = new StringBuilder();
+
+			for (int i = 1; i <= metaData.getColumnCount(); i++)
+			{
+				builder.append(metaData.getColumnLabel(i)).append(':').append(metaData.getColumnType(i)).append(';');
+			}
+
+			this.klass = klass;
+			this.shape = builder.toString();
+			this.hash = 31 * klass.hashCode() + shape.hashCode();
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return(hash);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(this == obj)
+			{
+				return(true);
+			}
+
+			if(!(obj instanceof MapperKey))
+			{
+				return(false);
+			}
+
+			MapperKey other = (MapperKey) obj;
+
+			return(klass == other.klass && shape.equals(other.shape));
+		}
+	}
+}
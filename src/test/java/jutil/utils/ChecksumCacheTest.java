@@ -0,0 +1,150 @@
+package jutil.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes do índice de CheckSums da classe {@link ChecksumCache}
+ *
+ * @author Diego Steyner
+ */
+public class ChecksumCacheTest
+{
+    private File dir;
+    private File index;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("checksum").toFile();
+        index = new File(dir, "checksums.idx");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        FileUtils.deleteDir(dir);
+    }
+
+    @Test
+    public void shouldOnlyRecomputeChangedFiles() throws Exception
+    {
+        File file = write("a.txt", "primeira versão");
+
+        try (ChecksumCache cache = new ChecksumCache(index, ChecksumUtils.CRC32))
+        {
+            byte[] first = cache.getChecksum(file);
+
+            assertArrayEquals(ChecksumUtils.checksum(file, ChecksumUtils.CRC32), first);
+            assertArrayEquals(first, cache.getChecksum(file));
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+
+            write("a.txt", "segunda versão, maior");
+
+            assertFalse(Arrays.equals(first, cache.getChecksum(file)));
+            assertEquals(2, cache.getMisses());
+        }
+    }
+
+    @Test
+    public void shouldReloadTheSavedIndex() throws Exception
+    {
+        File a = write("a.txt", "arquivo a");
+        File b = write("b.txt", "arquivo b");
+        byte[] checksum;
+
+        try (ChecksumCache cache = new ChecksumCache(index, "SHA-256"))
+        {
+            checksum = cache.getChecksum(a);
+            cache.getChecksum(b);
+        }
+
+        assertTrue(index.isFile());
+
+        try (ChecksumCache cache = new ChecksumCache(index, "SHA-256"))
+        {
+            assertEquals(2, cache.size());
+            assertArrayEquals(checksum, cache.getChecksum(a));
+            assertEquals(1, cache.getHits());
+            assertEquals(0, cache.getMisses());
+
+            assertTrue(b.delete());
+            assertEquals(1, cache.evictDeleted());
+            assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    public void shouldReturnCopiesOfTheChecksums() throws Exception
+    {
+        File file = write("a.txt", "conteúdo");
+
+        try (ChecksumCache cache = new ChecksumCache(index, ChecksumUtils.CRC32))
+        {
+            byte[] checksum = cache.getChecksum(file);
+            byte[] expected = checksum.clone();
+            checksum[0] ^= 0xFF;
+
+            assertArrayEquals(expected, cache.getChecksum(file));
+        }
+    }
+
+    @Test
+    public void shouldRebuildATruncatedIndex() throws Exception
+    {
+        File a = write("a.txt", "arquivo a");
+
+        try (ChecksumCache cache = new ChecksumCache(index, ChecksumUtils.CRC32))
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                cache.getChecksum(write("arquivo" + i + ".txt", "conteúdo " + i));
+            }
+        }
+
+        byte[] saved = Files.readAllBytes(index.toPath());
+        Files.write(index.toPath(), Arrays.copyOf(saved, saved.length / 2));
+
+        try (ChecksumCache cache = new ChecksumCache(index, ChecksumUtils.CRC32))
+        {
+            assertEquals(0, cache.size());
+            cache.getChecksum(a);
+        }
+
+        Files.write(index.toPath(), "lixo".getBytes(StandardCharsets.UTF_8));
+
+        try (ChecksumCache cache = new ChecksumCache(index, ChecksumUtils.CRC32))
+        {
+            assertEquals(0, cache.size());
+            cache.getChecksum(a);
+        }
+
+        try (ChecksumCache cache = new ChecksumCache(index, ChecksumUtils.CRC32))
+        {
+            assertEquals(1, cache.size());
+            cache.getChecksum(a);
+            assertEquals(1, cache.getHits());
+        }
+    }
+
+    private File write(String name, String content) throws IOException
+    {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        return (file);
+    }
+}
@@ -0,0 +1,178 @@
+package jutil.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes dos CheckSums calculados em uma única leitura pela classe {@link ChecksumUtils}
+ *
+ * @author Diego Steyner
+ */
+public class ChecksumUtilsTest
+{
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("checksums").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        FileUtils.deleteDir(dir);
+    }
+
+    @Test
+    public void shouldMatchSeparateDigestsInASinglePass() throws Exception
+    {
+        // Maior que o buffer de leitura, para que o arquivo seja lido em mais de uma parte
+        byte[] data = new byte[ChecksumUtils.BUFFER_SIZE * 2 + 12345];
+        new Random(42).nextBytes(data);
+
+        File file = write("dados.bin", data);
+        Map<String, byte[]> checksums = ChecksumUtils.checksum(file, "MD5", "SHA-1", "SHA-256", ChecksumUtils.CRC32);
+
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), checksums.get("MD5"));
+        assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(data), checksums.get("SHA-1"));
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), checksums.get("SHA-256"));
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        assertEquals(String.format("%08x", crc.getValue()), FileUtils.checkSumToString(checksums.get(ChecksumUtils.CRC32)));
+        assertArrayEquals(checksums.get("SHA-256"), ChecksumUtils.checksum(file, "SHA-256"));
+    }
+
+    @Test
+    public void shouldComputeTheKnownCrc32cVector() throws Exception
+    {
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals("e3069283", FileUtils.checkSumToString(ChecksumUtils.crc32cByTable(ByteBuffer.wrap(data))));
+        assertEquals("e3069283", FileUtils.checkSumToString(ChecksumUtils.checksum(write("vetor.txt", data), ChecksumUtils.CRC32C)));
+    }
+
+    @Test
+    public void shouldMatchTheJdkCrc32cOnLargeData() throws Exception
+    {
+        byte[] data = new byte[ChecksumUtils.BUFFER_SIZE + 777];
+        new Random(7).nextBytes(data);
+
+        assertArrayEquals(ChecksumUtils.crc32cByTable(ByteBuffer.wrap(data)), ChecksumUtils.checksum(write("grande.bin", data), ChecksumUtils.CRC32C));
+    }
+
+    @Test
+    public void shouldVerifyTheWrittenSidecar() throws Exception
+    {
+        File file = write("pacote.zip", bytes("conteúdo original"));
+        File sidecar = ChecksumUtils.writeSidecar(file, "SHA-256");
+
+        assertEquals("pacote.zip.sha256", sidecar.getName());
+        assertTrue(new String(Files.readAllBytes(sidecar.toPath()), StandardCharsets.UTF_8).endsWith("  pacote.zip\n"));
+        assertTrue(ChecksumUtils.verifySidecar(file, "SHA-256"));
+
+        write("pacote.zip", bytes("conteúdo alterado"));
+
+        assertFalse(ChecksumUtils.verifySidecar(file, "SHA-256"));
+        assertFalse(ChecksumUtils.verifySidecar(file, "MD5"));
+    }
+
+    @Test
+    public void shouldVerifyTheSidecarsOfAFolder() throws Exception
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            write("pasta" + (i % 3) + File.separator + "arquivo" + i + ".txt", bytes("arquivo " + i));
+        }
+
+        assertEquals(10, ChecksumUtils.writeSidecars(dir, 3, "SHA-256"));
+        assertTrue(ChecksumUtils.verifySidecars(dir, 3, "SHA-256").isEmpty());
+
+        File changed = write("pasta1" + File.separator + "arquivo4.txt", bytes("alterado"));
+        File added = write("pasta2" + File.separator + "novo.txt", bytes("sem checksum"));
+        List<File> failures = ChecksumUtils.verifySidecars(dir, 3, "SHA-256");
+
+        assertEquals(Arrays.asList(changed, added), failures);
+    }
+
+    @Test
+    public void shouldFailWhenAFileOrFolderCannotBeRead() throws Exception
+    {
+        File file = write("pasta" + File.separator + "arquivo.txt", bytes("conteúdo"));
+        ChecksumUtils.writeSidecars(dir, 2, "SHA-256");
+
+        if (!file.setReadable(false) || file.canRead())
+        {
+            // Sem permissões efetivas (ex.: executando como root) não há como simular o arquivo ilegível
+            file.setReadable(true);
+            return;
+        }
+
+        try
+        {
+            ChecksumUtils.verifySidecars(dir, 2, "SHA-256");
+            fail("O arquivo ilegível não deveria ser ignorado");
+        }
+        catch (AccessDeniedException e)
+        {
+            assertTrue(e.getMessage().contains("arquivo.txt"));
+        }
+        finally
+        {
+            file.setReadable(true);
+        }
+
+        File folder = file.getParentFile();
+        folder.setReadable(false);
+
+        try
+        {
+            ChecksumUtils.verifySidecars(dir, 2, "SHA-256");
+            fail("A pasta ilegível não deveria ser ignorada");
+        }
+        catch (AccessDeniedException e)
+        {
+            assertTrue(e.getMessage().contains("pasta"));
+        }
+        finally
+        {
+            folder.setReadable(true);
+        }
+    }
+
+    private File write(String name, byte[] content) throws IOException
+    {
+        File file = new File(dir, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content);
+
+        return (file);
+    }
+
+    private static byte[] bytes(String content)
+    {
+        return (content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,202 @@
+package jutil.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jutil.data.enums.FsyncPolicyEnum;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes da classe {@link FileAppender}
+ *
+ * @author Diego Steyner
+ */
+public class FileAppenderTest
+{
+    private static final String CHARSET = "UTF-8";
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("appender").toFile();
+        file = new File(dir, "registros.log");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        FileUtils.deleteDir(dir);
+    }
+
+    @Test
+    public void shouldKeepEveryLineWrittenByConcurrentThreads() throws Exception
+    {
+        final int threads = 8;
+        final int lines = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Buffer e fila pequenos para forçar várias gravações e espera por espaço na fila
+        try (final FileAppender appender = new FileAppender(file, CHARSET, 4096, 5, 64, FsyncPolicyEnum.NONE))
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+            for (int t = 0; t < threads; t++)
+            {
+                final int thread = t;
+
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        for (int i = 0; i < lines; i++)
+                        {
+                            appender.appendLine(thread + ":" + i);
+                        }
+
+                        return (null);
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        List<String> written = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        Set<String> distinct = new HashSet<String>(written);
+
+        assertEquals(threads * lines, written.size());
+        assertEquals(threads * lines, distinct.size());
+        assertTrue(distinct.contains("0:0"));
+        assertTrue(distinct.contains((threads - 1) + ":" + (lines - 1)));
+    }
+
+    @Test
+    public void shouldWaitForTheWriteOnFlush() throws Exception
+    {
+        // Intervalo longo e buffer grande, somente o flush() grava os registros
+        try (FileAppender appender = new FileAppender(file, CHARSET, FileAppender.DEFAULT_BUFFER_SIZE, 60000, 16, FsyncPolicyEnum.ON_FLUSH))
+        {
+            appender.append("abc");
+            appender.append("def");
+            appender.flush();
+
+            assertArrayEquals(bytes("abcdef"), Files.readAllBytes(file.toPath()));
+            assertEquals(2, appender.getRecords());
+            assertEquals(1, appender.getFlushes());
+
+            appender.append("g");
+            appender.flush();
+
+            assertArrayEquals(bytes("abcdefg"), Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    @Test
+    public void shouldRefuseAppendsAfterClose() throws Exception
+    {
+        FileAppender appender = new FileAppender(file, CHARSET);
+        appender.append("fim");
+        appender.close();
+        appender.close();
+
+        try
+        {
+            appender.append("depois");
+            fail("O registro não deveria ser aceito depois do close().");
+        }
+        catch (IOException e)
+        {
+            // Esperado
+        }
+
+        try
+        {
+            appender.flush();
+            fail("O flush() não deveria ser aceito depois do close().");
+        }
+        catch (IOException e)
+        {
+            // Esperado
+        }
+
+        assertArrayEquals(bytes("fim"), Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void shouldWriteRecordsLargerThanTheBuffer() throws Exception
+    {
+        byte[] large = new byte[10000];
+        Arrays.fill(large, (byte) 'x');
+
+        try (FileAppender appender = new FileAppender(file, CHARSET, 1024, 60000, 16, FsyncPolicyEnum.NONE))
+        {
+            appender.append("a");
+            appender.append(large);
+            appender.append("b");
+        }
+
+        byte[] content = Files.readAllBytes(file.toPath());
+
+        assertEquals(large.length + 2, content.length);
+        assertEquals('a', content[0]);
+        assertEquals('x', content[1]);
+        assertEquals('x', content[large.length]);
+        assertEquals('b', content[large.length + 1]);
+    }
+
+    @Test
+    public void shouldWriteEverythingOnCloseWithTheOnClosePolicy() throws Exception
+    {
+        FileAppender appender = FileWriterUtils.getFileAppender(file, CHARSET, FsyncPolicyEnum.ON_CLOSE);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            appender.appendLine(String.valueOf(i));
+        }
+
+        appender.close();
+
+        List<String> written = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+        assertEquals(1000, written.size());
+        assertEquals("0", written.get(0));
+        assertEquals("999", written.get(999));
+        assertEquals(1000, appender.getRecords());
+        assertEquals(Files.size(file.toPath()), appender.getWrittenBytes());
+    }
+
+    private static byte[] bytes(String value)
+    {
+        return (value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,110 @@
+package jutil.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import jutil.data.dtos.LineMatchDTO;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes da busca em paralelo da classe {@link FileReaderUtils}
+ *
+ * @author Diego Steyner
+ */
+public class FileReaderUtilsTest
+{
+    private static final int LINES = 5000;
+
+    private File dir;
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("grep").toFile();
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        pool.shutdownNow();
+        FileUtils.deleteDir(dir);
+    }
+
+    @Test
+    public void shouldFindLinesAcrossChunksInFileOrder() throws Exception
+    {
+        StringBuilder content = new StringBuilder();
+
+        for (int i = 1; i <= LINES; i++)
+        {
+            content.append(i % 100 == 0 ? "erro na linha " : "ok na linha ").append(i).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+
+        File file = write("log.txt", content.toString(), "UTF-8");
+        List<LineMatchDTO> matches = FileReaderUtils.grep(file, "^erro", "UTF-8", 512, pool);
+
+        assertEquals(LINES / 100, matches.size());
+
+        for (int i = 0; i < matches.size(); i++)
+        {
+            long line = (i + 1) * 100L;
+
+            assertEquals(line, matches.get(i).getLineNumber());
+            assertEquals("erro na linha " + line, matches.get(i).getLine());
+        }
+    }
+
+    @Test
+    public void shouldDecodeMultiByteCharactersOnChunkBoundaries() throws Exception
+    {
+        StringBuilder content = new StringBuilder();
+
+        for (int i = 1; i <= 1000; i++)
+        {
+            content.append("ação número ").append(i).append('\n');
+        }
+
+        File file = write("acentos.txt", content.toString(), "UTF-8");
+        List<LineMatchDTO> matches = FileReaderUtils.grep(file, "número 7\\d\\d$", "UTF-8", 97, pool);
+
+        assertEquals(100, matches.size());
+        assertEquals(700, matches.get(0).getLineNumber());
+        assertEquals("ação número 700", matches.get(0).getLine());
+    }
+
+    @Test
+    public void shouldSearchUtf16FilesLineByLine() throws Exception
+    {
+        File file = write("utf16.txt", "primeira\nsegunda linha\nterceira\n", "UTF-16");
+        List<LineMatchDTO> matches = FileReaderUtils.grep(file, "linha", "UTF-16", 4, pool);
+
+        assertEquals(1, matches.size());
+        assertEquals(2, matches.get(0).getLineNumber());
+    }
+
+    @Test
+    public void shouldReturnNothingForEmptyFiles() throws Exception
+    {
+        assertTrue(FileReaderUtils.grep(write("vazio.txt", "", "UTF-8"), ".*", "UTF-8", 16, pool).isEmpty());
+    }
+
+    private File write(String name, String content, String charset) throws IOException
+    {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(Charset.forName(charset)));
+
+        return (file);
+    }
+}
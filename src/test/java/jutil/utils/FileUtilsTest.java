@@ -0,0 +1,293 @@
+package jutil.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jutil.data.dtos.CopyProgressDTO;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes da cópia em paralelo de pastas e da comparação de arquivos da classe {@link FileUtils}
+ *
+ * @author Diego Steyner
+ */
+public class FileUtilsTest
+{
+    private File dir;
+    private File source;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("copy").toFile();
+        source = new File(dir, "origem");
+
+        for (int i = 0; i < 20; i++)
+        {
+            write(new File(source, "pasta" + (i % 3) + File.separator + "arquivo" + i + ".txt"), "conteúdo " + i);
+        }
+
+        new File(source, "vazia").mkdirs();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        FileUtils.deleteDir(dir);
+    }
+
+    @Test
+    public void shouldCopyTheWholeTree() throws Exception
+    {
+        File target = new File(dir, "destino");
+        final AtomicLong notifications = new AtomicLong();
+
+        CopyProgressDTO progress = FileUtils.copyFolder(source, target, 4, false, new FileUtils.CopyListener()
+        {
+            @Override
+            public void progress(CopyProgressDTO progress)
+            {
+                notifications.incrementAndGet();
+            }
+        });
+
+        assertEquals(20, progress.getTotalFiles());
+        assertEquals(20, progress.getCopiedFiles());
+        assertEquals(20, notifications.get());
+        assertTrue(new File(target, "vazia").isDirectory());
+        assertSameTree(source, target);
+    }
+
+    @Test
+    public void shouldSkipUnchangedFiles() throws Exception
+    {
+        File target = new File(dir, "destino");
+        FileUtils.copyFolder(source, target, 2, true, null);
+
+        File changed = new File(source, "pasta1" + File.separator + "arquivo1.txt");
+        write(changed, "conteúdo alterado");
+        changed.setLastModified(changed.lastModified() + 5000);
+
+        CopyProgressDTO progress = FileUtils.copyFolder(source, target, 2, true, null);
+
+        assertEquals(20, progress.getTotalFiles());
+        assertEquals(1, progress.getCopiedFiles());
+        assertEquals(19, progress.getSkippedFiles());
+        assertSameTree(source, target);
+    }
+
+    @Test
+    public void shouldCopyFromARelativeSource() throws Exception
+    {
+        Path relative = new File("").getAbsoluteFile().toPath().relativize(source.toPath());
+        File target = new File(dir, "relativo");
+
+        CopyProgressDTO progress = FileUtils.copyFolder(relative.toFile(), target, 2, false, null);
+
+        assertEquals(20, progress.getCopiedFiles());
+        assertSameTree(source, target);
+    }
+
+    @Test
+    public void shouldFailWhenAFolderCannotBeRead() throws Exception
+    {
+        File locked = new File(source, "pasta2");
+
+        if (!locked.setReadable(false) || locked.canRead())
+        {
+            // Sem permissões efetivas (ex.: executando como root) não há como simular a pasta ilegível
+            locked.setReadable(true);
+            return;
+        }
+
+        try
+        {
+            FileUtils.copyFolder(source, new File(dir, "destino"), 2, false, null);
+            fail("A cópia deveria falhar ao encontrar uma pasta ilegível");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("pasta2"));
+        }
+        finally
+        {
+            locked.setReadable(true);
+        }
+    }
+
+    @Test
+    public void shouldFindADifferenceInTheLastPartialBlock() throws Exception
+    {
+        // 8 em 8 bytes e mais 5 no final, a diferença fica fora da comparação por long
+        byte[] data = pattern(8 * 100 + 5);
+        byte[] other = data.clone();
+        other[other.length - 1]++;
+
+        assertEquals(-1, FileUtils.mismatch(save("a", data), save("b", data.clone())));
+        assertEquals(data.length - 1, FileUtils.mismatch(save("a", data), save("b", other)));
+        assertFalse(FileUtils.equals(new ByteArrayInputStream(data), new ByteArrayInputStream(other)));
+
+        // Menor que um long
+        assertEquals(2, FileUtils.mismatch(save("a", new byte[] {1, 2, 3}), save("b", new byte[] {1, 2, 4})));
+    }
+
+    @Test
+    public void shouldFindADifferenceAcrossTheWindowBoundary() throws Exception
+    {
+        long boundary = FileUtils.COMPARE_WINDOW_SIZE;
+        File file1 = sparse("a", boundary + 4096);
+        File file2 = sparse("b", boundary + 4096);
+
+        assertEquals(-1, FileUtils.mismatch(file1, file2));
+        assertTrue(FileUtils.equals(file1.getPath(), file2.getPath()));
+
+        // O primeiro byte da segunda janela
+        poke(file2, boundary, 1);
+        assertEquals(boundary, FileUtils.mismatch(file1, file2));
+
+        // O último byte da primeira janela vem antes
+        poke(file2, boundary - 1, 1);
+        assertEquals(boundary - 1, FileUtils.mismatch(file1, file2));
+        assertFalse(FileUtils.equals(file1.getPath(), file2.getPath()));
+    }
+
+    @Test
+    public void shouldReportTheShorterSizeWhenOneFileIsAPrefix() throws Exception
+    {
+        byte[] data = pattern(1000);
+        byte[] prefix = new byte[777];
+        System.arraycopy(data, 0, prefix, 0, prefix.length);
+
+        assertEquals(777, FileUtils.mismatch(save("a", data), save("b", prefix)));
+        assertEquals(777, FileUtils.mismatch(save("b", prefix), save("a", data)));
+        assertFalse(FileUtils.equals(new File(dir, "a").getPath(), new File(dir, "b").getPath()));
+        assertFalse(FileUtils.equals(new ByteArrayInputStream(data), new ByteArrayInputStream(prefix)));
+        assertFalse(FileUtils.equals(new ByteArrayInputStream(prefix), new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    public void shouldCompareEmptyFiles() throws Exception
+    {
+        File empty1 = save("a", new byte[0]);
+        File empty2 = save("b", new byte[0]);
+
+        assertEquals(-1, FileUtils.mismatch(empty1, empty2));
+        assertTrue(FileUtils.equals(empty1.getPath(), empty2.getPath()));
+        assertEquals(0, FileUtils.mismatch(empty1, save("c", new byte[] {0})));
+        assertTrue(FileUtils.equals(new ByteArrayInputStream(new byte[0]), new ByteArrayInputStream(new byte[0])));
+        assertFalse(FileUtils.equals(new ByteArrayInputStream(new byte[0]), new ByteArrayInputStream(new byte[] {0})));
+    }
+
+    @Test
+    public void shouldCompareStreamsReadInPieces() throws Exception
+    {
+        // Mais de um buffer de leitura, terminando em um pedaço parcial
+        byte[] data = pattern(3 * 64 * 1024 + 11);
+        byte[] other = data.clone();
+        other[64 * 1024]++;
+
+        assertTrue(FileUtils.equals(trickle(data), new ByteArrayInputStream(data)));
+        assertFalse(FileUtils.equals(trickle(data), new ByteArrayInputStream(other)));
+
+        // Exatamente um buffer, a segunda leitura não retorna nada
+        byte[] exact = pattern(64 * 1024);
+        assertTrue(FileUtils.equals(trickle(exact), new ByteArrayInputStream(exact)));
+    }
+
+    private File save(String name, byte[] content) throws IOException
+    {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content);
+        return (file);
+    }
+
+    private File sparse(String name, long length) throws IOException
+    {
+        File file = new File(dir, name);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.setLength(length);
+        }
+
+        return (file);
+    }
+
+    private static void poke(File file, long position, int value) throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.seek(position);
+            raf.write(value);
+        }
+    }
+
+    private static byte[] pattern(int size)
+    {
+        byte[] data = new byte[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            data[i] = (byte) (i * 31 + 7);
+        }
+
+        return (data);
+    }
+
+    /**
+     * Retorna um {@link InputStream} que entrega no máximo 1000 bytes por leitura
+     */
+    private static InputStream trickle(byte[] data)
+    {
+        return (new FilterInputStream(new ByteArrayInputStream(data))
+        {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException
+            {
+                return (super.read(b, off, Math.min(len, 1000)));
+            }
+        });
+    }
+
+    private static void write(File file, String content) throws IOException
+    {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertSameTree(File expected, File actual) throws IOException
+    {
+        for (File child : expected.listFiles())
+        {
+            File copy = new File(actual, child.getName());
+
+            if (child.isDirectory())
+            {
+                assertTrue(copy.isDirectory());
+                assertSameTree(child, copy);
+            }
+            else
+            {
+                assertArrayEquals(Files.readAllBytes(child.toPath()), Files.readAllBytes(copy.toPath()));
+                assertEquals(child.lastModified(), copy.lastModified());
+            }
+        }
+    }
+}
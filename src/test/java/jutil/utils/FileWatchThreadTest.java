@@ -0,0 +1,202 @@
+package jutil.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes da observação recursiva, do agrupamento de eventos e da releitura após a perda de eventos da classe {@link FileWatchThread}
+ *
+ * @author Diego Steyner
+ */
+public class FileWatchThreadTest
+{
+    private static final long TIMEOUT_MILLIS = 20000;
+
+    private File dir;
+    private FileWatchThread watcher;
+    private final Map<String, String> events = new ConcurrentHashMap<String, String>();
+    private final List<String> received = new CopyOnWriteArrayList<String>();
+
+    private final ActionListener recorder = new ActionListener()
+    {
+        @Override
+        public void actionPerformed(ActionEvent event)
+        {
+            events.put(event.getSource().toString().replace(File.separatorChar, '/'), event.getActionCommand());
+            received.add(event.getSource().toString());
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("watch").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (watcher != null)
+        {
+            watcher.stopWatching();
+            watcher.join(TIMEOUT_MILLIS);
+        }
+
+        FileUtils.deleteDir(dir);
+    }
+
+    @Test
+    public void shouldWatchSubfoldersCreatedLater() throws Exception
+    {
+        watcher = new FileWatchThread(dir.getPath(), recorder, true, 50, null, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher.start();
+
+        File sub = new File(dir, "sub");
+        assertTrue(sub.mkdir());
+        write(new File(sub, "a.txt"), "a");
+
+        waitFor("sub/a.txt");
+        assertEquals("ENTRY_CREATE", events.get("sub"));
+        assertEquals("ENTRY_CREATE", events.get("sub/a.txt"));
+
+        write(new File(sub, "b.txt"), "b");
+
+        waitFor("sub/b.txt");
+    }
+
+    @Test
+    public void shouldCoalesceEventsWithinTheDebounceWindow() throws Exception
+    {
+        watcher = new FileWatchThread(dir.getPath(), recorder, false, 500, null, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher.start();
+
+        File file = new File(dir, "log.txt");
+
+        for (int i = 0; i < 20; i++)
+        {
+            append(file, "linha " + i + "\n");
+        }
+
+        waitFor("log.txt");
+        Thread.sleep(1000);
+
+        assertEquals(1, received.size());
+        assertEquals("ENTRY_CREATE", events.get("log.txt"));
+    }
+
+    @Test
+    public void shouldStopAndDeliverPendingEvents() throws Exception
+    {
+        watcher = new FileWatchThread(dir.getPath(), recorder, false, TIMEOUT_MILLIS * 10, null, StandardWatchEventKinds.ENTRY_CREATE);
+        watcher.start();
+
+        write(new File(dir, "pendente.txt"), "x");
+        Thread.sleep(1000);
+
+        assertTrue(events.isEmpty());
+
+        watcher.stopWatching();
+        watcher.join(TIMEOUT_MILLIS);
+
+        assertFalse(watcher.isAlive());
+        waitFor("pendente.txt");
+    }
+
+    @Test
+    public void shouldRescanAfterLostEvents() throws Exception
+    {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // O listener é executado pela própria thread de observação e a segura no primeiro evento, forçando a perda dos próximos
+        watcher = new FileWatchThread(dir.getPath(), new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent event)
+            {
+                if (blocked.getCount() > 0)
+                {
+                    blocked.countDown();
+
+                    try
+                    {
+                        release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                recorder.actionPerformed(event);
+            }
+        }, false, 0, new Executor()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                command.run();
+            }
+        }, StandardWatchEventKinds.ENTRY_CREATE);
+        watcher.start();
+
+        write(new File(dir, "primeiro.txt"), "x");
+        assertTrue(blocked.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i < 2000; i++)
+        {
+            write(new File(dir, "arquivo" + i + ".txt"), "x");
+        }
+
+        release.countDown();
+
+        for (int i = 0; i < 2000; i++)
+        {
+            waitFor("arquivo" + i + ".txt");
+        }
+    }
+
+    private void waitFor(String path) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+        while (!events.containsKey(path))
+        {
+            assertTrue("O evento de " + path + " não foi avisado", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static void write(File file, String content) throws IOException
+    {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void append(File file, String content) throws IOException
+    {
+        Path path = file.toPath();
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
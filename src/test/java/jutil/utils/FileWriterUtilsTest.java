@@ -0,0 +1,191 @@
+package jutil.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes da escrita atômica da classe {@link FileWriterUtils}
+ *
+ * @author Diego Steyner
+ */
+public class FileWriterUtilsTest
+{
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("atomic").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        FileUtils.deleteDir(dir);
+    }
+
+    @Test
+    public void shouldReplaceTheContentWithoutLeavingTemporaryFiles() throws Exception
+    {
+        Path file = new File(dir, "dados.txt").toPath();
+
+        FileWriterUtils.writeAtomic(file, bytes("primeira versão"));
+        FileWriterUtils.writeAtomic(file, bytes("segunda"), true);
+
+        assertArrayEquals(bytes("segunda"), Files.readAllBytes(file));
+        assertEquals(1, dir.list().length);
+    }
+
+    @Test
+    public void shouldKeepThePermissionsOfTheReplacedFile() throws Exception
+    {
+        if (!isPosix())
+        {
+            return;
+        }
+
+        Path file = new File(dir, "segredo.txt").toPath();
+        Files.write(file, bytes("antigo"));
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+
+        FileWriterUtils.writeAtomic(file, bytes("novo"), true);
+
+        assertArrayEquals(bytes("novo"), Files.readAllBytes(file));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+    }
+
+    @Test
+    public void shouldWriteThroughSymbolicLinks() throws Exception
+    {
+        if (!isPosix())
+        {
+            return;
+        }
+
+        Path target = new File(dir, "real.txt").toPath();
+        Path link = new File(dir, "link.txt").toPath();
+        Files.write(target, bytes("antigo"));
+        Files.createSymbolicLink(link, target.getFileName());
+
+        FileWriterUtils.writeAtomic(link, bytes("novo"));
+
+        assertTrue(Files.isSymbolicLink(link));
+        assertArrayEquals(bytes("novo"), Files.readAllBytes(target));
+    }
+
+    @Test
+    public void shouldLeaveOneCompleteVersionUnderConcurrentWrites() throws Exception
+    {
+        final Path file = new File(dir, "concorrente.txt").toPath();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Void>> futures = new ArrayList<>();
+
+        try
+        {
+            for (int i = 0; i < 16; i++)
+            {
+                final byte[] data = new byte[64 * 1024];
+                Arrays.fill(data, (byte) i);
+
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        FileWriterUtils.writeAtomic(file, data, true);
+                        return (null);
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        byte[] result = Files.readAllBytes(file);
+
+        assertEquals(64 * 1024, result.length);
+
+        for (byte b : result)
+        {
+            assertEquals(result[0], b);
+        }
+
+        assertEquals(1, dir.list().length);
+    }
+
+    @Test
+    public void shouldForgetFoldersAfterTheirSync() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Void>> futures = new ArrayList<>();
+
+        try
+        {
+            for (int i = 0; i < 40; i++)
+            {
+                final Path folder = Files.createDirectories(new File(dir, "dia" + (i % 10)).toPath());
+                final byte[] data = bytes("registro " + i);
+                final String name = "registro" + i + ".txt";
+
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        FileWriterUtils.writeAtomic(folder.resolve(name), data, true);
+                        return (null);
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertEquals(0, FileWriterUtils.getDirectorySyncCount());
+        assertArrayEquals(bytes("registro 7"), Files.readAllBytes(new File(dir, "dia7" + File.separator + "registro7.txt").toPath()));
+    }
+
+    private static boolean isPosix()
+    {
+        return (FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+    }
+
+    private static byte[] bytes(String content)
+    {
+        return (content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,289 @@
+package jutil.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes da criação, leitura e extração de arquivos ZIP das classes {@link ZipUtils}, {@link ZipArchiveWriter} e {@link ZipIndex}
+ *
+ * @author Diego Steyner
+ */
+public class ZipUtilsTest
+{
+    private File dir;
+    private File source;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("zip").toFile();
+        source = new File(dir, "origem");
+
+        for (int i = 0; i < 30; i++)
+        {
+            StringBuilder content = new StringBuilder();
+
+            for (int j = 0; j <= i * 50; j++)
+            {
+                content.append("linha ").append(j).append(" do arquivo ").append(i).append('\n');
+            }
+
+            write(new File(source, "pasta" + (i % 4) + File.separator + "arquivo" + i + ".txt"), content.toString());
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        ZipIndex.clearCache();
+        FileUtils.deleteDir(dir);
+    }
+
+    @Test
+    public void shouldCreateAReadableArchiveInParallel() throws Exception
+    {
+        File zip = new File(dir, "pacote.zip");
+
+        List<ZipEntry> entries = new ZipUtils().createZipFileFromFolderParallel(zip, false, source, 4, Deflater.DEFAULT_COMPRESSION);
+
+        try (ZipFile file = new ZipFile(zip))
+        {
+            assertEquals(entries.size(), file.size());
+
+            for (int i = 0; i < 30; i++)
+            {
+                String name = "pasta" + (i % 4) + "/arquivo" + i + ".txt";
+                ZipEntry entry = file.getEntry(name);
+
+                assertNotNull(name, entry);
+
+                try (InputStream in = file.getInputStream(entry))
+                {
+                    assertArrayEquals(Files.readAllBytes(new File(source, name.replace('/', File.separatorChar)).toPath()), read(in));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldCreateAndExtractInParallel() throws Exception
+    {
+        File zip = new File(dir, "pacote.zip");
+        File target = new File(dir, "destino");
+
+        List<ZipEntry> entries = new ZipUtils().createZipFileFromFolderParallel(zip, false, source, 4, Deflater.DEFAULT_COMPRESSION);
+        List<File> extracted = new ZipUtils().extractZipToDir(zip, target, true, null, 4);
+
+        assertFalse(entries.isEmpty());
+        assertEquals(30, extracted.size());
+        assertSameTree(source, target);
+    }
+
+    @Test
+    public void shouldExtractOnlyTheFilteredEntries() throws Exception
+    {
+        File zip = new File(dir, "pacote.zip");
+        new ZipUtils().createZipFileFromFolderParallel(zip, false, source, 2, Deflater.BEST_SPEED);
+
+        List<File> extracted = new ZipUtils().extractZipToDir(zip, new File(dir, "destino"), true, "glob:pasta1/**", 2);
+
+        assertEquals(8, extracted.size());
+
+        for (File file : extracted)
+        {
+            assertEquals("pasta1", file.getParentFile().getName());
+        }
+    }
+
+    @Test
+    public void shouldLookUpEntriesThroughTheIndex() throws Exception
+    {
+        File zip = new File(dir, "pacote.zip");
+        new ZipUtils().createZipFileFromFolderParallel(zip, false, source, 2, Deflater.DEFAULT_COMPRESSION);
+
+        ZipIndex index = ZipIndex.getIndex(zip);
+        String name = "pasta2/arquivo6.txt";
+
+        assertTrue(index.contains(name));
+        assertNull(index.getEntry("nao/existe.txt"));
+        assertEquals(new File(source, "pasta2" + File.separator + "arquivo6.txt").length(), index.getEntry(name).getSize());
+        assertEquals(8, index.list("pasta2/").size());
+    }
+
+    @Test
+    public void shouldWriteAReadableStream() throws Exception
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] small = bytes("pequeno");
+        byte[] large = new byte[256 * 1024];
+
+        for (int i = 0; i < large.length; i++)
+        {
+            large[i] = (byte) (i % 251);
+        }
+
+        try (ZipArchiveWriter writer = new ZipUtils().createZipStream(buffer, Deflater.DEFAULT_COMPRESSION))
+        {
+            writer.addDirectory("dados/", 0L);
+            writer.addEntry("dados/pequeno.txt", 0L, small);
+            writer.addEntry("dados/grande.bin", 0L, new ByteArrayInputStream(large));
+
+            try (OutputStream out = writer.openEntry("dados/aberto.txt", 0L))
+            {
+                out.write(small);
+            }
+        }
+
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(buffer.toByteArray())))
+        {
+            assertEquals("dados/", in.getNextEntry().getName());
+            assertEntry(in, "dados/pequeno.txt", small);
+            assertEntry(in, "dados/grande.bin", large);
+            assertEntry(in, "dados/aberto.txt", small);
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    @Test
+    public void shouldRejectEntriesOutsideTheTargetFolder() throws Exception
+    {
+        File zip = new File(dir, "malicioso.zip");
+        File target = new File(dir, "destino");
+
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip)))
+        {
+            out.putNextEntry(new ZipEntry("ok.txt"));
+            out.write(bytes("ok"));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("../fora.txt"));
+            out.write(bytes("fora"));
+            out.closeEntry();
+        }
+
+        try
+        {
+            new ZipUtils().extractZipToDir(zip, target, true, null, 2);
+            fail("A entrada fora do diretório de destino deveria ser rejeitada");
+        }
+        catch (ZipException e)
+        {
+            assertNotNull(e.getMessage());
+        }
+
+        assertFalse(new File(dir, "fora.txt").exists());
+    }
+
+    @Test
+    public void shouldNotCreateAnIncompleteArchive() throws Exception
+    {
+        File zip = new File(dir, "pacote.zip");
+        File locked = new File(source, "pasta3");
+
+        if (!locked.setReadable(false) || locked.canRead())
+        {
+            // Sem permissões efetivas (ex.: executando como root) não há como simular a pasta ilegível
+            locked.setReadable(true);
+            return;
+        }
+
+        try
+        {
+            new ZipUtils().createZipFileFromFolderParallel(zip, false, source, 2, Deflater.DEFAULT_COMPRESSION);
+            fail("O ZIP não deveria ser criado sem a pasta ilegível");
+        }
+        catch (IOException e)
+        {
+            assertFalse(zip.exists());
+        }
+        finally
+        {
+            locked.setReadable(true);
+        }
+    }
+
+    private static void assertEntry(ZipInputStream in, String name, byte[] expected) throws IOException
+    {
+        ZipEntry entry = in.getNextEntry();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+
+        assertEquals(name, entry.getName());
+
+        while ((read = in.read(buffer)) != -1)
+        {
+            content.write(buffer, 0, read);
+        }
+
+        assertArrayEquals(expected, content.toByteArray());
+    }
+
+    private static void assertSameTree(File expected, File actual) throws IOException
+    {
+        for (File child : expected.listFiles())
+        {
+            File copy = new File(actual, child.getName());
+
+            if (child.isDirectory())
+            {
+                assertTrue(copy.isDirectory());
+                assertSameTree(child, copy);
+            }
+            else
+            {
+                assertArrayEquals(Files.readAllBytes(child.toPath()), Files.readAllBytes(copy.toPath()));
+            }
+        }
+    }
+
+    private static byte[] read(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+
+        while ((read = in.read(buffer)) != -1)
+        {
+            content.write(buffer, 0, read);
+        }
+
+        return (content.toByteArray());
+    }
+
+    private static void write(File file, String content) throws IOException
+    {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(String content)
+    {
+        return (content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,204 @@
+package jutil.utils.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import jutil.data.dtos.JdbcConnectionDTO;
+import jutil.data.enums.ColumnTypeEnum;
+import jutil.data.enums.JdbcEnum;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes da {@link ColumnarTable} usando um banco H2 em memória
+ *
+ * @author Diego Steyner
+ */
+public class ColumnarTableTest
+{
+	// Mais linhas que a capacidade inicial, para que as colunas cresçam duas vezes
+	private static final int ROWS = 3000;
+
+	private static final long BASE_TIME = Timestamp.valueOf("2020-01-01 00:00:00").getTime();
+
+	private Connection connection;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		Class.forName(JdbcEnum.H2.getDriver());
+		connection = DriverManager.getConnection(JdbcEnum.H2.getConnectionUrl(new JdbcConnectionDTO(null, null, "sa", "", "mem:columnar;DB_CLOSE_DELAY=-1", false)));
+
+		try(Statement statement = connection.createStatement())
+		{
+			statement.execute("CREATE TABLE IF NOT EXISTS ITEM (ID INT PRIMARY KEY, CODE BIGINT, QTY DECIMAL(10,0), PRICE DECIMAL(10,2), RATE DOUBLE, ACTIVE BOOLEAN, "
+				+ "NAME VARCHAR(20), CREATED TIMESTAMP)");
+			statement.execute("DELETE FROM ITEM");
+
+			// A cada 7 linhas todas as colunas, exceto o ID, são nulas
+			statement.execute("INSERT INTO ITEM SELECT X, CASEWHEN(MOD(X, 7) = 0, NULL, X * 1000000000), CASEWHEN(MOD(X, 7) = 0, NULL, X), "
+				+ "CASEWHEN(MOD(X, 7) = 0, NULL, X / 4.0), CASEWHEN(MOD(X, 7) = 0, NULL, X / 2.0), CASEWHEN(MOD(X, 7) = 0, NULL, MOD(X, 2) = 0), "
+				+ "CASEWHEN(MOD(X, 7) = 0, NULL, 'nome ' || MOD(X, 3)), CASEWHEN(MOD(X, 7) = 0, NULL, DATEADD('SECOND', X, TIMESTAMP '2020-01-01 00:00:00')) "
+				+ "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		connection.close();
+	}
+
+	@Test
+	public void shouldMapEachSqlTypeToItsColumnType() throws Exception
+	{
+		ColumnarTable table = load();
+
+		assertEquals(8, table.getColumnCount());
+		assertSame(ColumnTypeEnum.INT, table.getColumnType(table.findColumn("id")));
+		assertSame(ColumnTypeEnum.LONG, table.getColumnType(table.findColumn("CODE")));
+		assertSame(ColumnTypeEnum.LONG, table.getColumnType(table.findColumn("QTY")));
+		assertSame(ColumnTypeEnum.OBJECT, table.getColumnType(table.findColumn("PRICE")));
+		assertSame(ColumnTypeEnum.DOUBLE, table.getColumnType(table.findColumn("RATE")));
+		assertSame(ColumnTypeEnum.INT, table.getColumnType(table.findColumn("ACTIVE")));
+		assertSame(ColumnTypeEnum.STRING, table.getColumnType(table.findColumn("NAME")));
+		assertSame(ColumnTypeEnum.TIMESTAMP, table.getColumnType(table.findColumn("CREATED")));
+	}
+
+	@Test
+	public void shouldKeepEveryRowPastTheInitialCapacity() throws Exception
+	{
+		ColumnarTable table = load();
+
+		assertEquals(ROWS, table.getRowCount());
+		assertEquals(ROWS, table.getIntColumn(0).length);
+		assertEquals(ROWS, table.getLongColumn(1).length);
+		assertEquals(ROWS, table.getDoubleColumn(4).length);
+		assertEquals(ROWS, table.getStringCodes(6).length);
+
+		for (int row = 0; row < ROWS; row++)
+		{
+			int id = row + 1;
+
+			assertEquals(id, table.getInt(row, 0));
+
+			if(id % 7 == 0)
+			{
+				continue;
+			}
+
+			assertEquals(id * 1000000000L, table.getLong(row, 1));
+			assertEquals(id, table.getLong(row, 2));
+			assertEquals(BigDecimal.valueOf(id).divide(BigDecimal.valueOf(4)).setScale(2), table.getObject(row, 3));
+			assertEquals(id / 2.0, table.getDouble(row, 4), 0);
+			assertEquals(id % 2 == 0, table.getBoolean(row, 5));
+			assertEquals("nome " + (id % 3), table.getString(row, 6));
+			assertEquals(new Timestamp(BASE_TIME + id * 1000L), table.getTimestamp(row, 7));
+		}
+
+		assertEquals(3, table.getDictionary(6).length);
+	}
+
+	@Test
+	public void shouldTrackNullsInEveryColumnType() throws Exception
+	{
+		ColumnarTable table = load();
+
+		for (int row = 0; row < ROWS; row++)
+		{
+			boolean expected = (row + 1) % 7 == 0;
+
+			assertFalse(table.isNull(row, 0));
+
+			for (int column = 1; column < table.getColumnCount(); column++)
+			{
+				assertEquals(expected, table.isNull(row, column));
+			}
+
+			if(expected)
+			{
+				assertNull(table.getObject(row, 1));
+				assertNull(table.getObject(row, 5));
+				assertNull(table.getString(row, 6));
+				assertNull(table.getTimestamp(row, 7));
+				assertEquals(-1, table.getStringCodes(6)[row]);
+			}
+		}
+	}
+
+	@Test
+	public void shouldFilterPastTheInitialCapacity() throws Exception
+	{
+		ColumnarTable table = load();
+
+		int[] nulls = table.filter(new ColumnarTable.RowFilter()
+		{
+			@Override
+			public boolean accept(ColumnarTable t, int row)
+			{
+				return(t.isNull(row, 1));
+			}
+		});
+
+		assertEquals(ROWS / 7, nulls.length);
+		assertEquals(6, nulls[0]);
+
+		// Os nulos são ignorados no filtro por faixa
+		assertEquals(ROWS - ROWS / 7, table.filterRange(4, 0, ROWS).length);
+		assertArrayEquals(new Object[] {1, 2}, box(table.filterRange(0, 2, 3)));
+		assertEquals(table.filterEquals(6, "nome 0").length + table.filterEquals(6, "nome 1").length + table.filterEquals(6, "nome 2").length, ROWS - nulls.length);
+		assertEquals(0, table.filterEquals(6, "outro").length);
+	}
+
+	@Test
+	public void shouldRefuseToGrowPastTheArrayLimit()
+	{
+		assertEquals(2048, ColumnarTable.nextCapacity(1024));
+		assertEquals(ColumnarTable.MAX_CAPACITY, ColumnarTable.nextCapacity(1 << 30));
+		assertTrue(ColumnarTable.nextCapacity((1 << 30) - 1) > 0);
+
+		try
+		{
+			ColumnarTable.nextCapacity(ColumnarTable.MAX_CAPACITY);
+			fail("A capacidade não deveria passar do limite de um array.");
+		}
+		catch (IllegalStateException e)
+		{
+			// Esperado
+		}
+	}
+
+	private ColumnarTable load() throws Exception
+	{
+		try(Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery("SELECT * FROM ITEM ORDER BY ID"))
+		{
+			return(ColumnarTable.fromResultSet(result));
+		}
+	}
+
+	private static Object[] box(int[] values)
+	{
+		Object[] boxed = new Object[values.length];
+
+		for (int i = 0; i < values.length; i++)
+		{
+			boxed[i] = values[i];
+		}
+
+		return(boxed);
+	}
+}
@@ -0,0 +1,189 @@
+package jutil.utils.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+import jutil.data.dtos.JdbcConnectionDTO;
+import jutil.data.enums.JdbcEnum;
+
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbc.JdbcStatement;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes do {@link JdbcConnectionPool} usando um banco H2 em memória
+ *
+ * @author Diego Steyner
+ */
+public class JdbcConnectionPoolTest
+{
+	private JdbcConnectionPool pool;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		JdbcConnectionDTO info = new JdbcConnectionDTO(null, null, "sa", "", "mem:pool;DB_CLOSE_DELAY=-1", false);
+
+		pool = new JdbcConnectionPool(JdbcEnum.H2, info, true, 1, 2, 200L, JdbcConnectionPool.DEFAULT_IDLE_TIMEOUT, true);
+
+		try(Connection connection = pool.getConnection(); Statement statement = connection.createStatement())
+		{
+			statement.execute("CREATE TABLE IF NOT EXISTS ITEM (ID INT PRIMARY KEY)");
+			statement.execute("DELETE FROM ITEM");
+		}
+	}
+
+	@After
+	public void tearDown()
+	{
+		pool.close();
+	}
+
+	@Test
+	public void shouldBuildEmbeddedAndServerUrls()
+	{
+		assertEquals("jdbc:h2:mem:teste", JdbcEnum.H2.getConnectionUrl(new JdbcConnectionDTO(null, null, "sa", "", "mem:teste", false)));
+		assertEquals("jdbc:h2:tcp://localhost:9092/teste", JdbcEnum.H2.getConnectionUrl(new JdbcConnectionDTO("localhost", "9092", "sa", "", "teste", false)));
+		assertEquals("jdbc:hsqldb:hsql://localhost/teste", JdbcEnum.HSQLDB.getConnectionUrl(new JdbcConnectionDTO("localhost", null, "sa", "", "teste", false)));
+	}
+
+	@Test
+	public void shouldReuseReturnedConnection() throws Exception
+	{
+		for (int i = 0; i < 5; i++)
+		{
+			try(Connection connection = pool.getConnection())
+			{
+				assertFalse(connection.isClosed());
+				assertEquals(1, pool.getActiveCount());
+			}
+		}
+
+		assertEquals(0, pool.getActiveCount());
+		assertEquals(1, pool.getTotalCount());
+		assertEquals(1, pool.getIdleCount());
+	}
+
+	@Test
+	public void shouldCloseForgottenStatementsOnRelease() throws Exception
+	{
+		Connection connection = pool.getConnection();
+		PreparedStatement statement = connection.prepareStatement("SELECT ID FROM ITEM");
+		ResultSet result = statement.executeQuery();
+
+		connection.close();
+
+		assertTrue(statement.isClosed());
+		assertTrue(result.isClosed());
+		assertTrue(connection.isClosed());
+	}
+
+	@Test
+	public void shouldNotExposePhysicalConnection() throws Exception
+	{
+		try(Connection connection = pool.getConnection(); Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery("SELECT ID FROM ITEM"))
+		{
+			assertSame(connection, statement.getConnection());
+			assertSame(connection, connection.getMetaData().getConnection());
+			assertSame(statement, result.getStatement());
+			assertSame(connection, result.getStatement().getConnection());
+
+			try(ResultSet tables = connection.getMetaData().getTables(null, null, "ITEM", null))
+			{
+				assertTrue(tables.getStatement() == null || tables.getStatement().getConnection() == connection);
+			}
+
+			assertSame(connection, connection.unwrap(Connection.class));
+			assertFalse(connection.isWrapperFor(JdbcConnection.class));
+			assertFalse(statement.isWrapperFor(JdbcStatement.class));
+
+			try
+			{
+				connection.unwrap(JdbcConnection.class);
+				fail("A conexão física não deveria sair do pool");
+			}
+			catch (SQLException e)
+			{
+				assertFalse(e instanceof SQLTimeoutException);
+			}
+
+			try
+			{
+				result.getStatement().unwrap(JdbcStatement.class);
+				fail("O statement do driver não deveria sair do pool");
+			}
+			catch (SQLException e)
+			{
+				assertFalse(e instanceof SQLTimeoutException);
+			}
+		}
+	}
+
+	@Test
+	public void shouldRejectUseAfterRelease() throws Exception
+	{
+		Connection connection = pool.getConnection();
+		connection.close();
+
+		try
+		{
+			connection.createStatement();
+			fail("A conexão devolvida não deveria ser usada");
+		}
+		catch (SQLException e)
+		{
+			assertFalse(e instanceof SQLTimeoutException);
+		}
+	}
+
+	@Test
+	public void shouldRollbackAndRestoreAutoCommitOnRelease() throws Exception
+	{
+		try(Connection connection = pool.getConnection(); Statement statement = connection.createStatement())
+		{
+			connection.setAutoCommit(false);
+			statement.executeUpdate("INSERT INTO ITEM VALUES (1)");
+		}
+
+		try(Connection connection = pool.getConnection(); Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM ITEM"))
+		{
+			assertTrue(connection.getAutoCommit());
+			assertTrue(result.next());
+			assertEquals(0, result.getInt(1));
+		}
+	}
+
+	@Test
+	public void shouldTimeoutWhenExhausted() throws Exception
+	{
+		Connection first = pool.getConnection();
+		Connection second = pool.getConnection();
+
+		try
+		{
+			pool.getConnection();
+			fail("O pool não deveria entregar mais conexões que o máximo");
+		}
+		catch (SQLTimeoutException e)
+		{
+			assertEquals(1, pool.getTimeoutCount());
+		}
+		finally
+		{
+			first.close();
+			second.close();
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package jutil.utils.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes da execução em lote da classe {@link JdbcUtils} usando um banco H2 em memória
+ *
+ * @author Diego Steyner
+ */
+public class JdbcUtilsTest
+{
+	private static final String URL = "jdbc:h2:mem:batch;DB_CLOSE_DELAY=-1";
+	private static final String INSERT = "INSERT INTO ITEM (ID) VALUES (?)";
+
+	private JdbcUtils jdbc;
+	private Connection reader;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		jdbc = new JdbcUtils();
+		jdbc.setConnection(DriverManager.getConnection(URL, "sa", ""));
+		jdbc.getConnection().setAutoCommit(false);
+
+		// Uma segunda conexão só enxerga o que já foi confirmado com commit
+		reader = DriverManager.getConnection(URL, "sa", "");
+
+		try(Statement statement = reader.createStatement())
+		{
+			statement.execute("CREATE TABLE IF NOT EXISTS ITEM (ID INT PRIMARY KEY)");
+			statement.execute("DELETE FROM ITEM");
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		jdbc.desconectar();
+		reader.close();
+	}
+
+	@Test
+	public void shouldSendTheRowsInBatchesAndCommitAtTheEnd() throws Exception
+	{
+		List<int[]> counts = jdbc.executeBatch(INSERT, rows(1, 11), 4, 2);
+
+		assertEquals(3, counts.size());
+		assertEquals(4, counts.get(0).length);
+		assertEquals(4, counts.get(1).length);
+		assertEquals(3, counts.get(2).length);
+		assertEquals(11, committedRows());
+	}
+
+	@Test
+	public void shouldLeaveTheCommitToTheCallerWithoutAnInterval() throws Exception
+	{
+		jdbc.executeBatch(INSERT, rows(1, 5), 2);
+
+		assertEquals(0, committedRows());
+
+		jdbc.getConnection().commit();
+
+		assertEquals(5, committedRows());
+	}
+
+	@Test
+	public void shouldRollBackOnlyTheIntervalNotYetCommitted() throws Exception
+	{
+		List<Object[]> rows = rows(1, 9);
+		rows.add(new Object[] {1});
+
+		try
+		{
+			// Lotes de 2 com commit a cada 2 lotes: as linhas 1 a 8 são confirmadas e o lote [9, 1] falha
+			jdbc.executeBatch(INSERT, rows, 2, 2);
+			fail("A chave duplicada deveria falhar o lote.");
+		}
+		catch (BatchUpdateException e)
+		{
+			// Esperado
+		}
+
+		assertEquals(8, committedRows());
+		assertEquals(8, countRows(jdbc.getConnection()));
+	}
+
+	@Test
+	public void shouldReuseTheStatementAfterAFailedBatch() throws Exception
+	{
+		List<Object[]> rows = rows(1, 3);
+		rows.add(new Object[] {1});
+
+		try
+		{
+			jdbc.executeBatch(INSERT, rows, 10, 1);
+			fail("A chave duplicada deveria falhar o lote.");
+		}
+		catch (BatchUpdateException e)
+		{
+			// Esperado
+		}
+
+		// Nenhum parametro do lote que falhou pode ser enviado junto com o próximo
+		jdbc.executeBatch(INSERT, rows(4, 6), 10, 1);
+
+		assertEquals(3, committedRows());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectAnEmptyBatchSize() throws Exception
+	{
+		jdbc.executeBatch(INSERT, rows(1, 2), 0);
+	}
+
+	private int committedRows() throws SQLException
+	{
+		return(countRows(reader));
+	}
+
+	private static int countRows(Connection connection) throws SQLException
+	{
+		try(Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM ITEM"))
+		{
+			result.next();
+			return(result.getInt(1));
+		}
+	}
+
+	private static List<Object[]> rows(int first, int last)
+	{
+		List<Object[]> rows = new ArrayList<Object[]>();
+
+		for (int id = first; id <= last; id++)
+		{
+			rows.add(new Object[] {id});
+		}
+
+		return(rows);
+	}
+}
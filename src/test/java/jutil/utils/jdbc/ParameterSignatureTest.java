@@ -0,0 +1,117 @@
+package jutil.utils.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jutil.data.dtos.JdbcConnectionDTO;
+import jutil.data.enums.JdbcEnum;
+
+import org.junit.Test;
+
+/**
+ * Testes do {@link ParameterSignature} e do {@link ParameterBinder}
+ *
+ * @author Diego Steyner
+ */
+public class ParameterSignatureTest
+{
+	@Test
+	public void shouldUseTheWrapperBinderForPrimitiveTypes()
+	{
+		assertSame(ParameterBinder.INTEGER, ParameterBinder.of(int.class));
+		assertSame(ParameterBinder.LONG, ParameterBinder.of(long.class));
+		assertSame(ParameterBinder.DOUBLE, ParameterBinder.of(double.class));
+		assertSame(ParameterBinder.FLOAT, ParameterBinder.of(float.class));
+		assertSame(ParameterBinder.SHORT, ParameterBinder.of(short.class));
+		assertSame(ParameterBinder.BOOLEAN, ParameterBinder.of(boolean.class));
+		assertSame(ParameterBinder.OBJECT, ParameterBinder.of(byte.class));
+	}
+
+	@Test
+	public void shouldBindNullsWithTheTypeOfThePosition() throws Exception
+	{
+		List<String> calls = new ArrayList<String>();
+		PreparedStatement prstatement = recorder(calls);
+
+		new ParameterSignature(int.class, Long.class, BigDecimal.class, Date.class, String.class).bind(prstatement, null, null, null, null, null);
+
+		assertEquals(Arrays.asList("setNull 1 " + Types.INTEGER, "setNull 2 " + Types.BIGINT, "setNull 3 " + Types.DECIMAL, "setNull 4 " + Types.DATE,
+			"setNull 5 " + Types.VARCHAR), calls);
+	}
+
+	@Test
+	public void shouldResolvePositionsWithANullSampleByValue() throws Exception
+	{
+		List<String> calls = new ArrayList<String>();
+		PreparedStatement prstatement = recorder(calls);
+		ParameterSignature signature = ParameterSignature.of(1L, null);
+
+		signature.bind(prstatement, 2L, 7);
+		signature.bind(prstatement, null, null);
+
+		assertEquals(Arrays.asList("setLong 1 2", "setInt 2 7", "setNull 1 " + Types.BIGINT, "setNull 2 " + Types.VARCHAR), calls);
+	}
+
+	@Test
+	public void shouldInsertNullsAndPrimitivesThroughTheSignature() throws Exception
+	{
+		JdbcUtils jdbc = new JdbcUtils();
+		jdbc.conectar(JdbcEnum.H2, new JdbcConnectionDTO(null, null, "sa", "", "mem:signature;DB_CLOSE_DELAY=-1", false), false);
+
+		try
+		{
+			try(Statement statement = jdbc.getConnection().createStatement())
+			{
+				statement.execute("CREATE TABLE IF NOT EXISTS PRICE (ID INT PRIMARY KEY, VAL DECIMAL(10,2), DAY DATE)");
+				statement.execute("DELETE FROM PRICE");
+			}
+
+			List<Object[]> rows = new ArrayList<Object[]>();
+			rows.add(new Object[] {1, null, null});
+			rows.add(new Object[] {2, new BigDecimal("3.50"), Date.valueOf("2020-01-02")});
+
+			jdbc.executeBatch("INSERT INTO PRICE (ID, VAL, DAY) VALUES (?, ?, ?)", ParameterSignature.of(1, null, null), rows, 10, 0);
+
+			try(ResultSet result = jdbc.executeQuery("SELECT VAL, DAY FROM PRICE ORDER BY ID"))
+			{
+				result.next();
+				assertNull(result.getBigDecimal(1));
+				assertNull(result.getDate(2));
+				result.next();
+				assertEquals(new BigDecimal("3.50"), result.getBigDecimal(1));
+				assertEquals(Date.valueOf("2020-01-02"), result.getDate(2));
+			}
+		}
+		finally
+		{
+			jdbc.desconectar();
+		}
+	}
+
+	private static PreparedStatement recorder(final List<String> calls)
+	{
+		return((PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class}, new InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				calls.add(method.getName() + " " + args[0] + " " + args[1]);
+				return(null);
+			}
+		}));
+	}
+}
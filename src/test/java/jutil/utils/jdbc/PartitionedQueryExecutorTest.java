@@ -0,0 +1,243 @@
+package jutil.utils.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import jutil.annotation.JdbcColumnOf;
+import jutil.data.dtos.JdbcConnectionDTO;
+import jutil.data.enums.JdbcEnum;
+import jutil.utils.jdbc.PartitionedQueryExecutor.PartitionIterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes do {@link PartitionedQueryExecutor} usando um banco H2 em memória
+ *
+ * @author Diego Steyner
+ */
+public class PartitionedQueryExecutorTest
+{
+	private JdbcConnectionPool pool;
+
+	public static class Item
+	{
+		@JdbcColumnOf(columnName="ID")
+		private long id;
+
+		@JdbcColumnOf(columnName="NAME")
+		private String name;
+
+		public long getId() {
+			return id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception
+	{
+		JdbcConnectionDTO info = new JdbcConnectionDTO(null, null, "sa", "", "mem:partition;DB_CLOSE_DELAY=-1", false);
+
+		pool = new JdbcConnectionPool(JdbcEnum.H2, info, true, 1, 5, 5000L, JdbcConnectionPool.DEFAULT_IDLE_TIMEOUT, true);
+
+		execute("CREATE TABLE IF NOT EXISTS ITEM (ID BIGINT PRIMARY KEY, NAME VARCHAR(20), PRICE DECIMAL(10,2), RATE DOUBLE)");
+		execute("DELETE FROM ITEM");
+	}
+
+	@After
+	public void tearDown()
+	{
+		pool.close();
+	}
+
+	@Test
+	public void shouldReturnEveryRowOnceAcrossPartitions() throws Exception
+	{
+		execute("INSERT INTO ITEM (ID, NAME) SELECT X, 'item ' || X FROM SYSTEM_RANGE(1, 1000)");
+
+		try (PartitionedQueryExecutor executor = new PartitionedQueryExecutor(pool, 3, 16))
+		{
+			ArrayList<Item> items = executor.transformResultSetRows("SELECT ID, NAME FROM ITEM WHERE ID > ?", "ID", 7, Item.class, 0L);
+
+			assertEquals(range(1, 1000), ids(items));
+			assertEquals("item 1", find(items, 1).getName());
+		}
+	}
+
+	@Test
+	public void shouldSplitTheWholeLongRange() throws Exception
+	{
+		// max - min passa do limite do long, as faixas são calculadas com BigInteger
+		execute("INSERT INTO ITEM (ID, NAME) VALUES (" + Long.MIN_VALUE + ", 'min'), (-1, 'a'), (0, 'b'), (1, 'c'), (" + Long.MAX_VALUE + ", 'max')");
+
+		try (PartitionedQueryExecutor executor = new PartitionedQueryExecutor(pool, 4))
+		{
+			for (int partitions : new int[] {1, 2, 3, 16})
+			{
+				List<Long> ids = ids(executor.transformResultSetRows("SELECT ID, NAME FROM ITEM", "ID", partitions, Item.class));
+
+				assertEquals(Arrays.asList(Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE), ids);
+			}
+		}
+	}
+
+	@Test
+	public void shouldReturnNoRowsForAnEmptyQuery() throws Exception
+	{
+		try (PartitionedQueryExecutor executor = new PartitionedQueryExecutor(pool, 2);
+			 PartitionIterator<Item> iterator = executor.executeQuery("SELECT ID, NAME FROM ITEM", "ID", 4, Item.class))
+		{
+			assertFalse(iterator.hasNext());
+		}
+	}
+
+	@Test
+	public void shouldRejectNonIntegralKeys() throws Exception
+	{
+		execute("INSERT INTO ITEM (ID, NAME, PRICE, RATE) VALUES (1, 'a', 1.50, 0.5)");
+
+		try (PartitionedQueryExecutor executor = new PartitionedQueryExecutor(pool, 2))
+		{
+			for (String column : new String[] {"PRICE", "RATE", "NAME"})
+			{
+				try
+				{
+					executor.executeQuery("SELECT * FROM ITEM", column, 2, Item.class);
+					fail("A coluna " + column + " não deveria ser aceita para dividir a consulta.");
+				}
+				catch (SQLException e)
+				{
+					assertTrue(e.getMessage(), e.getMessage().contains(column));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void shouldDeliverPartitionsInRangeOrderWithASingleThread() throws Exception
+	{
+		execute("INSERT INTO ITEM (ID, NAME) SELECT X, 'item ' || X FROM SYSTEM_RANGE(1, 500)");
+
+		// Com uma única thread as faixas são executadas uma depois da outra, da menor para a maior
+		try (PartitionedQueryExecutor executor = new PartitionedQueryExecutor(pool, 1, 8))
+		{
+			List<Long> ids = new ArrayList<Long>();
+
+			for (Item item : executor.executeQuery("SELECT ID, NAME FROM ITEM", "ID", 5, Item.class))
+			{
+				ids.add(item.getId());
+			}
+
+			assertEquals(range(1, 500), ids);
+		}
+	}
+
+	@Test
+	public void shouldCancelThePartitionsWhenTheIteratorIsClosed() throws Exception
+	{
+		execute("INSERT INTO ITEM (ID, NAME) SELECT X, 'item ' || X FROM SYSTEM_RANGE(1, 50000)");
+
+		try (PartitionedQueryExecutor executor = new PartitionedQueryExecutor(pool, 4, 4))
+		{
+			PartitionIterator<Item> iterator = executor.executeQuery("SELECT ID, NAME FROM ITEM", "ID", 4, Item.class);
+
+			assertTrue(iterator.hasNext());
+			iterator.next();
+
+			// As partições estão esperando espaço na fila, cada uma com uma conexão emprestada
+			assertTrue(waitFor(4, 5000));
+
+			iterator.close();
+
+			assertFalse(iterator.hasNext());
+			assertTrue("As conexões das partições não foram devolvidas ao pool.", waitFor(0, 5000));
+		}
+	}
+
+	private boolean waitFor(int active, long timeoutMillis) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+
+		while (pool.getActiveCount() != active)
+		{
+			if(System.currentTimeMillis() > deadline)
+			{
+				return(false);
+			}
+
+			Thread.sleep(10);
+		}
+
+		return(true);
+	}
+
+	private void execute(String sql) throws SQLException
+	{
+		try(Connection connection = pool.getConnection(); Statement statement = connection.createStatement())
+		{
+			statement.execute(sql);
+		}
+	}
+
+	private static List<Long> ids(List<Item> items)
+	{
+		List<Long> ids = new ArrayList<Long>();
+
+		for (Item item : items)
+		{
+			ids.add(item.getId());
+		}
+
+		Collections.sort(ids);
+
+		return(ids);
+	}
+
+	private static List<Long> range(long first, long last)
+	{
+		List<Long> ids = new ArrayList<Long>();
+
+		for (long id = first; id <= last; id++)
+		{
+			ids.add(id);
+		}
+
+		return(ids);
+	}
+
+	private static Item find(List<Item> items, long id)
+	{
+		for (Item item : items)
+		{
+			if(item.getId() == id)
+			{
+				return(item);
+			}
+		}
+
+		return(null);
+	}
+}
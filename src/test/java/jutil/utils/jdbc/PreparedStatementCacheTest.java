@@ -0,0 +1,175 @@
+package jutil.utils.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes do {@link PreparedStatementCache} usando um banco H2 em memória
+ *
+ * @author Diego Steyner
+ */
+public class PreparedStatementCacheTest
+{
+	private static final String SELECT_A = "SELECT ID FROM ITEM WHERE ID > ?";
+	private static final String SELECT_B = "SELECT ID FROM ITEM WHERE ID < ?";
+	private static final String SELECT_C = "SELECT COUNT(*) FROM ITEM";
+
+	private Connection connection;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		connection = DriverManager.getConnection("jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1", "sa", "");
+
+		try(Statement statement = connection.createStatement())
+		{
+			statement.execute("CREATE TABLE IF NOT EXISTS ITEM (ID INT PRIMARY KEY)");
+			statement.execute("MERGE INTO ITEM KEY (ID) VALUES (1), (2), (3)");
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		connection.close();
+	}
+
+	@Test
+	public void shouldReuseStatementsBySqlAndResultSetType() throws Exception
+	{
+		PreparedStatementCache cache = new PreparedStatementCache();
+
+		PreparedStatement first = prepare(cache, SELECT_A);
+
+		assertSame(first, prepare(cache, SELECT_A));
+		assertNotSame(first, cache.prepareStatement(connection, SELECT_A, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void shouldEvictTheLeastRecentlyUsedStatement() throws Exception
+	{
+		PreparedStatementCache cache = new PreparedStatementCache(2);
+
+		PreparedStatement a = prepare(cache, SELECT_A);
+		PreparedStatement b = prepare(cache, SELECT_B);
+
+		// O acesso torna A o mais recente, B passa a ser o mais antigo
+		assertSame(a, prepare(cache, SELECT_A));
+
+		PreparedStatement c = prepare(cache, SELECT_C);
+
+		assertTrue(b.isClosed());
+		assertFalse(a.isClosed());
+		assertFalse(c.isClosed());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, cache.size());
+		assertSame(a, prepare(cache, SELECT_A));
+		assertNotSame(b, prepare(cache, SELECT_B));
+	}
+
+	@Test
+	public void shouldNotReuseAStatementWithAnOpenResultSet() throws Exception
+	{
+		PreparedStatementCache cache = new PreparedStatementCache();
+
+		PreparedStatement first = prepare(cache, SELECT_A);
+		first.setInt(1, 0);
+		ResultSet result = cache.register(first, first.executeQuery());
+
+		PreparedStatement second = prepare(cache, SELECT_A);
+
+		assertNotSame(first, second);
+		assertFalse(first.isClosed());
+
+		// O ResultSet do primeiro statement continua sendo lido enquanto o segundo é executado
+		second.setInt(1, 2);
+
+		try(ResultSet other = second.executeQuery())
+		{
+			assertTrue(other.next());
+			assertEquals(3, other.getInt(1));
+		}
+
+		assertTrue(result.next());
+		assertEquals(1, result.getInt(1));
+
+		// Fora do cache, o statement fica para ser fechado pelo driver junto com o seu ResultSet
+		assertTrue(first.isCloseOnCompletion());
+
+		result.close();
+
+		assertSame(second, prepare(cache, SELECT_A));
+	}
+
+	@Test
+	public void shouldNotCloseAnEvictedStatementWithAnOpenResultSet() throws Exception
+	{
+		PreparedStatementCache cache = new PreparedStatementCache(1);
+
+		PreparedStatement a = prepare(cache, SELECT_A);
+		a.setInt(1, 0);
+		ResultSet result = cache.register(a, a.executeQuery());
+
+		prepare(cache, SELECT_B);
+
+		assertEquals(1, cache.getEvictions());
+		assertFalse(a.isClosed());
+		assertTrue(result.next());
+		assertTrue(result.next());
+		assertTrue(result.next());
+		assertFalse(result.next());
+		assertTrue(a.isCloseOnCompletion());
+
+		result.close();
+	}
+
+	@Test
+	public void shouldPrepareAgainAStatementClosedOutsideTheCache() throws Exception
+	{
+		PreparedStatementCache cache = new PreparedStatementCache();
+
+		PreparedStatement first = prepare(cache, SELECT_A);
+		first.close();
+
+		PreparedStatement second = prepare(cache, SELECT_A);
+
+		assertNotSame(first, second);
+		assertFalse(second.isClosed());
+	}
+
+	@Test
+	public void shouldCloseEveryStatementOnClear() throws Exception
+	{
+		PreparedStatementCache cache = new PreparedStatementCache();
+
+		PreparedStatement a = prepare(cache, SELECT_A);
+		PreparedStatement b = prepare(cache, SELECT_B);
+
+		cache.clear();
+
+		assertTrue(a.isClosed());
+		assertTrue(b.isClosed());
+		assertEquals(0, cache.size());
+	}
+
+	private PreparedStatement prepare(PreparedStatementCache cache, String sql) throws Exception
+	{
+		return(cache.prepareStatement(connection, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+	}
+}
@@ -0,0 +1,223 @@
+package jutil.utils.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jutil.annotation.JdbcColumnOf;
+import jutil.data.enums.RowMapperEnum;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testes do mapeamento e do streaming de linhas da classe {@link ResultSetUtils} usando um banco H2 em memória
+ *
+ * @author Diego Steyner
+ */
+public class ResultSetUtilsTest
+{
+	private static final int ROWS = 250;
+
+	private Connection connection;
+
+	public static class Row
+	{
+		@JdbcColumnOf(columnName="ID")
+		private long id;
+
+		@JdbcColumnOf(columnName="NAME")
+		private String name;
+
+		@JdbcColumnOf(columnName="PRICE")
+		private BigDecimal price;
+
+		@JdbcColumnOf(columnName="RATE")
+		private double rate;
+
+		@JdbcColumnOf(columnName="QTY")
+		private int qty;
+
+		public long getId() {
+			return id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public BigDecimal getPrice() {
+			return price;
+		}
+
+		public void setPrice(BigDecimal price) {
+			this.price = price;
+		}
+
+		public double getRate() {
+			return rate;
+		}
+
+		public void setRate(double rate) {
+			this.rate = rate;
+		}
+
+		public int getQty() {
+			return qty;
+		}
+
+		public void setQty(int qty) {
+			this.qty = qty;
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception
+	{
+		connection = DriverManager.getConnection("jdbc:h2:mem:mapping", "sa", "");
+
+		try(Statement statement = connection.createStatement())
+		{
+			statement.execute("CREATE TABLE ROW_DATA (ID BIGINT PRIMARY KEY, NAME VARCHAR(40), PRICE DECIMAL(12,2), RATE DOUBLE, QTY INT)");
+		}
+
+		try(PreparedStatement insert = connection.prepareStatement("INSERT INTO ROW_DATA VALUES (?, ?, ?, ?, ?)"))
+		{
+			for (int i = 1; i <= ROWS; i++)
+			{
+				insert.setLong(1, i);
+				insert.setString(2, "item-" + i);
+				insert.setBigDecimal(3, new BigDecimal(i).movePointLeft(2));
+				insert.setDouble(4, i / 4.0);
+				insert.setInt(5, i * 3);
+				insert.addBatch();
+			}
+
+			insert.executeBatch();
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		connection.close();
+	}
+
+	@Test
+	public void shouldMapRowsWithReflection() throws Exception
+	{
+		checkRows(map(RowMapperEnum.REFLECTION));
+	}
+
+	@Test
+	public void shouldMapRowsWithMethodHandles() throws Exception
+	{
+		checkRows(map(RowMapperEnum.METHOD_HANDLE));
+	}
+
+	@Test
+	public void shouldIterateRowsAndCloseTheStatement() throws Exception
+	{
+		Statement statement = connection.createStatement();
+		ResultSet result = statement.executeQuery("SELECT * FROM ROW_DATA ORDER BY ID");
+		List<Row> rows = new ArrayList<>();
+
+		for (Row row : ResultSetUtils.iterateResultSetRows(result, Row.class))
+		{
+			rows.add(row);
+		}
+
+		checkRows(rows);
+		assertTrue(result.isClosed());
+		assertTrue(statement.isClosed());
+	}
+
+	@Test
+	public void shouldReleaseTheResultSetWhenTheStreamIsClosedEarly() throws Exception
+	{
+		Statement statement = connection.createStatement();
+		ResultSet result = statement.executeQuery("SELECT * FROM ROW_DATA ORDER BY ID");
+		List<String> names;
+
+		try(Stream<Row> stream = ResultSetUtils.iterateResultSetRows(result, Row.class).stream())
+		{
+			names = stream.limit(3).map(new Function<Row, String>()
+			{
+				@Override
+				public String apply(Row row)
+				{
+					return(row.getName());
+				}
+			}).collect(Collectors.toList());
+		}
+
+		assertEquals(3, names.size());
+		assertEquals("item-3", names.get(2));
+		assertTrue(result.isClosed());
+		assertTrue(statement.isClosed());
+	}
+
+	@Test
+	public void shouldKeepTheStatementOpenWhenRequested() throws Exception
+	{
+		try(Statement statement = connection.createStatement())
+		{
+			ResultSet result = statement.executeQuery("SELECT * FROM ROW_DATA WHERE ID > " + (ROWS - 2) + " ORDER BY ID");
+
+			try(ResultSetIterator<Row> iterator = new ResultSetIterator<>(result, Row.class, RowMapperEnum.METHOD_HANDLE, false))
+			{
+				assertEquals(ROWS - 1, iterator.next().getId());
+				assertEquals(ROWS, iterator.next().getId());
+				assertFalse(iterator.hasNext());
+			}
+
+			assertTrue(result.isClosed());
+			assertFalse(statement.isClosed());
+		}
+	}
+
+	private List<Row> map(RowMapperEnum engine) throws Exception
+	{
+		try(Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery("SELECT * FROM ROW_DATA ORDER BY ID"))
+		{
+			return(ResultSetUtils.transformResultSetRows(result, Row.class, true, engine));
+		}
+	}
+
+	private static void checkRows(List<Row> rows)
+	{
+		assertEquals(ROWS, rows.size());
+
+		for (int i = 0; i < ROWS; i++)
+		{
+			Row row = rows.get(i);
+
+			assertEquals(i + 1, row.getId());
+			assertEquals("item-" + (i + 1), row.getName());
+			assertEquals(new BigDecimal(i + 1).movePointLeft(2), row.getPrice());
+			assertEquals((i + 1) / 4.0, row.getRate(), 0.0);
+			assertEquals((i + 1) * 3, row.getQty());
+		}
+	}
+}